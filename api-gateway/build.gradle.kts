@@ -12,6 +12,7 @@ dependencies {
     implementation("org.springframework.boot:spring-boot-starter-actuator")
     implementation("org.springframework.boot:spring-boot-starter-security")
     implementation("org.springframework.boot:spring-boot-starter-oauth2-resource-server")
+    implementation("com.github.ben-manes.caffeine:caffeine")
     
     // Micrometer Tracing + Brave bridge
     implementation("io.micrometer:micrometer-tracing-bridge-brave:1.3.2")
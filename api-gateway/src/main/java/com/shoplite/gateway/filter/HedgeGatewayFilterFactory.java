@@ -0,0 +1,407 @@
+package com.shoplite.gateway.filter;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.HistogramSnapshot;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import io.netty.channel.ChannelOption;
+import java.net.URI;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.CompletionContext;
+import org.springframework.cloud.client.loadbalancer.DefaultRequest;
+import org.springframework.cloud.client.loadbalancer.LoadBalancerLifecycle;
+import org.springframework.cloud.client.loadbalancer.LoadBalancerLifecycleValidator;
+import org.springframework.cloud.client.loadbalancer.Request;
+import org.springframework.cloud.client.loadbalancer.RequestData;
+import org.springframework.cloud.client.loadbalancer.RequestDataContext;
+import org.springframework.cloud.client.loadbalancer.Response;
+import org.springframework.cloud.client.loadbalancer.ResponseData;
+import org.springframework.cloud.client.loadbalancer.reactive.ReactiveLoadBalancer;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.OrderedGatewayFilter;
+import org.springframework.cloud.gateway.filter.ReactiveLoadBalancerClientFilter;
+import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
+import org.springframework.cloud.gateway.filter.headers.HttpHeadersFilter;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.RouteMetadataUtils;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.cloud.loadbalancer.support.LoadBalancerClientFactory;
+import org.springframework.cloud.loadbalancer.support.LoadBalancerUriTools;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.util.LinkedMultiValueMap;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.netty.http.client.HttpClient;
+
+/**
+ * Hedged requests for idempotent GET routes.
+ *
+ * Runs right after the load balancer has picked an instance and proxies the GET itself: if the
+ * primary has not returned response headers within the route's observed latency percentile
+ * (never less than min-delay), a second request goes to a different instance and whichever answers
+ * first is streamed to the client; the other is cancelled. A route is only hedged on latency once
+ * it has timed 20 primaries and has samples in the last minute, so a cold route is not hedged at
+ * min-delay. If the primary fails (connect error, response-timeout) the hedge is sent at once
+ * instead of waiting. The response must start within timeout or the client gets 504; if neither
+ * call produces a response it gets 502.
+ *
+ * Hedges draw from a budget refilled by budget-percent of each request (bursts of up to 10
+ * hedges), so hedging can add at most that share of extra backend load. Metrics per route:
+ * gateway.hedge.latency (primary time-to-headers, with the percentile; a cancelled primary counts
+ * as at least the threshold, and is not timed on a cold route), gateway.hedge.requests
+ * {result=sent|won|no_budget}.
+ *
+ * Both calls go through the gateway's HttpClient with the route's connect-timeout and
+ * response-timeout metadata applied, like normally routed calls. The hedge's instance is reported
+ * to the route's LoadBalancerLifecycle beans (start, then success, failure, or discard when it
+ * loses), so InstanceLatencyStats sees hedged traffic too.
+ *
+ * Usage in application.yml: {@code - name: Hedge} with args enabled (default false) and optional
+ * percentile, min-delay, budget-percent, timeout, required-param. With required-param set, GETs
+ * without that query parameter (e.g. unbounded listings) are not hedged. Non-GET requests pass
+ * through to normal routing.
+ */
+@Component
+public class HedgeGatewayFilterFactory
+        extends AbstractGatewayFilterFactory<HedgeGatewayFilterFactory.Config> {
+
+    private static final long TOKEN = 1_000;
+    private static final long MAX_TOKENS = 10 * TOKEN;
+    private static final long THRESHOLD_REFRESH_NANOS = TimeUnit.SECONDS.toNanos(1);
+    private static final long MIN_SAMPLES = 20;
+
+    private final MeterRegistry meterRegistry;
+    private final LoadBalancerClientFactory clientFactory;
+    private final ObjectProvider<List<HttpHeadersFilter>> headersFilters;
+    private final HttpClient httpClient;
+    private final WebClient.Builder webClientBuilder;
+
+    public HedgeGatewayFilterFactory(MeterRegistry meterRegistry,
+            LoadBalancerClientFactory clientFactory,
+            ObjectProvider<List<HttpHeadersFilter>> headersFilters, HttpClient httpClient,
+            WebClient.Builder webClientBuilder) {
+        super(Config.class);
+        this.meterRegistry = meterRegistry;
+        this.clientFactory = clientFactory;
+        this.headersFilters = headersFilters;
+        this.httpClient = httpClient;
+        this.webClientBuilder = webClientBuilder;
+    }
+
+    @Override
+    public GatewayFilter apply(Config config) {
+        if (!config.isEnabled()) {
+            return (exchange, chain) -> chain.filter(exchange);
+        }
+        Map<String, RouteState> states = new ConcurrentHashMap<>();
+        long deposit = Math.round(config.getBudgetPercent() / 100.0 * TOKEN);
+
+        GatewayFilter filter = (exchange, chain) -> {
+            Response<ServiceInstance> chosen = exchange
+                    .getAttribute(ServerWebExchangeUtils.GATEWAY_LOADBALANCER_RESPONSE_ATTR);
+            URI primaryUri =
+                    exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_REQUEST_URL_ATTR);
+            if (exchange.getRequest().getMethod() != HttpMethod.GET || chosen == null
+                    || !chosen.hasServer() || primaryUri == null
+                    || config.getRequiredParam() != null && !exchange.getRequest()
+                            .getQueryParams().containsKey(config.getRequiredParam())) {
+                return chain.filter(exchange);
+            }
+            Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+            String routeId = route == null ? "unknown" : route.getId();
+            RouteState state = states.computeIfAbsent(routeId,
+                    id -> new RouteState(id, route, config));
+            state.budget.accumulateAndGet(deposit,
+                    (tokens, add) -> Math.min(MAX_TOKENS, tokens + add));
+
+            ServerWebExchangeUtils.setAlreadyRouted(exchange);
+            HttpHeaders headers = HttpHeadersFilter.filterRequest(headersFilters.getIfAvailable(),
+                    exchange);
+            Duration threshold = state.threshold();
+            long start = System.nanoTime();
+            Sinks.Empty<Void> primaryFailed = Sinks.empty();
+            Mono<Attempt> primary = send(state.webClient, primaryUri, headers, false)
+                    .doOnNext(attempt -> state.latency.record(System.nanoTime() - start,
+                            TimeUnit.NANOSECONDS))
+                    // cancelled (lost to the hedge, or the client left): its latency is unknown
+                    // but at least the time so far, and a primary that needed hedging counts as
+                    // no faster than the threshold so the percentile is not pulled down
+                    .doOnCancel(() -> {
+                        if (threshold != null) {
+                            state.latency.record(Math.max(System.nanoTime() - start,
+                                    threshold.toNanos()), TimeUnit.NANOSECONDS);
+                        }
+                    })
+                    .doOnError(e -> primaryFailed.tryEmitEmpty());
+            Mono<Void> hedgeNow = threshold == null ? primaryFailed.asMono()
+                    : Mono.firstWithSignal(Mono.delay(threshold).then(), primaryFailed.asMono());
+            Mono<Attempt> hedge = hedgeNow.then(Mono.defer(() -> hedge(exchange,
+                    chosen.getServer(), primaryUri, headers, state)));
+
+            return Mono.firstWithValue(primary, hedge).timeout(config.getTimeout())
+                    .flatMap(winner -> {
+                        if (winner.hedged()) {
+                            state.won.increment();
+                        }
+                        return write(exchange, winner.entity());
+                    })
+                    .onErrorResume(TimeoutException.class,
+                            e -> fail(exchange, HttpStatus.GATEWAY_TIMEOUT, e))
+                    // both calls failed, or the primary failed with no hedge to fall back to
+                    .onErrorResume(e -> fail(exchange, HttpStatus.BAD_GATEWAY, e));
+        };
+        return new OrderedGatewayFilter(filter,
+                ReactiveLoadBalancerClientFilter.LOAD_BALANCER_CLIENT_FILTER_ORDER + 1);
+    }
+
+    private Mono<Attempt> hedge(ServerWebExchange exchange, ServiceInstance primary,
+            URI primaryUri, HttpHeaders headers, RouteState state) {
+        if (!state.tryTakeBudget()) {
+            state.noBudget.increment();
+            return Mono.empty();
+        }
+        ReactiveLoadBalancer<ServiceInstance> loadBalancer =
+                clientFactory.getInstance(primary.getServiceId());
+        if (loadBalancer == null) {
+            return Mono.empty();
+        }
+        Set<LoadBalancerLifecycle> lifecycles = lifecycles(primary.getServiceId());
+        Request<RequestDataContext> request = new DefaultRequest<>(new RequestDataContext(
+                new RequestData(exchange.getRequest(), exchange.getAttributes())));
+        // two picks are enough to find another instance in practice; give up rather than spin
+        return Flux.range(0, 2).concatMap(i -> loadBalancer.choose(request))
+                .filter(response -> response.hasServer() && !sameInstance(response.getServer(),
+                        primary))
+                .next().flatMap(response -> {
+                    state.sent.increment();
+                    lifecycles.forEach(lifecycle -> lifecycle.onStart(request));
+                    lifecycles.forEach(lifecycle -> lifecycle.onStartRequest(request, response));
+                    URI uri = LoadBalancerUriTools.reconstructURI(response.getServer(),
+                            primaryUri);
+                    return send(state.webClient, uri, headers, true)
+                            .doOnNext(attempt -> complete(lifecycles,
+                                    new CompletionContext<>(CompletionContext.Status.SUCCESS,
+                                            request, response, responseData(attempt, request))))
+                            .doOnError(e -> complete(lifecycles, new CompletionContext<>(
+                                    CompletionContext.Status.FAILED, e, request, response)))
+                            // lost the race: release the instance without a latency sample
+                            .doOnCancel(() -> complete(lifecycles, new CompletionContext<>(
+                                    CompletionContext.Status.DISCARD, request, response)));
+                });
+    }
+
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    private Set<LoadBalancerLifecycle> lifecycles(String serviceId) {
+        return LoadBalancerLifecycleValidator.getSupportedLifecycleProcessors(
+                clientFactory.getInstances(serviceId, LoadBalancerLifecycle.class),
+                RequestDataContext.class, ResponseData.class, ServiceInstance.class);
+    }
+
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    private static void complete(Set<LoadBalancerLifecycle> lifecycles,
+            CompletionContext<ResponseData, ServiceInstance, RequestDataContext> context) {
+        lifecycles.forEach(lifecycle -> lifecycle.onComplete(context));
+    }
+
+    private static ResponseData responseData(Attempt attempt,
+            Request<RequestDataContext> request) {
+        return new ResponseData(attempt.entity().getStatusCode(), attempt.entity().getHeaders(),
+                new LinkedMultiValueMap<>(), request.getContext().getClientRequest());
+    }
+
+    private Mono<Attempt> send(WebClient webClient, URI uri, HttpHeaders headers,
+            boolean hedged) {
+        return webClient.get().uri(uri).headers(h -> h.addAll(headers)).retrieve()
+                // statuses are relayed as-is, not turned into errors
+                .onStatus(status -> true, response -> Mono.empty())
+                .toEntityFlux(DataBuffer.class).map(entity -> new Attempt(entity, hedged));
+    }
+
+    private Mono<Void> write(ServerWebExchange exchange, ResponseEntity<Flux<DataBuffer>> entity) {
+        ServerHttpResponse response = exchange.getResponse();
+        response.setStatusCode(entity.getStatusCode());
+        response.getHeaders().putAll(HttpHeadersFilter.filter(headersFilters.getIfAvailable(),
+                entity.getHeaders(), exchange, HttpHeadersFilter.Type.RESPONSE));
+        return response.writeWith(entity.getBody() == null ? Flux.empty() : entity.getBody());
+    }
+
+    private static Mono<Void> fail(ServerWebExchange exchange, HttpStatus status, Throwable e) {
+        ServerHttpResponse response = exchange.getResponse();
+        if (response.isCommitted()) {
+            return Mono.error(e);
+        }
+        response.setStatusCode(status);
+        return response.setComplete();
+    }
+
+    private static boolean sameInstance(ServiceInstance a, ServiceInstance b) {
+        return a.getHost().equals(b.getHost()) && a.getPort() == b.getPort();
+    }
+
+    private record Attempt(ResponseEntity<Flux<DataBuffer>> entity, boolean hedged) {
+    }
+
+    // the gateway's HttpClient with the route's connect-timeout/response-timeout metadata applied
+    private WebClient webClient(Route route) {
+        HttpClient client = httpClient;
+        Object connectTimeout = route == null ? null
+                : route.getMetadata().get(RouteMetadataUtils.CONNECT_TIMEOUT_ATTR);
+        if (connectTimeout != null) {
+            client = client.option(ChannelOption.CONNECT_TIMEOUT_MILLIS,
+                    Integer.parseInt(connectTimeout.toString()));
+        }
+        Object responseTimeout = route == null ? null
+                : route.getMetadata().get(RouteMetadataUtils.RESPONSE_TIMEOUT_ATTR);
+        if (responseTimeout != null) {
+            client = client.responseTimeout(
+                    Duration.ofMillis(Long.parseLong(responseTimeout.toString())));
+        }
+        return webClientBuilder.clone().clientConnector(new ReactorClientHttpConnector(client))
+                .build();
+    }
+
+    private final class RouteState {
+        final WebClient webClient;
+        final Timer latency;
+        final Counter sent;
+        final Counter won;
+        final Counter noBudget;
+        final AtomicLong budget = new AtomicLong(MAX_TOKENS);
+        private final Config config;
+        private volatile Duration threshold;
+        private volatile long thresholdAt = System.nanoTime() - THRESHOLD_REFRESH_NANOS;
+
+        RouteState(String routeId, Route route, Config config) {
+            this.config = config;
+            this.webClient = webClient(route);
+            this.latency = Timer.builder("gateway.hedge.latency").tag("route", routeId)
+                    .publishPercentiles(config.getPercentile())
+                    .distributionStatisticExpiry(Duration.ofMinutes(1)).register(meterRegistry);
+            this.sent = counter(routeId, "sent");
+            this.won = counter(routeId, "won");
+            this.noBudget = counter(routeId, "no_budget");
+        }
+
+        private Counter counter(String routeId, String result) {
+            return Counter.builder("gateway.hedge.requests").tag("route", routeId)
+                    .tag("result", result).register(meterRegistry);
+        }
+
+        // configured percentile of recent primary latencies (never below min-delay), recomputed at
+        // most once per second; null (hedge only on failure) until there are enough samples
+        Duration threshold() {
+            long now = System.nanoTime();
+            if (now - thresholdAt >= THRESHOLD_REFRESH_NANOS) {
+                thresholdAt = now;
+                threshold = observedThreshold();
+            }
+            return threshold;
+        }
+
+        private Duration observedThreshold() {
+            HistogramSnapshot snapshot = latency.takeSnapshot();
+            if (snapshot.count() < MIN_SAMPLES) {
+                return null;
+            }
+            for (ValueAtPercentile value : snapshot.percentileValues()) {
+                // 0 when nothing was timed within the statistic window
+                if (value.percentile() == config.getPercentile() && value.value() > 0) {
+                    Duration observed =
+                            Duration.ofNanos((long) value.value(TimeUnit.NANOSECONDS));
+                    return observed.compareTo(config.getMinDelay()) > 0 ? observed
+                            : config.getMinDelay();
+                }
+            }
+            return null;
+        }
+
+        boolean tryTakeBudget() {
+            while (true) {
+                long tokens = budget.get();
+                if (tokens < TOKEN) {
+                    return false;
+                }
+                if (budget.compareAndSet(tokens, tokens - TOKEN)) {
+                    return true;
+                }
+            }
+        }
+    }
+
+    public static class Config {
+        private boolean enabled;
+        private double percentile = 0.95;
+        private Duration minDelay = Duration.ofMillis(20);
+        private double budgetPercent = 10;
+        private Duration timeout = Duration.ofSeconds(5);
+        private String requiredParam;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public double getPercentile() {
+            return percentile;
+        }
+
+        public void setPercentile(double percentile) {
+            this.percentile = percentile;
+        }
+
+        public Duration getMinDelay() {
+            return minDelay;
+        }
+
+        public void setMinDelay(Duration minDelay) {
+            this.minDelay = minDelay;
+        }
+
+        public double getBudgetPercent() {
+            return budgetPercent;
+        }
+
+        public void setBudgetPercent(double budgetPercent) {
+            this.budgetPercent = budgetPercent;
+        }
+
+        public Duration getTimeout() {
+            return timeout;
+        }
+
+        public void setTimeout(Duration timeout) {
+            this.timeout = timeout;
+        }
+
+        public String getRequiredParam() {
+            return requiredParam;
+        }
+
+        public void setRequiredParam(String requiredParam) {
+            this.requiredParam = requiredParam;
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package com.shoplite.gateway.filter;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.net.InetSocketAddress;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+/**
+ * Per-subject, per-route rate limiter kept entirely in gateway memory (no Redis).
+ *
+ * Each caller (JWT subject, or client address when unauthenticated) gets a token bucket per route
+ * allowing replenish-rate requests per second with bursts up to burst-capacity. The bucket is
+ * stored as a single theoretical-arrival timestamp (GCRA), updated with a CAS, so admission is
+ * lock-free. Buckets idle for idle-timeout are evicted.
+ *
+ * Rejected calls get 429 with Retry-After (seconds) and are counted in
+ * gateway.rate_limit.requests{route,result}.
+ *
+ * Usage in application.yml: {@code - name: LocalRateLimit} with args replenish-rate,
+ * burst-capacity and optional idle-timeout, max-subjects.
+ */
+@Component
+public class LocalRateLimitGatewayFilterFactory
+        extends AbstractGatewayFilterFactory<LocalRateLimitGatewayFilterFactory.Config> {
+
+    private final MeterRegistry meterRegistry;
+
+    public LocalRateLimitGatewayFilterFactory(MeterRegistry meterRegistry) {
+        super(Config.class);
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public GatewayFilter apply(Config config) {
+        if (config.getReplenishRate() <= 0 || config.getBurstCapacity() < 1) {
+            throw new IllegalArgumentException(
+                    "LocalRateLimit needs replenish-rate > 0 and burst-capacity >= 1");
+        }
+        long interval = (long) (TimeUnit.SECONDS.toNanos(1) / config.getReplenishRate());
+        long tolerance = interval * (config.getBurstCapacity() - 1);
+        Cache<String, AtomicLong> buckets = Caffeine.newBuilder()
+                .maximumSize(config.getMaxSubjects()).expireAfterAccess(config.getIdleTimeout())
+                .build();
+        Map<String, Counter> counters = new ConcurrentHashMap<>();
+
+        return (exchange, chain) -> {
+            Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+            String routeId = route == null ? "unknown" : route.getId();
+            return subject(exchange).flatMap(subject -> {
+                AtomicLong bucket = buckets.get(subject,
+                        s -> new AtomicLong(System.nanoTime()));
+                long wait = acquire(bucket, interval, tolerance);
+                if (wait == 0) {
+                    count(counters, routeId, "allowed");
+                    return chain.filter(exchange);
+                }
+                count(counters, routeId, "rejected");
+                var response = exchange.getResponse();
+                response.setStatusCode(HttpStatus.TOO_MANY_REQUESTS);
+                response.getHeaders().set(HttpHeaders.RETRY_AFTER,
+                        Long.toString(Math.max(1, TimeUnit.NANOSECONDS.toSeconds(
+                                wait + TimeUnit.SECONDS.toNanos(1) - 1))));
+                return response.setComplete();
+            });
+        };
+    }
+
+    /**
+     * Takes one token; returns 0 if admitted, otherwise the nanoseconds until one is available.
+     */
+    private static long acquire(AtomicLong bucket, long interval, long tolerance) {
+        while (true) {
+            long now = System.nanoTime();
+            long stored = bucket.get();
+            long tat = stored - now < 0 ? now : stored;
+            long wait = tat - tolerance - now;
+            if (wait > 0) {
+                return wait;
+            }
+            if (bucket.compareAndSet(stored, tat + interval)) {
+                return 0;
+            }
+        }
+    }
+
+    private static Mono<String> subject(ServerWebExchange exchange) {
+        return exchange.getPrincipal().map(principal -> "sub:" + principal.getName())
+                .switchIfEmpty(Mono.fromSupplier(() -> "addr:" + Optional
+                        .ofNullable(exchange.getRequest().getRemoteAddress())
+                        .map(InetSocketAddress::getHostString).orElse("unknown")));
+    }
+
+    private void count(Map<String, Counter> counters, String routeId, String result) {
+        counters.computeIfAbsent(routeId + "|" + result,
+                k -> Counter.builder("gateway.rate_limit.requests").tag("route", routeId)
+                        .tag("result", result).register(meterRegistry))
+                .increment();
+    }
+
+    public static class Config {
+        private double replenishRate = 10;
+        private long burstCapacity = 20;
+        private Duration idleTimeout = Duration.ofMinutes(5);
+        private long maxSubjects = 100_000;
+
+        public double getReplenishRate() {
+            return replenishRate;
+        }
+
+        public void setReplenishRate(double replenishRate) {
+            this.replenishRate = replenishRate;
+        }
+
+        public long getBurstCapacity() {
+            return burstCapacity;
+        }
+
+        public void setBurstCapacity(long burstCapacity) {
+            this.burstCapacity = burstCapacity;
+        }
+
+        public Duration getIdleTimeout() {
+            return idleTimeout;
+        }
+
+        public void setIdleTimeout(Duration idleTimeout) {
+            this.idleTimeout = idleTimeout;
+        }
+
+        public long getMaxSubjects() {
+            return maxSubjects;
+        }
+
+        public void setMaxSubjects(long maxSubjects) {
+            this.maxSubjects = maxSubjects;
+        }
+    }
+}
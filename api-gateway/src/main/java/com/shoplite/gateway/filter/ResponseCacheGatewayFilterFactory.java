@@ -0,0 +1,348 @@
+package com.shoplite.gateway.filter;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+import org.reactivestreams.Publisher;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.ETag;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.http.server.reactive.ServerHttpResponseDecorator;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Per-route response cache for idempotent GETs, with single-flight coalescing of misses.
+ *
+ * Entries are keyed by route, path, query and the caller's authorities (the authorization scope,
+ * not the user), bounded by entry count and TTL. When several identical requests miss at the same
+ * time only the first goes to the backend; the others wait for its response and are served from
+ * it. Only complete 200 responses up to max-body-bytes are cached; streamed (NDJSON) responses pass
+ * through untouched.
+ *
+ * The backend's Cache-Control is honoured: responses marked no-store, no-cache or private (or with
+ * a max-age of 0) are not cached, and an s-maxage or max-age shorter than ttl shortens the entry's
+ * lifetime. s-maxage wins over max-age, which is how catalog-service's listings opt in: they send
+ * {@code max-age=0, must-revalidate, s-maxage=N} so browsers revalidate with the ETag every time
+ * while this cache keeps them for N seconds. Followers of an uncacheable miss make their own
+ * backend call, since its response must not be shared.
+ *
+ * Cache status is returned in X-Cache (HIT, MISS, COALESCED, BYPASS) and counted in
+ * gateway.response_cache.requests{route,result}; each route's cache is also exported as cache.*
+ * metrics.
+ *
+ * Usage in application.yml: {@code - name: ResponseCache} with optional args ttl, max-entries,
+ * max-body-bytes.
+ */
+@Component
+public class ResponseCacheGatewayFilterFactory
+        extends AbstractGatewayFilterFactory<ResponseCacheGatewayFilterFactory.Config> {
+
+    public static final String CACHE_HEADER = "X-Cache";
+
+    private static final List<String> UNCACHED_HEADERS = List.of(HttpHeaders.TRANSFER_ENCODING,
+            HttpHeaders.CONTENT_LENGTH, HttpHeaders.SET_COOKIE, HttpHeaders.CONNECTION);
+
+    private final MeterRegistry meterRegistry;
+
+    public ResponseCacheGatewayFilterFactory(MeterRegistry meterRegistry) {
+        super(Config.class);
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public GatewayFilter apply(Config config) {
+        Cache<String, CachedResponse> cache = Caffeine.newBuilder()
+                .maximumSize(config.getMaxEntries()).expireAfter(new PerEntryTtl())
+                .recordStats().build();
+        Map<String, CompletableFuture<CachedResponse>> inflight = new ConcurrentHashMap<>();
+        Map<String, Map<String, Counter>> counters = new ConcurrentHashMap<>();
+        Map<String, Boolean> monitored = new ConcurrentHashMap<>();
+
+        return (exchange, chain) -> {
+            Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+            String routeId = route == null ? "unknown" : route.getId();
+            monitored.computeIfAbsent(routeId, id -> {
+                CaffeineCacheMetrics.monitor(meterRegistry, cache, "gateway." + id);
+                return true;
+            });
+            Map<String, Counter> routeCounters = counters.computeIfAbsent(routeId,
+                    id -> new ConcurrentHashMap<>());
+
+            if (exchange.getRequest().getMethod() != HttpMethod.GET) {
+                count(routeCounters, routeId, "BYPASS");
+                return chain.filter(exchange);
+            }
+
+            return cacheKey(exchange, routeId).flatMap(key -> {
+                CachedResponse hit = cache.getIfPresent(key);
+                if (hit != null) {
+                    count(routeCounters, routeId, "HIT");
+                    return write(exchange, hit, "HIT");
+                }
+
+                CompletableFuture<CachedResponse> mine = new CompletableFuture<>();
+                CompletableFuture<CachedResponse> leader = inflight.putIfAbsent(key, mine);
+                if (leader != null) {
+                    count(routeCounters, routeId, "COALESCED");
+                    return Mono.fromFuture(leader.thenApply(Optional::ofNullable))
+                            .flatMap(shared -> shared.isPresent()
+                                    ? write(exchange, shared.get(), "COALESCED")
+                                    : passThrough(exchange, chain, "MISS"));
+                }
+
+                count(routeCounters, routeId, "MISS");
+                var capturing = new CapturingResponse(exchange.getResponse(),
+                        config.getMaxBodyBytes(), config.getTtl());
+                capturing.getHeaders().set(CACHE_HEADER, "MISS");
+                return chain.filter(exchange.mutate().response(capturing).build())
+                        .doFinally(signal -> {
+                            CachedResponse captured = capturing.result();
+                            if (captured != null) {
+                                cache.put(key, captured);
+                            }
+                            inflight.remove(key, mine);
+                            mine.complete(captured);
+                        });
+            });
+        };
+    }
+
+    private static Mono<Void> passThrough(ServerWebExchange exchange,
+            GatewayFilterChain chain, String status) {
+        exchange.getResponse().getHeaders().set(CACHE_HEADER, status);
+        return chain.filter(exchange);
+    }
+
+    private Mono<String> cacheKey(ServerWebExchange exchange, String routeId) {
+        var request = exchange.getRequest();
+        String resource = routeId + "|" + request.getURI().getRawPath() + "?"
+                + Optional.ofNullable(request.getURI().getRawQuery()).orElse("") + "|"
+                + request.getHeaders().getAccept();
+        return exchange.getPrincipal()
+                .map(principal -> principal instanceof Authentication authentication
+                        ? authentication.getAuthorities().stream()
+                                .map(GrantedAuthority::getAuthority).sorted()
+                                .collect(Collectors.joining(","))
+                        : principal.getName())
+                .defaultIfEmpty("anonymous").map(scope -> resource + "|" + scope);
+    }
+
+    private static Mono<Void> write(ServerWebExchange exchange, CachedResponse cached,
+            String status) {
+        ServerHttpResponse response = exchange.getResponse();
+        response.getHeaders().putAll(cached.headers());
+        response.getHeaders().set(CACHE_HEADER, status);
+
+        if (notModified(exchange.getRequest().getHeaders().get(HttpHeaders.IF_NONE_MATCH),
+                cached.headers().getETag())) {
+            response.setStatusCode(HttpStatus.NOT_MODIFIED);
+            return response.setComplete();
+        }
+        response.setStatusCode(cached.status());
+        response.getHeaders().setContentLength(cached.body().length);
+        return response.writeWith(Mono.just(response.bufferFactory().wrap(cached.body())));
+    }
+
+    // one of the If-None-Match entity-tags equals etag (weak comparison, so W/ tags match), or *
+    static boolean notModified(List<String> ifNoneMatch, String etag) {
+        if (etag == null || ifNoneMatch == null) {
+            return false;
+        }
+        ETag current = ETag.create(etag);
+        return ifNoneMatch.stream().flatMap(value -> ETag.parse(value).stream())
+                .anyMatch(tag -> tag.isWildcard() || tag.compare(current, false));
+    }
+
+    private void count(Map<String, Counter> routeCounters, String routeId, String result) {
+        routeCounters.computeIfAbsent(result,
+                r -> Counter.builder("gateway.response_cache.requests").tag("route", routeId)
+                        .tag("result", r).register(meterRegistry))
+                .increment();
+    }
+
+    record CachedResponse(HttpStatusCode status, HttpHeaders headers, byte[] body, Duration ttl) {
+    }
+
+    private static final class PerEntryTtl implements Expiry<String, CachedResponse> {
+
+        @Override
+        public long expireAfterCreate(String key, CachedResponse value, long currentTime) {
+            return value.ttl().toNanos();
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, CachedResponse value, long currentTime,
+                long currentDuration) {
+            return value.ttl().toNanos();
+        }
+
+        @Override
+        public long expireAfterRead(String key, CachedResponse value, long currentTime,
+                long currentDuration) {
+            return currentDuration;
+        }
+    }
+
+    /**
+     * How long the backend allows a shared cache to keep this response, capped at {@code ttl};
+     * null if it must not be cached.
+     */
+    static Duration cacheTtl(HttpHeaders headers, Duration ttl) {
+        Duration sharedMaxAge = null;
+        Duration maxAge = null;
+        for (String value : headers.getOrEmpty(HttpHeaders.CACHE_CONTROL)) {
+            for (String directive : value.split(",")) {
+                String[] parts = directive.trim().toLowerCase(Locale.ROOT).split("=", 2);
+                switch (parts[0]) {
+                    case "no-store", "no-cache", "private" -> {
+                        return null;
+                    }
+                    case "s-maxage" -> sharedMaxAge = seconds(parts);
+                    case "max-age" -> maxAge = seconds(parts);
+                    default -> {
+                    }
+                }
+            }
+        }
+        Duration allowed = sharedMaxAge != null ? sharedMaxAge : maxAge;
+        if (allowed == null) {
+            return ttl;
+        }
+        return allowed.isZero() ? null : allowed.compareTo(ttl) < 0 ? allowed : ttl;
+    }
+
+    // malformed delta-seconds count as 0, i.e. not cacheable
+    private static Duration seconds(String[] directive) {
+        try {
+            return Duration.ofSeconds(Math.max(0,
+                    Long.parseLong(directive.length > 1 ? directive[1].replace("\"", "") : "")));
+        } catch (NumberFormatException e) {
+            return Duration.ZERO;
+        }
+    }
+
+    /**
+     * Writes through to the client while keeping a copy of a complete, cacheable body.
+     */
+    private static final class CapturingResponse extends ServerHttpResponseDecorator {
+        private final int maxBodyBytes;
+        private final Duration ttl;
+        private ByteArrayOutputStream copy = new ByteArrayOutputStream();
+        private volatile boolean complete;
+
+        CapturingResponse(ServerHttpResponse delegate, int maxBodyBytes, Duration ttl) {
+            super(delegate);
+            this.maxBodyBytes = maxBodyBytes;
+            this.ttl = ttl;
+        }
+
+        @Override
+        public Mono<Void> writeWith(Publisher<? extends DataBuffer> body) {
+            Flux<DataBuffer> teed = Flux.from(body).map(buffer -> {
+                capture(buffer);
+                return buffer;
+            });
+            return super.writeWith(teed).doOnSuccess(done -> complete = true);
+        }
+
+        @Override
+        public Mono<Void> writeAndFlushWith(
+                Publisher<? extends Publisher<? extends DataBuffer>> body) {
+            // streaming responses are never cached
+            copy = null;
+            return super.writeAndFlushWith(body);
+        }
+
+        private synchronized void capture(DataBuffer buffer) {
+            if (copy == null) {
+                return;
+            }
+            int length = buffer.readableByteCount();
+            if (copy.size() + length > maxBodyBytes) {
+                copy = null;
+                return;
+            }
+            byte[] bytes = new byte[length];
+            buffer.toByteBuffer(buffer.readPosition(), ByteBuffer.wrap(bytes), 0, length);
+            copy.write(bytes, 0, length);
+        }
+
+        synchronized CachedResponse result() {
+            HttpStatusCode status = getStatusCode();
+            if (!complete || copy == null || status == null || status.value() != 200
+                    || getHeaders().containsKey(HttpHeaders.SET_COOKIE)) {
+                return null;
+            }
+            Duration entryTtl = cacheTtl(getHeaders(), ttl);
+            if (entryTtl == null) {
+                return null;
+            }
+            HttpHeaders headers = new HttpHeaders();
+            getHeaders().forEach((name, values) -> {
+                if (UNCACHED_HEADERS.stream().noneMatch(name::equalsIgnoreCase)
+                        && !CACHE_HEADER.equalsIgnoreCase(name)) {
+                    headers.put(name, List.copyOf(values));
+                }
+            });
+            return new CachedResponse(status, HttpHeaders.readOnlyHttpHeaders(headers),
+                    copy.toByteArray(), entryTtl);
+        }
+    }
+
+    public static class Config {
+        private Duration ttl = Duration.ofSeconds(2);
+        private long maxEntries = 1_000;
+        private int maxBodyBytes = 1_048_576;
+
+        public Duration getTtl() {
+            return ttl;
+        }
+
+        public void setTtl(Duration ttl) {
+            this.ttl = ttl;
+        }
+
+        public long getMaxEntries() {
+            return maxEntries;
+        }
+
+        public void setMaxEntries(long maxEntries) {
+            this.maxEntries = maxEntries;
+        }
+
+        public int getMaxBodyBytes() {
+            return maxBodyBytes;
+        }
+
+        public void setMaxBodyBytes(int maxBodyBytes) {
+            this.maxBodyBytes = maxBodyBytes;
+        }
+    }
+}
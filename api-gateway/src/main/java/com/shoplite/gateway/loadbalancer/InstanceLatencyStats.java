@@ -0,0 +1,128 @@
+package com.shoplite.gateway.loadbalancer;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.CompletionContext;
+import org.springframework.cloud.client.loadbalancer.LoadBalancerLifecycle;
+import org.springframework.cloud.client.loadbalancer.Request;
+import org.springframework.cloud.client.loadbalancer.RequestDataContext;
+import org.springframework.cloud.client.loadbalancer.Response;
+import org.springframework.cloud.client.loadbalancer.ResponseData;
+
+/**
+ * Per-instance latency and outstanding-request tracking, fed by the gateway's load-balancer
+ * lifecycle callbacks.
+ *
+ * Latency is a time-decayed EWMA ("peak EWMA"): each sample is weighted by how long ago the last
+ * one arrived, and the estimate keeps decaying while an instance receives no traffic, so an
+ * instance that was slow during a GC pause is retried once the decay window has passed. Failed
+ * calls and 5xx responses count as at least failure-penalty.
+ *
+ * An instance with no sample yet (new or expired) costs nothing while idle, so it gets probed, but
+ * is charged cold-penalty per request once one is in flight; otherwise a fresh instance would win
+ * every comparison and take the whole burst before its first response arrives.
+ */
+public class InstanceLatencyStats
+        implements LoadBalancerLifecycle<RequestDataContext, ResponseData, ServiceInstance> {
+
+    private final double decayNanos;
+    private final long failurePenaltyNanos;
+    private final long coldPenaltyNanos;
+    private final Cache<String, Instance> instances = Caffeine.newBuilder()
+            .expireAfterAccess(Duration.ofMinutes(10)).build();
+
+    public InstanceLatencyStats(Duration decay, Duration failurePenalty, Duration coldPenalty) {
+        this.decayNanos = decay.toNanos();
+        this.failurePenaltyNanos = failurePenalty.toNanos();
+        this.coldPenaltyNanos = coldPenalty.toNanos();
+    }
+
+    /**
+     * Expected cost of sending one more request: decayed latency times (outstanding + 1).
+     */
+    public double cost(ServiceInstance instance) {
+        return instance(instance).cost(System.nanoTime());
+    }
+
+    /**
+     * Releases a request that was cancelled (client gone, hedge lost): the gateway only reports
+     * success and error to the lifecycle, so without this the instance's outstanding count would
+     * only ever grow. No latency sample is taken.
+     */
+    public void onCancel(ServiceInstance instance) {
+        instance(instance).outstanding.decrementAndGet();
+    }
+
+    @Override
+    public boolean supports(Class requestContextClass, Class responseClass, Class serverTypeClass) {
+        return RequestDataContext.class.isAssignableFrom(requestContextClass)
+                && ResponseData.class.isAssignableFrom(responseClass)
+                && ServiceInstance.class.isAssignableFrom(serverTypeClass);
+    }
+
+    @Override
+    public void onStart(Request<RequestDataContext> request) {
+    }
+
+    @Override
+    public void onStartRequest(Request<RequestDataContext> request,
+            Response<ServiceInstance> lbResponse) {
+        if (lbResponse.hasServer()) {
+            instance(lbResponse.getServer()).outstanding.incrementAndGet();
+            request.getContext().setRequestStartTime(System.nanoTime());
+        }
+    }
+
+    @Override
+    public void onComplete(
+            CompletionContext<ResponseData, ServiceInstance, RequestDataContext> context) {
+        Response<ServiceInstance> lbResponse = context.getLoadBalancerResponse();
+        if (lbResponse == null || !lbResponse.hasServer()) {
+            return;
+        }
+        Instance instance = instance(lbResponse.getServer());
+        instance.outstanding.decrementAndGet();
+        // discarded with a server: the call was abandoned (e.g. a losing hedge), nothing to sample
+        if (context.status() == CompletionContext.Status.DISCARD) {
+            return;
+        }
+        long now = System.nanoTime();
+        long rtt = now - context.getLoadBalancerRequest().getContext().getRequestStartTime();
+        ResponseData response = context.getClientResponse();
+        boolean failed = context.status() == CompletionContext.Status.FAILED
+                || response != null && response.getHttpStatus() != null
+                        && response.getHttpStatus().is5xxServerError();
+        instance.observe(failed ? Math.max(rtt, failurePenaltyNanos) : rtt, now);
+    }
+
+    private Instance instance(ServiceInstance instance) {
+        String key = instance.getServiceId() + "|" + instance.getHost() + ":" + instance.getPort();
+        return instances.get(key, k -> new Instance());
+    }
+
+    private final class Instance {
+        final AtomicInteger outstanding = new AtomicInteger();
+        private double ewmaNanos;
+        private long lastNanos = System.nanoTime();
+
+        synchronized void observe(long rttNanos, long now) {
+            double weight = Math.exp(-(now - lastNanos) / decayNanos);
+            // peak-sensitive: a slower sample replaces the estimate instead of being averaged in
+            ewmaNanos = rttNanos > ewmaNanos ? rttNanos
+                    : ewmaNanos * weight + rttNanos * (1 - weight);
+            lastNanos = now;
+        }
+
+        synchronized double cost(long now) {
+            int pending = Math.max(0, outstanding.get());
+            if (ewmaNanos == 0) {
+                return pending == 0 ? 0 : (double) coldPenaltyNanos * (pending + 1);
+            }
+            double decayed = ewmaNanos * Math.exp(-(now - lastNanos) / decayNanos);
+            return decayed * (pending + 1);
+        }
+    }
+}
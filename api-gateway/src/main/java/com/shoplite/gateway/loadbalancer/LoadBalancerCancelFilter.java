@@ -0,0 +1,43 @@
+package com.shoplite.gateway.loadbalancer;
+
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.Response;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.filter.ReactiveLoadBalancerClientFilter;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.core.Ordered;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+/**
+ * Reports cancelled lb:// exchanges to InstanceLatencyStats.
+ *
+ * ReactiveLoadBalancerClientFilter calls the lifecycle's onComplete on success and error only; a
+ * client disconnect or a lost hedge cancels the chain and the chosen instance would keep the
+ * request counted as outstanding forever. Runs just before that filter so it wraps it.
+ */
+public class LoadBalancerCancelFilter implements GlobalFilter, Ordered {
+
+    private final InstanceLatencyStats stats;
+
+    public LoadBalancerCancelFilter(InstanceLatencyStats stats) {
+        this.stats = stats;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        return chain.filter(exchange).doOnCancel(() -> {
+            Response<ServiceInstance> lbResponse = exchange.getAttribute(
+                    ServerWebExchangeUtils.GATEWAY_LOADBALANCER_RESPONSE_ATTR);
+            if (lbResponse != null && lbResponse.hasServer()) {
+                stats.onCancel(lbResponse.getServer());
+            }
+        });
+    }
+
+    @Override
+    public int getOrder() {
+        return ReactiveLoadBalancerClientFilter.LOAD_BALANCER_CLIENT_FILTER_ORDER - 1;
+    }
+}
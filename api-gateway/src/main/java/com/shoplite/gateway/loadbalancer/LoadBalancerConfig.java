@@ -0,0 +1,37 @@
+package com.shoplite.gateway.loadbalancer;
+
+import java.time.Duration;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.cloud.loadbalancer.annotation.LoadBalancerClients;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Replaces the default round-robin balancer for all lb:// routes with LatencyAwareLoadBalancer.
+ */
+@Configuration
+@ConditionalOnProperty(name = "gateway.loadbalancer.latency-aware.enabled", havingValue = "true",
+        matchIfMissing = true)
+@LoadBalancerClients(defaultConfiguration = LatencyAwareLoadBalancerConfiguration.class)
+public class LoadBalancerConfig {
+
+    /**
+     * Shared across services; also registered as a LoadBalancerLifecycle so the gateway reports
+     * request start/completion to it.
+     */
+    @Bean
+    public InstanceLatencyStats instanceLatencyStats(
+            @Value("${gateway.loadbalancer.latency-aware.decay:PT10S}") Duration decay,
+            @Value("${gateway.loadbalancer.latency-aware.failure-penalty:PT1S}")
+            Duration failurePenalty,
+            @Value("${gateway.loadbalancer.latency-aware.cold-penalty:PT1S}")
+            Duration coldPenalty) {
+        return new InstanceLatencyStats(decay, failurePenalty, coldPenalty);
+    }
+
+    @Bean
+    public LoadBalancerCancelFilter loadBalancerCancelFilter(InstanceLatencyStats stats) {
+        return new LoadBalancerCancelFilter(stats);
+    }
+}
@@ -0,0 +1,100 @@
+package com.shoplite.gateway.security;
+
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.stream.Collectors;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.core.Ordered;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.context.ReactiveSecurityContextHolder;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+/**
+ * Forwards the verified caller identity to downstream services as a compact HMAC-signed assertion.
+ *
+ * The gateway has already verified the RS256 access token; services running in trusted-identity
+ * mode verify this assertion (one HMAC) instead of re-verifying the JWT against the JWKS. Format
+ * of the {@value #HEADER} header: base64url(subject LF authorities LF exp) "." base64url(HMAC-SHA256
+ * of the payload). exp is the token's own expiry, capped at now + ttl to bound replay.
+ *
+ * Any client-supplied {@value #HEADER} header is stripped. The key is shared with the services
+ * (security.identity.key) and must be at least 32 bytes.
+ */
+@Component
+@ConditionalOnProperty(name = "gateway.identity.enabled", havingValue = "true")
+public class IdentityAssertionFilter implements GlobalFilter, Ordered {
+
+    public static final String HEADER = "X-Shoplite-Identity";
+
+    private static final String HMAC = "HmacSHA256";
+
+    private final SecretKeySpec key;
+    private final Duration ttl;
+
+    public IdentityAssertionFilter(@Value("${gateway.identity.key}") String key,
+            @Value("${gateway.identity.ttl:PT30S}") Duration ttl) {
+        byte[] secret = key.getBytes(StandardCharsets.UTF_8);
+        if (secret.length < 32) {
+            throw new IllegalStateException("gateway.identity.key must be at least 32 bytes");
+        }
+        this.key = new SecretKeySpec(secret, HMAC);
+        this.ttl = ttl;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        return ReactiveSecurityContextHolder.getContext().map(SecurityContext::getAuthentication)
+                .filter(Authentication::isAuthenticated).map(this::assertion)
+                .defaultIfEmpty("")
+                .flatMap(assertion -> chain.filter(exchange.mutate()
+                        .request(request -> request.headers(headers -> {
+                            headers.remove(HEADER);
+                            if (!assertion.isEmpty()) {
+                                headers.set(HEADER, assertion);
+                            }
+                        })).build()));
+    }
+
+    private String assertion(Authentication authentication) {
+        Instant exp = Instant.now().plus(ttl);
+        if (authentication.getCredentials() instanceof Jwt jwt && jwt.getExpiresAt() != null
+                && jwt.getExpiresAt().isBefore(exp)) {
+            exp = jwt.getExpiresAt();
+        }
+        String authorities = authentication.getAuthorities().stream()
+                .map(GrantedAuthority::getAuthority).collect(Collectors.joining(" "));
+        byte[] payload = (authentication.getName() + "\n" + authorities + "\n"
+                + exp.getEpochSecond()).getBytes(StandardCharsets.UTF_8);
+        Base64.Encoder encoder = Base64.getUrlEncoder().withoutPadding();
+        return encoder.encodeToString(payload) + "." + encoder.encodeToString(sign(payload));
+    }
+
+    private byte[] sign(byte[] payload) {
+        try {
+            Mac mac = Mac.getInstance(HMAC);
+            mac.init(key);
+            return mac.doFinal(payload);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Cannot sign identity assertion", e);
+        }
+    }
+
+    // runs before the load balancer and the proxied call
+    @Override
+    public int getOrder() {
+        return Ordered.HIGHEST_PRECEDENCE + 100;
+    }
+}
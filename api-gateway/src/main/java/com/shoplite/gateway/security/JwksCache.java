@@ -0,0 +1,114 @@
+package com.shoplite.gateway.security;
+
+import com.nimbusds.jose.jwk.JWK;
+import com.nimbusds.jose.jwk.JWKMatcher;
+import com.nimbusds.jose.jwk.JWKSelector;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jwt.SignedJWT;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.text.ParseException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Keeps the issuer's JWK set in memory and refreshes it in the background, so signature
+ * verification never waits on a JWKS fetch in the common case. A token with an unknown kid (key
+ * rotation between refreshes) triggers one shared, on-demand refresh, at most once per
+ * min-refresh-interval: unknown kids inside that window are rejected without a fetch, so a stream
+ * of tokens with made-up kids cannot turn the gateway into a load generator for the issuer.
+ */
+public class JwksCache {
+
+    private static final Logger log = LoggerFactory.getLogger(JwksCache.class);
+
+    private final WebClient webClient;
+    private final String jwkSetUri;
+    private final Duration refreshInterval;
+    private final long minRefreshNanos;
+    private final AtomicLong lastOnDemand;
+    private final AtomicReference<JWKSet> current = new AtomicReference<>(new JWKSet());
+    private final AtomicReference<Mono<JWKSet>> inflight = new AtomicReference<>();
+    private Disposable refresher;
+
+    public JwksCache(WebClient webClient, String jwkSetUri, Duration refreshInterval,
+            Duration minRefreshInterval) {
+        this.webClient = webClient;
+        this.jwkSetUri = jwkSetUri;
+        this.refreshInterval = refreshInterval;
+        this.minRefreshNanos = minRefreshInterval.toNanos();
+        this.lastOnDemand = new AtomicLong(System.nanoTime() - minRefreshNanos);
+    }
+
+    @PostConstruct
+    void start() {
+        refresher = Flux.interval(Duration.ZERO, refreshInterval)
+                .concatMap(tick -> refresh().onErrorResume(e -> {
+                    log.warn("JWKS refresh from {} failed: {}", jwkSetUri, e.toString());
+                    return Mono.empty();
+                })).subscribe();
+    }
+
+    @PreDestroy
+    void stop() {
+        if (refresher != null) {
+            refresher.dispose();
+        }
+    }
+
+    /**
+     * JWK source for NimbusReactiveJwtDecoder: keys matching the token header, from memory if
+     * possible.
+     */
+    public Flux<JWK> keys(SignedJWT jwt) {
+        JWKSelector selector = new JWKSelector(JWKMatcher.forJWSHeader(jwt.getHeader()));
+        List<JWK> keys = selector.select(current.get());
+        if (!keys.isEmpty()) {
+            return Flux.fromIterable(keys);
+        }
+        return refreshOnDemand().flatMapIterable(selector::select);
+    }
+
+    private Mono<JWKSet> refreshOnDemand() {
+        Mono<JWKSet> fetch = inflight.get();
+        if (fetch != null) {
+            return fetch;
+        }
+        long now = System.nanoTime();
+        long last = lastOnDemand.get();
+        if (now - last < minRefreshNanos || !lastOnDemand.compareAndSet(last, now)) {
+            log.debug("Unknown kid within {}ms of the last JWKS refresh, not fetching",
+                    minRefreshNanos / 1_000_000);
+            return Mono.empty();
+        }
+        return refresh();
+    }
+
+    // single-flight: concurrent callers share one fetch
+    private Mono<JWKSet> refresh() {
+        Mono<JWKSet> fetch = inflight.get();
+        if (fetch != null) {
+            return fetch;
+        }
+        Mono<JWKSet> created = webClient.get().uri(jwkSetUri).retrieve().bodyToMono(String.class)
+                .map(JwksCache::parse).doOnNext(current::set)
+                .doFinally(signal -> inflight.set(null)).cache();
+        return inflight.compareAndSet(null, created) ? created : refresh();
+    }
+
+    private static JWKSet parse(String body) {
+        try {
+            return JWKSet.parse(body);
+        } catch (ParseException e) {
+            throw new IllegalStateException("Invalid JWK set", e);
+        }
+    }
+}
@@ -1,5 +1,9 @@
 package com.shoplite.gateway.security;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import java.util.List;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.HttpMethod;
@@ -7,7 +11,13 @@ import org.springframework.security.config.Customizer;
 import org.springframework.security.config.annotation.web.reactive.EnableWebFluxSecurity;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.oauth2.core.DelegatingOAuth2TokenValidator;
 import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtClaimNames;
+import org.springframework.security.oauth2.jwt.JwtClaimValidator;
+import org.springframework.security.oauth2.jwt.JwtValidators;
+import org.springframework.security.oauth2.jwt.NimbusReactiveJwtDecoder;
+import org.springframework.security.oauth2.jwt.ReactiveJwtDecoder;
 import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationConverter;
 import org.springframework.security.oauth2.server.resource.authentication.JwtGrantedAuthoritiesConverter;
 import org.springframework.security.oauth2.server.resource.authentication.ReactiveJwtAuthenticationConverterAdapter;
@@ -18,6 +28,7 @@ import org.springframework.security.web.server.SecurityWebFilterChain;
 import org.springframework.security.config.web.server.ServerHttpSecurity;
 import org.springframework.core.convert.converter.Converter;
 import org.springframework.security.authentication.AbstractAuthenticationToken;
+import org.springframework.web.reactive.function.client.WebClient;
 import reactor.core.publisher.Mono;
 
 /**
@@ -30,7 +41,8 @@ import reactor.core.publisher.Mono;
  * - Validates JWTs from Auth0 (issuer/audience configured in application.yml). - Maps Auth0
  * permissions/scope claims to Spring authorities with prefix "SCOPE_". - Enforces route-level
  * scopes (products:read/products:write/orders:write). - Returns 401 for missing/invalid token and
- * 403 for access denied.
+ * 403 for access denied. - Caches verified tokens and their authorities until the token's exp, and
+ * keeps the JWK set prefetched so key rotation does not stall requests.
  */
 @Configuration
 @EnableWebFluxSecurity
@@ -41,7 +53,8 @@ public class SecurityConfig {
          * authorization rules per route.
          */
         @Bean
-        public SecurityWebFilterChain springSecurityFilterChain(ServerHttpSecurity http) {
+        public SecurityWebFilterChain springSecurityFilterChain(ServerHttpSecurity http,
+                        ReactiveJwtDecoder cachingJwtDecoder, VerifiedJwtCache verifiedJwtCache) {
                 http.csrf(ServerHttpSecurity.CsrfSpec::disable).cors(Customizer.withDefaults())
                                 .authorizeExchange(ex -> ex
                                                 .pathMatchers("/api/auth/**", "/actuator/**")
@@ -59,8 +72,10 @@ public class SecurityConfig {
                                                 .hasAuthority("SCOPE_orders:write").anyExchange()
                                                 .authenticated())
                                 .oauth2ResourceServer(oauth2 -> oauth2
-                                                .jwt(jwt -> jwt.jwtAuthenticationConverter(
-                                                                reactiveJwtAuthenticationConverter())))
+                                                .jwt(jwt -> jwt.jwtDecoder(cachingJwtDecoder)
+                                                                .jwtAuthenticationConverter(
+                                                                                verifiedJwtCache.converter(
+                                                                                                reactiveJwtAuthenticationConverter()))))
                                 .exceptionHandling(ex -> ex.authenticationEntryPoint(
                                                 new BearerTokenServerAuthenticationEntryPoint())
                                                 .accessDeniedHandler(
@@ -95,6 +110,43 @@ public class SecurityConfig {
                 });
                 return new ReactiveJwtAuthenticationConverterAdapter(delegate);
         }
-}
 
+        /**
+         * JWK set held in memory and refreshed in the background (Auth0 JWKS endpoint).
+         */
+        @Bean
+        public JwksCache jwksCache(WebClient.Builder webClientBuilder,
+                        @Value("${gateway.security.jwk-set-uri}") String jwkSetUri,
+                        @Value("${gateway.security.jwks-refresh-interval:PT5M}") Duration refreshInterval,
+                        @Value("${gateway.security.jwks-min-refresh-interval:PT30S}")
+                        Duration minRefreshInterval) {
+                return new JwksCache(webClientBuilder.build(), jwkSetUri, refreshInterval,
+                                minRefreshInterval);
+        }
 
+        @Bean
+        public VerifiedJwtCache verifiedJwtCache(MeterRegistry meterRegistry,
+                        @Value("${gateway.security.token-cache.max-entries:10000}") long maxEntries,
+                        @Value("${gateway.security.token-cache.max-ttl:PT1H}") Duration maxTtl) {
+                return new VerifiedJwtCache(maxEntries, maxTtl, meterRegistry);
+        }
+
+        /**
+         * Decoder verifying signatures against the prefetched JWK set and validating issuer,
+         * timestamps and audience, wrapped by the verified-token cache.
+         */
+        @Bean
+        public ReactiveJwtDecoder cachingJwtDecoder(JwksCache jwksCache,
+                        VerifiedJwtCache verifiedJwtCache,
+                        @Value("${spring.security.oauth2.resourceserver.jwt.issuer-uri}") String issuer,
+                        @Value("${spring.security.oauth2.resourceserver.jwt.audiences}") List<String> audiences) {
+                NimbusReactiveJwtDecoder decoder =
+                                NimbusReactiveJwtDecoder.withJwkSource(jwksCache::keys).build();
+                decoder.setJwtValidator(new DelegatingOAuth2TokenValidator<>(
+                                JwtValidators.createDefaultWithIssuer(issuer),
+                                new JwtClaimValidator<List<String>>(JwtClaimNames.AUD,
+                                                aud -> aud != null && aud.stream()
+                                                                .anyMatch(audiences::contains))));
+                return verifiedJwtCache.decoder(decoder);
+        }
+}
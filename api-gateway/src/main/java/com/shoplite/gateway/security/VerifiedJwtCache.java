@@ -0,0 +1,105 @@
+package com.shoplite.gateway.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.function.Function;
+import org.springframework.core.convert.converter.Converter;
+import org.springframework.security.authentication.AbstractAuthenticationToken;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.ReactiveJwtDecoder;
+import reactor.core.publisher.Mono;
+
+/**
+ * Bounded cache of already verified bearer tokens and their converted authentications, keyed by a
+ * SHA-256 of the token and expiring at the token's own exp (capped by max-ttl).
+ *
+ * A token seen before skips signature verification, claim validation and authority conversion;
+ * an unseen, invalid or expired token always goes through the full delegate path.
+ */
+public class VerifiedJwtCache {
+
+    private final Cache<String, Jwt> jwts;
+    private final Cache<String, AbstractAuthenticationToken> authentications;
+
+    public VerifiedJwtCache(long maxEntries, Duration maxTtl, MeterRegistry meterRegistry) {
+        this.jwts = Caffeine.newBuilder().maximumSize(maxEntries)
+                .expireAfter(untilExpiry(maxTtl, Jwt::getExpiresAt)).recordStats().build();
+        this.authentications = Caffeine.newBuilder().maximumSize(maxEntries)
+                .expireAfter(untilExpiry(maxTtl, (AbstractAuthenticationToken authentication) ->
+                        authentication.getCredentials() instanceof Jwt jwt ? jwt.getExpiresAt()
+                                : null))
+                .recordStats().build();
+        CaffeineCacheMetrics.monitor(meterRegistry, jwts, "gateway.jwt");
+        CaffeineCacheMetrics.monitor(meterRegistry, authentications, "gateway.jwt.authorities");
+    }
+
+    public ReactiveJwtDecoder decoder(ReactiveJwtDecoder delegate) {
+        return token -> {
+            String key = hash(token);
+            Jwt cached = jwts.getIfPresent(key);
+            if (cached != null) {
+                return Mono.just(cached);
+            }
+            return delegate.decode(token).doOnNext(jwt -> jwts.put(key, jwt));
+        };
+    }
+
+    public Converter<Jwt, Mono<AbstractAuthenticationToken>> converter(
+            Converter<Jwt, Mono<AbstractAuthenticationToken>> delegate) {
+        return jwt -> {
+            String key = hash(jwt.getTokenValue());
+            AbstractAuthenticationToken cached = authentications.getIfPresent(key);
+            if (cached != null) {
+                return Mono.just(cached);
+            }
+            return delegate.convert(jwt)
+                    .doOnNext(authentication -> authentications.put(key, authentication));
+        };
+    }
+
+    static String hash(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256")
+                    .digest(token.getBytes(StandardCharsets.US_ASCII));
+            return Base64.getEncoder().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static <V> Expiry<String, V> untilExpiry(Duration maxTtl,
+            Function<V, Instant> expiresAt) {
+        return new Expiry<>() {
+            @Override
+            public long expireAfterCreate(String key, V value, long currentTime) {
+                Instant exp = expiresAt.apply(value);
+                Duration ttl = exp == null ? maxTtl : Duration.between(Instant.now(), exp);
+                if (ttl.compareTo(maxTtl) > 0) {
+                    ttl = maxTtl;
+                }
+                return Math.max(0, ttl.toNanos());
+            }
+
+            @Override
+            public long expireAfterUpdate(String key, V value, long currentTime,
+                    long currentDuration) {
+                return currentDuration;
+            }
+
+            @Override
+            public long expireAfterRead(String key, V value, long currentTime,
+                    long currentDuration) {
+                return currentDuration;
+            }
+        };
+    }
+}
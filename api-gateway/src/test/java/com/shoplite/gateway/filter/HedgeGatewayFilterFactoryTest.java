@@ -0,0 +1,271 @@
+package com.shoplite.gateway.filter;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.net.URI;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cloud.client.DefaultServiceInstance;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.CompletionContext;
+import org.springframework.cloud.client.loadbalancer.DefaultResponse;
+import org.springframework.cloud.client.loadbalancer.LoadBalancerLifecycle;
+import org.springframework.cloud.client.loadbalancer.Request;
+import org.springframework.cloud.client.loadbalancer.Response;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.headers.HttpHeadersFilter;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.cloud.loadbalancer.support.LoadBalancerClientFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.http.server.HttpServer;
+
+/**
+ * Proxies GETs to two local HTTP servers standing in for catalog-service instances: "primary",
+ * which the load balancer picked, and "hedge", the only other instance.
+ */
+class HedgeGatewayFilterFactoryTest {
+
+    private static final String SERVICE_ID = "catalog-service";
+    // the threshold is recomputed at most once per second
+    private static final long THRESHOLD_REFRESH_MS = 1_100;
+    private static final GatewayFilterChain UNROUTED =
+            e -> Mono.error(new AssertionError("not proxied"));
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final LoadBalancerClientFactory clientFactory = mock(LoadBalancerClientFactory.class);
+    private final List<CompletionContext.Status> hedgeOutcomes = new CopyOnWriteArrayList<>();
+    private final Backend primary = new Backend("primary");
+    private final Backend hedge = new Backend("hedge");
+
+    @AfterEach
+    void stop() {
+        primary.server.disposeNow();
+        hedge.server.disposeNow();
+    }
+
+    @Test
+    void doesNotHedgeAColdRouteOnMinDelayAlone() {
+        GatewayFilter filter = filter(config(0.5, 10));
+        primary.delayMs.set(200);
+
+        assertThat(get(filter, primary.instance())).isEqualTo("200 primary");
+        assertThat(count("sent")).isZero();
+    }
+
+    @Test
+    void hedgesOnceThePercentileIsKnownAndNeverBelowMinDelay() throws Exception {
+        GatewayFilter filter = filter(config(0.5, 10));
+        warmUp(filter);
+        primary.delayMs.set(2_000);
+
+        long start = System.nanoTime();
+        assertThat(get(filter, primary.instance())).isEqualTo("200 hedge");
+
+        // fast primaries put the p50 below min-delay, so the hedge went out at min-delay
+        assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofSeconds(1));
+        assertThat(count("sent")).isEqualTo(1);
+        assertThat(count("won")).isEqualTo(1);
+        assertThat(await(() -> primary.cancelled.get() == 1)).isTrue();
+    }
+
+    @Test
+    void cancelsTheHedgeWhenThePrimaryAnswersFirst() throws Exception {
+        GatewayFilter filter = filter(config(0.5, 10));
+        warmUp(filter);
+        primary.delayMs.set(300);
+        hedge.delayMs.set(5_000);
+
+        assertThat(get(filter, primary.instance())).isEqualTo("200 primary");
+
+        assertThat(count("sent")).isEqualTo(1);
+        assertThat(count("won")).isZero();
+        assertThat(hedgeOutcomes).containsExactly(CompletionContext.Status.DISCARD);
+        assertThat(await(() -> hedge.cancelled.get() == 1)).isTrue();
+    }
+
+    @Test
+    void timesACancelledPrimaryAsAtLeastTheThreshold() throws Exception {
+        GatewayFilter filter = filter(config(0.5, 10));
+        warmUp(filter);
+        primary.delayMs.set(2_000);
+
+        // the client goes away well before the 50ms min-delay threshold
+        Disposable request = filter.filter(exchange(primary.instance()), UNROUTED).subscribe();
+        Thread.sleep(10);
+        request.dispose();
+
+        Timer latency = meterRegistry.get("gateway.hedge.latency").timer();
+        assertThat(latency.count()).isEqualTo(21);
+        assertThat(latency.max(TimeUnit.MILLISECONDS)).isGreaterThanOrEqualTo(50);
+        assertThat(count("sent")).isZero();
+    }
+
+    @Test
+    void stopsHedgingWhenTheBudgetIsSpent() throws Exception {
+        // no refill: only the initial burst of 10 hedges
+        GatewayFilter filter = filter(config(0.5, 0));
+        warmUp(filter);
+        primary.delayMs.set(300);
+
+        for (int i = 0; i < 12; i++) {
+            get(filter, primary.instance());
+        }
+
+        assertThat(count("sent")).isEqualTo(10);
+        assertThat(count("won")).isEqualTo(10);
+        assertThat(count("no_budget")).isEqualTo(2);
+        assertThat(hedge.requests).hasValue(10);
+    }
+
+    @Test
+    void fallsBackToTheHedgeAtOnceWhenThePrimaryFails() {
+        GatewayFilter filter = filter(config(0.5, 10));
+        ServiceInstance down = primary.instance();
+        primary.server.disposeNow();
+
+        assertThat(get(filter, down)).isEqualTo("200 hedge");
+        assertThat(count("won")).isEqualTo(1);
+    }
+
+    @Test
+    void answersBadGatewayWhenNoCallProducesAResponse() {
+        GatewayFilter filter = filter(config(0.5, 10));
+        ServiceInstance down = primary.instance();
+        primary.server.disposeNow();
+        hedge.server.disposeNow();
+
+        assertThat(get(filter, down)).isEqualTo("502 ");
+    }
+
+    private HedgeGatewayFilterFactory.Config config(double percentile, double budgetPercent) {
+        var config = new HedgeGatewayFilterFactory.Config();
+        config.setEnabled(true);
+        config.setPercentile(percentile);
+        config.setMinDelay(Duration.ofMillis(50));
+        config.setBudgetPercent(budgetPercent);
+        config.setTimeout(Duration.ofSeconds(10));
+        return config;
+    }
+
+    @SuppressWarnings("unchecked")
+    private GatewayFilter filter(HedgeGatewayFilterFactory.Config config) {
+        ServiceInstance other = hedge.instance();
+        when(clientFactory.getInstance(SERVICE_ID))
+                .thenReturn(request -> Mono.just(new DefaultResponse(other)));
+        when(clientFactory.getInstances(SERVICE_ID, LoadBalancerLifecycle.class))
+                .thenReturn(Map.of("recorder", new RecordingLifecycle()));
+        ObjectProvider<List<HttpHeadersFilter>> headersFilters = mock(ObjectProvider.class);
+        when(headersFilters.getIfAvailable()).thenReturn(List.of());
+        return new HedgeGatewayFilterFactory(meterRegistry, clientFactory, headersFilters,
+                HttpClient.create(), WebClient.builder()).apply(config);
+    }
+
+    // enough fast primaries for a percentile, then past the next threshold refresh
+    private void warmUp(GatewayFilter filter) throws InterruptedException {
+        for (int i = 0; i < 20; i++) {
+            assertThat(get(filter, primary.instance())).isEqualTo("200 primary");
+        }
+        Thread.sleep(THRESHOLD_REFRESH_MS);
+        primary.requests.set(0);
+    }
+
+    private static String get(GatewayFilter filter, ServiceInstance instance) {
+        MockServerWebExchange exchange = exchange(instance);
+
+        filter.filter(exchange, UNROUTED).block(Duration.ofSeconds(15));
+
+        var response = exchange.getResponse();
+        return response.getStatusCode().value() + " "
+                + response.getBodyAsString().defaultIfEmpty("").block();
+    }
+
+    // a GET the load balancer routed to instance
+    private static MockServerWebExchange exchange(ServiceInstance instance) {
+        var exchange = MockServerWebExchange.from(
+                MockServerHttpRequest.get("/api/products?limit=10"));
+        exchange.getAttributes().put(ServerWebExchangeUtils.GATEWAY_LOADBALANCER_RESPONSE_ATTR,
+                new DefaultResponse(instance));
+        exchange.getAttributes().put(ServerWebExchangeUtils.GATEWAY_REQUEST_URL_ATTR,
+                URI.create("http://localhost:" + instance.getPort() + "/api/products?limit=10"));
+        return exchange;
+    }
+
+    private double count(String result) {
+        return meterRegistry.get("gateway.hedge.requests").tag("result", result).counter()
+                .count();
+    }
+
+    private static boolean await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            if (System.nanoTime() > deadline) {
+                return false;
+            }
+            Thread.sleep(10);
+        }
+        return true;
+    }
+
+    private static final class Backend {
+        final String name;
+        final AtomicLong delayMs = new AtomicLong();
+        final AtomicInteger requests = new AtomicInteger();
+        final AtomicInteger cancelled = new AtomicInteger();
+        final DisposableServer server;
+
+        Backend(String name) {
+            this.name = name;
+            this.server = HttpServer.create().host("localhost").port(0)
+                    .route(routes -> routes.get("/api/products", (request, response) -> {
+                        requests.incrementAndGet();
+                        return response.status(HttpStatus.OK.value())
+                                .sendString(Mono.delay(Duration.ofMillis(delayMs.get()))
+                                        .map(tick -> name)
+                                        .doOnCancel(cancelled::incrementAndGet));
+                    }))
+                    .bindNow();
+        }
+
+        ServiceInstance instance() {
+            return new DefaultServiceInstance(name, SERVICE_ID, "localhost", server.port(),
+                    false);
+        }
+    }
+
+    @SuppressWarnings("rawtypes")
+    private final class RecordingLifecycle implements LoadBalancerLifecycle {
+        @Override
+        public void onStart(Request request) {
+        }
+
+        @Override
+        public void onStartRequest(Request request, Response lbResponse) {
+        }
+
+        @Override
+        public void onComplete(CompletionContext completionContext) {
+            hedgeOutcomes.add(completionContext.status());
+        }
+    }
+}
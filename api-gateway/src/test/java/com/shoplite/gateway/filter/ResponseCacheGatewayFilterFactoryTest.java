@@ -0,0 +1,142 @@
+package com.shoplite.gateway.filter;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import reactor.core.publisher.Mono;
+
+class ResponseCacheGatewayFilterFactoryTest {
+
+    // catalog-service's listing headers, see product-listing-headers.properties
+    private static final Properties CATALOG_LISTING = new Properties();
+
+    private final GatewayFilter filter =
+            new ResponseCacheGatewayFilterFactory(new SimpleMeterRegistry())
+                    .apply(new ResponseCacheGatewayFilterFactory.Config());
+    private final AtomicInteger backendCalls = new AtomicInteger();
+
+    @BeforeAll
+    static void loadCatalogContract() throws Exception {
+        try (InputStream in = ResponseCacheGatewayFilterFactoryTest.class
+                .getResourceAsStream("/contracts/product-listing-headers.properties")) {
+            CATALOG_LISTING.load(in);
+        }
+    }
+
+    @Test
+    void cachesPlainResponses() {
+        GatewayFilterChain backend = backend(null);
+
+        assertThat(get(backend)).isEqualTo("MISS");
+        assertThat(get(backend)).isEqualTo("HIT");
+        assertThat(backendCalls).hasValue(1);
+    }
+
+    @Test
+    void doesNotCacheResponsesTheBackendMarksUncacheable() {
+        for (String cacheControl : new String[] {"no-store", "no-cache", "private, max-age=60",
+                "max-age=0"}) {
+            backendCalls.set(0);
+            GatewayFilterChain backend = backend(cacheControl);
+
+            assertThat(get(backend)).as(cacheControl).isEqualTo("MISS");
+            assertThat(get(backend)).as(cacheControl).isEqualTo("MISS");
+            assertThat(backendCalls).as(cacheControl).hasValue(2);
+        }
+    }
+
+    @Test
+    void cachesCatalogListingsAndCoalescesConcurrentMisses() {
+        String cacheControl = CATALOG_LISTING.getProperty("cache-control");
+        GatewayFilterChain slowBackend = exchange -> Mono.delay(Duration.ofMillis(200))
+                .then(backend(cacheControl).filter(exchange));
+
+        var concurrent = Mono.zip(request(slowBackend),
+                request(slowBackend).delaySubscription(Duration.ofMillis(50))).block();
+
+        assertThat(concurrent.getT1()).isEqualTo("MISS");
+        assertThat(concurrent.getT2()).isEqualTo("COALESCED");
+        assertThat(get(slowBackend)).isEqualTo("HIT");
+        assertThat(backendCalls).hasValue(1);
+        assertThat(ttl(cacheControl, Duration.ofSeconds(30))).isEqualTo(Duration.ofSeconds(2));
+    }
+
+    @Test
+    void entryLifetimeFollowsTheShorterOfMaxAgeAndTtl() {
+        Duration ttl = Duration.ofSeconds(2);
+
+        assertThat(ttl("public, max-age=1", ttl)).isEqualTo(Duration.ofSeconds(1));
+        assertThat(ttl("max-age=60", ttl)).isEqualTo(ttl);
+        assertThat(ttl("max-age=60, s-maxage=1", ttl)).isEqualTo(Duration.ofSeconds(1));
+        assertThat(ttl("max-age=\"1\"", ttl)).isEqualTo(Duration.ofSeconds(1));
+        assertThat(ttl("max-age=soon", ttl)).isNull();
+        assertThat(ttl(null, ttl)).isEqualTo(ttl);
+    }
+
+    @Test
+    void answersNotModifiedOnlyForAMatchingEntityTag() {
+        String etag = "\"stock-0.5-1.3\"";
+
+        assertThat(notModified(etag, etag)).isTrue();
+        assertThat(notModified("\"other\", W/" + etag, etag)).isTrue();
+        assertThat(notModified("*", etag)).isTrue();
+
+        assertThat(notModified("\"stock-0.5-1.3-2.1\"", etag)).isFalse();
+        assertThat(notModified("\"other\"", etag)).isFalse();
+        assertThat(notModified(etag, null)).isFalse();
+        assertThat(ResponseCacheGatewayFilterFactory.notModified(null, etag)).isFalse();
+    }
+
+    private static boolean notModified(String ifNoneMatch, String etag) {
+        return ResponseCacheGatewayFilterFactory.notModified(List.of(ifNoneMatch), etag);
+    }
+
+    private String get(GatewayFilterChain backend) {
+        return request(backend).block();
+    }
+
+    private Mono<String> request(GatewayFilterChain backend) {
+        return Mono.defer(() -> {
+            MockServerWebExchange exchange =
+                    MockServerWebExchange.from(MockServerHttpRequest.get("/api/products/1"));
+            return filter.filter(exchange, backend).then(Mono.fromSupplier(() -> exchange
+                    .getResponse().getHeaders()
+                    .getFirst(ResponseCacheGatewayFilterFactory.CACHE_HEADER)));
+        });
+    }
+
+    private GatewayFilterChain backend(String cacheControl) {
+        return exchange -> {
+            backendCalls.incrementAndGet();
+            var response = exchange.getResponse();
+            response.setStatusCode(HttpStatus.OK);
+            if (cacheControl != null) {
+                response.getHeaders().setCacheControl(cacheControl);
+            }
+            byte[] body = "{\"id\":\"1\"}".getBytes(StandardCharsets.UTF_8);
+            return response.writeWith(Mono.just(response.bufferFactory().wrap(body)));
+        };
+    }
+
+    private static Duration ttl(String cacheControl, Duration ttl) {
+        HttpHeaders headers = new HttpHeaders();
+        if (cacheControl != null) {
+            headers.setCacheControl(cacheControl);
+        }
+        return ResponseCacheGatewayFilterFactory.cacheTtl(headers, ttl);
+    }
+}
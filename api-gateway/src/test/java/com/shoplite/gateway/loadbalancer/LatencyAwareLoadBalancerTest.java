@@ -0,0 +1,133 @@
+package com.shoplite.gateway.loadbalancer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.cloud.client.DefaultServiceInstance;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.CompletionContext;
+import org.springframework.cloud.client.loadbalancer.DefaultRequest;
+import org.springframework.cloud.client.loadbalancer.DefaultResponse;
+import org.springframework.cloud.client.loadbalancer.Request;
+import org.springframework.cloud.client.loadbalancer.RequestDataContext;
+import org.springframework.cloud.client.loadbalancer.ResponseData;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+class LatencyAwareLoadBalancerTest {
+
+    private static final String SERVICE_ID = "catalog-service";
+
+    private final InstanceLatencyStats stats = new InstanceLatencyStats(
+            Duration.ofSeconds(10), Duration.ofSeconds(1), Duration.ofSeconds(1));
+
+    @Test
+    void prefersTheInstanceWithLowerLatency() {
+        ServiceInstance fast = instance(8081);
+        ServiceInstance slow = instance(8082);
+        complete(fast, Duration.ofMillis(5));
+        complete(slow, Duration.ofMillis(200));
+
+        LatencyAwareLoadBalancer balancer = balancer(fast, slow);
+
+        for (int i = 0; i < 20; i++) {
+            assertThat(choose(balancer)).isEqualTo(fast);
+        }
+    }
+
+    @Test
+    void probesAColdInstanceOnceWithoutFloodingIt() {
+        ServiceInstance warm = instance(8081);
+        ServiceInstance cold = instance(8082);
+        complete(warm, Duration.ofMillis(5));
+        LatencyAwareLoadBalancer balancer = balancer(warm, cold);
+
+        assertThat(choose(balancer)).isEqualTo(cold);
+        start(cold);
+
+        for (int i = 0; i < 20; i++) {
+            assertThat(choose(balancer)).isEqualTo(warm);
+        }
+    }
+
+    @Test
+    void outstandingRequestsShiftTrafficAway() {
+        ServiceInstance busy = instance(8081);
+        ServiceInstance idle = instance(8082);
+        complete(busy, Duration.ofMillis(10));
+        complete(idle, Duration.ofMillis(10));
+        start(busy);
+        start(busy);
+
+        assertThat(choose(balancer(busy, idle))).isEqualTo(idle);
+    }
+
+    @Test
+    void cancelledExchangesReleaseTheirInstance() {
+        ServiceInstance instance = instance(8081);
+        complete(instance, Duration.ofMillis(10));
+        double idleCost = stats.cost(instance);
+        LoadBalancerCancelFilter filter = new LoadBalancerCancelFilter(stats);
+
+        for (int i = 0; i < 3; i++) {
+            start(instance);
+            MockServerWebExchange exchange =
+                    MockServerWebExchange.from(MockServerHttpRequest.get("/api/products"));
+            exchange.getAttributes().put(ServerWebExchangeUtils.GATEWAY_LOADBALANCER_RESPONSE_ATTR,
+                    new DefaultResponse(instance));
+            filter.filter(exchange, e -> Mono.never()).subscribe().dispose();
+        }
+
+        assertThat(stats.cost(instance)).isLessThanOrEqualTo(idleCost);
+    }
+
+    private LatencyAwareLoadBalancer balancer(ServiceInstance... instances) {
+        StaticListableBeanFactory beanFactory = new StaticListableBeanFactory();
+        beanFactory.addBean("supplier", new FixedInstances(List.of(instances)));
+        return new LatencyAwareLoadBalancer(
+                beanFactory.getBeanProvider(ServiceInstanceListSupplier.class), SERVICE_ID, stats);
+    }
+
+    private ServiceInstance choose(LatencyAwareLoadBalancer balancer) {
+        return balancer.choose(new DefaultRequest<>(new RequestDataContext())).block().getServer();
+    }
+
+    private Request<RequestDataContext> start(ServiceInstance instance) {
+        Request<RequestDataContext> request = new DefaultRequest<>(new RequestDataContext());
+        stats.onStartRequest(request, new DefaultResponse(instance));
+        return request;
+    }
+
+    private void complete(ServiceInstance instance, Duration latency) {
+        Request<RequestDataContext> request = start(instance);
+        request.getContext().setRequestStartTime(System.nanoTime() - latency.toNanos());
+        stats.onComplete(new CompletionContext<ResponseData, ServiceInstance, RequestDataContext>(
+                CompletionContext.Status.SUCCESS, request, new DefaultResponse(instance), null));
+    }
+
+    private static ServiceInstance instance(int port) {
+        return new DefaultServiceInstance(SERVICE_ID + "-" + port, SERVICE_ID, "localhost", port,
+                false);
+    }
+
+    private record FixedInstances(List<ServiceInstance> instances)
+            implements ServiceInstanceListSupplier {
+
+        @Override
+        public String getServiceId() {
+            return SERVICE_ID;
+        }
+
+        @Override
+        public Flux<List<ServiceInstance>> get() {
+            return Flux.just(instances);
+        }
+    }
+}
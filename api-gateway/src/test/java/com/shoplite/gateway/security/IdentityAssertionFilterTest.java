@@ -0,0 +1,112 @@
+package com.shoplite.gateway.security;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalStateException;
+
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.ReactiveSecurityContextHolder;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken;
+import reactor.core.publisher.Mono;
+
+class IdentityAssertionFilterTest {
+
+    private static final Properties CONTRACT = new Properties();
+    // long enough for the token's own expiry to be the one used
+    private static final Duration TTL = Duration.ofDays(365 * 200);
+    private static final Instant IN_2100 = Instant.ofEpochSecond(4_102_444_800L);
+    private static final Instant IN_2023 = Instant.ofEpochSecond(1_700_000_000L);
+
+    @BeforeAll
+    static void loadContract() throws Exception {
+        try (InputStream in = IdentityAssertionFilterTest.class
+                .getResourceAsStream("/contracts/identity-assertions.properties")) {
+            CONTRACT.load(in);
+        }
+    }
+
+    private final IdentityAssertionFilter filter =
+            new IdentityAssertionFilter(CONTRACT.getProperty("key"), TTL);
+
+    @Test
+    void signsTheContractAssertions() {
+        List<SimpleGrantedAuthority> scopes = List.of(
+                new SimpleGrantedAuthority("SCOPE_read:orders"),
+                new SimpleGrantedAuthority("SCOPE_write:orders"));
+
+        assertThat(forward(token("user-1", IN_2100, scopes)))
+                .isEqualTo(CONTRACT.getProperty("valid"));
+        assertThat(forward(token("service-1", IN_2100, List.of())))
+                .isEqualTo(CONTRACT.getProperty("no-authorities"));
+        assertThat(forward(token("user-1", IN_2023, scopes)))
+                .isEqualTo(CONTRACT.getProperty("expired"));
+    }
+
+    @Test
+    void capsTheExpiryAtTheTtl() {
+        IdentityAssertionFilter shortLived =
+                new IdentityAssertionFilter(CONTRACT.getProperty("key"), Duration.ofSeconds(30));
+        long before = Instant.now().getEpochSecond();
+
+        String assertion = forward(shortLived, token("user-1", IN_2100, List.of()));
+
+        String payload = new String(Base64.getUrlDecoder()
+                .decode(assertion.substring(0, assertion.indexOf('.'))), StandardCharsets.UTF_8);
+        assertThat(payload).startsWith("user-1\n\n");
+        assertThat(Long.parseLong(payload.substring(payload.lastIndexOf('\n') + 1)))
+                .isBetween(before + 30, Instant.now().getEpochSecond() + 30);
+    }
+
+    @Test
+    void stripsClientSuppliedAssertionsFromAnonymousRequests() {
+        assertThat(forward(null)).isNull();
+    }
+
+    @Test
+    void refusesShortKeys() {
+        assertThatIllegalStateException()
+                .isThrownBy(() -> new IdentityAssertionFilter("too-short", TTL));
+    }
+
+    private String forward(Authentication authentication) {
+        return forward(filter, authentication);
+    }
+
+    // the X-Shoplite-Identity header the proxied request carries
+    private static String forward(IdentityAssertionFilter filter, Authentication authentication) {
+        MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest
+                .get("/api/orders").header(IdentityAssertionFilter.HEADER, "forged.by-client"));
+        AtomicReference<HttpHeaders> forwarded = new AtomicReference<>();
+        Mono<Void> filtered = filter.filter(exchange, proxied -> {
+            forwarded.set(proxied.getRequest().getHeaders());
+            return Mono.empty();
+        });
+        if (authentication != null) {
+            filtered = filtered.contextWrite(
+                    ReactiveSecurityContextHolder.withAuthentication(authentication));
+        }
+        filtered.block();
+        return forwarded.get().getFirst(IdentityAssertionFilter.HEADER);
+    }
+
+    private static JwtAuthenticationToken token(String subject, Instant expiresAt,
+            List<SimpleGrantedAuthority> authorities) {
+        Jwt jwt = Jwt.withTokenValue("token").header("alg", "RS256").subject(subject)
+                .expiresAt(expiresAt).build();
+        return new JwtAuthenticationToken(jwt, authorities);
+    }
+}
@@ -0,0 +1,107 @@
+package com.shoplite.gateway.security;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.jwk.JWK;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.gen.RSAKeyGenerator;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+class JwksCacheTest {
+
+    private final AtomicInteger fetches = new AtomicInteger();
+    private final AtomicReference<JWKSet> published = new AtomicReference<>();
+    private volatile Duration issuerLatency = Duration.ZERO;
+    private final WebClient webClient = WebClient.builder().exchangeFunction(request -> {
+        fetches.incrementAndGet();
+        return Mono.just(ClientResponse.create(HttpStatus.OK)
+                .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                .body(published.get().toString()).build()).delayElement(issuerLatency);
+    }).build();
+
+    @Test
+    void knownKidsAreServedFromMemory() throws JOSEException {
+        published.set(new JWKSet(key("k1")));
+        JwksCache cache = cache(Duration.ofSeconds(30));
+
+        assertThat(keys(cache, "k1")).extracting(JWK::getKeyID).containsExactly("k1");
+        for (int i = 0; i < 100; i++) {
+            assertThat(keys(cache, "k1")).hasSize(1);
+        }
+
+        assertThat(fetches).hasValue(1);
+    }
+
+    @Test
+    void unknownKidsInsideTheMinimumIntervalAreRejectedWithoutFetching() throws JOSEException {
+        published.set(new JWKSet(key("k1")));
+        JwksCache cache = cache(Duration.ofSeconds(30));
+        keys(cache, "k1");
+
+        for (int i = 0; i < 100; i++) {
+            assertThat(keys(cache, "forged-" + i)).isEmpty();
+        }
+
+        assertThat(fetches).hasValue(1);
+    }
+
+    @Test
+    void rotatedKeyIsFetchedOnceTheIntervalHasPassed() throws JOSEException {
+        published.set(new JWKSet(key("k1")));
+        JwksCache cache = cache(Duration.ZERO);
+        keys(cache, "k1");
+
+        published.set(new JWKSet(List.of(key("k1"), key("k2"))));
+
+        assertThat(keys(cache, "k2")).extracting(JWK::getKeyID).containsExactly("k2");
+        assertThat(fetches).hasValue(2);
+    }
+
+    @Test
+    void concurrentMissesShareOneFetch() throws JOSEException {
+        published.set(new JWKSet(key("k1")));
+        issuerLatency = Duration.ofMillis(200);
+        JwksCache cache = cache(Duration.ZERO);
+
+        List<List<JWK>> results = Flux.range(0, 50)
+                .flatMap(i -> cache.keys(jwt("k1")).collectList())
+                .collectList().block();
+
+        assertThat(results).allSatisfy(keys -> assertThat(keys).hasSize(1));
+        assertThat(fetches).hasValue(1);
+    }
+
+    private JwksCache cache(Duration minRefreshInterval) {
+        return new JwksCache(webClient, "http://issuer/.well-known/jwks.json", Duration.ofHours(1),
+                minRefreshInterval);
+    }
+
+    private static List<JWK> keys(JwksCache cache, String kid) {
+        return cache.keys(jwt(kid)).collectList().block();
+    }
+
+    private static SignedJWT jwt(String kid) {
+        return new SignedJWT(new JWSHeader.Builder(JWSAlgorithm.RS256).keyID(kid).build(),
+                new JWTClaimsSet.Builder().subject("user").build());
+    }
+
+    private static JWK key(String kid) throws JOSEException {
+        return new RSAKeyGenerator(2048).keyID(kid).generate().toPublicJWK();
+    }
+}
@@ -1,11 +1,15 @@
 package com.shoplite.auth.config;
 
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.authentication.AnonymousAuthenticationFilter;
+import org.springframework.security.web.authentication.HttpStatusEntryPoint;
+import org.springframework.http.HttpStatus;
 import org.springframework.web.cors.CorsConfiguration;
 import org.springframework.web.cors.CorsConfigurationSource;
 import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
@@ -30,7 +34,8 @@ import java.util.Arrays;
  *
  * Key points: - Stateless sessions; CSRF disabled for APIs; CORS allowed for frontend dev. - JWT
  * validation enforces issuer and required audience (API identifier). - Only /api/auth/** and
- * /actuator/** are public; all other paths require JWT.
+ * /actuator/** are public; all other paths require JWT. - With security.identity.trusted=true the
+ * gateway's signed identity assertion is trusted instead and no JWKS is fetched.
  */
 @Configuration
 @EnableWebSecurity
@@ -42,6 +47,12 @@ public class Auth0Config {
         @Value("${auth0.issuer}")
         private String issuer;
 
+        @Value("${security.identity.trusted:false}")
+        private boolean trustGatewayIdentity;
+
+        @Value("${security.identity.key:}")
+        private String identityKey;
+
         /**
          * Builds servlet security chain with CORS, stateless session, public endpoints, and
          * resource server JWT validation.
@@ -55,9 +66,17 @@ public class Auth0Config {
                                 .authorizeHttpRequests(authz -> authz
                                                 .requestMatchers("/api/auth/**").permitAll()
                                                 .requestMatchers("/actuator/**").permitAll()
-                                                .anyRequest().authenticated())
-                                .oauth2ResourceServer(oauth2 -> oauth2
-                                                .jwt(jwt -> jwt.decoder(jwtDecoder())));
+                                                .anyRequest().authenticated());
+                if (trustGatewayIdentity) {
+                        http.addFilterBefore(new GatewayIdentityFilter(identityKey),
+                                        AnonymousAuthenticationFilter.class)
+                                        .exceptionHandling(ex -> ex.authenticationEntryPoint(
+                                                        new HttpStatusEntryPoint(
+                                                                        HttpStatus.UNAUTHORIZED)));
+                } else {
+                        http.oauth2ResourceServer(oauth2 -> oauth2
+                                        .jwt(jwt -> jwt.decoder(jwtDecoder())));
+                }
 
                 return http.build();
         }
@@ -66,6 +85,8 @@ public class Auth0Config {
          * Decoder that fetches JWKS from the Auth0 issuer and validates issuer + audience.
          */
         @Bean
+        @ConditionalOnProperty(name = "security.identity.trusted", havingValue = "false",
+                        matchIfMissing = true)
         public JwtDecoder jwtDecoder() {
                 NimbusJwtDecoder decoder =
                                 (NimbusJwtDecoder) JwtDecoders.fromIssuerLocation(issuer);
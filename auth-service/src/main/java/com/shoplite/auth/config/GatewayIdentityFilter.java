@@ -0,0 +1,106 @@
+package com.shoplite.auth.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.web.authentication.preauth.PreAuthenticatedAuthenticationToken;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+/**
+ * Authenticates requests from the gateway's signed identity assertion (trusted-identity mode).
+ *
+ * The gateway verifies the Auth0 JWT once and forwards subject + SCOPE_ authorities in the
+ * X-Shoplite-Identity header, signed with HMAC-SHA256 under a key shared with the services.
+ * Checking that signature replaces the per-hop RS256 verification and JWKS lookup. Missing,
+ * malformed, forged or expired assertions leave the request unauthenticated (401 from the chain).
+ */
+public class GatewayIdentityFilter extends OncePerRequestFilter {
+
+    public static final String HEADER = "X-Shoplite-Identity";
+
+    private static final String HMAC = "HmacSHA256";
+
+    private final SecretKeySpec key;
+
+    public GatewayIdentityFilter(String key) {
+        byte[] secret = key.getBytes(StandardCharsets.UTF_8);
+        if (secret.length < 32) {
+            throw new IllegalStateException("security.identity.key must be at least 32 bytes");
+        }
+        this.key = new SecretKeySpec(secret, HMAC);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+            FilterChain chain) throws ServletException, IOException {
+        String assertion = request.getHeader(HEADER);
+        if (assertion != null) {
+            PreAuthenticatedAuthenticationToken authentication = verify(assertion);
+            if (authentication != null) {
+                SecurityContextHolder.getContext().setAuthentication(authentication);
+            }
+        }
+        chain.doFilter(request, response);
+    }
+
+    /**
+     * Authentication for a valid, unexpired assertion; null otherwise.
+     */
+    PreAuthenticatedAuthenticationToken verify(String assertion) {
+        int dot = assertion.indexOf('.');
+        if (dot < 0) {
+            return null;
+        }
+        byte[] payload;
+        byte[] signature;
+        try {
+            Base64.Decoder decoder = Base64.getUrlDecoder();
+            payload = decoder.decode(assertion.substring(0, dot));
+            signature = decoder.decode(assertion.substring(dot + 1));
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+        if (!MessageDigest.isEqual(sign(payload), signature)) {
+            return null;
+        }
+        String[] parts = new String(payload, StandardCharsets.UTF_8).split("\n", 3);
+        if (parts.length != 3) {
+            return null;
+        }
+        try {
+            if (Long.parseLong(parts[2]) < Instant.now().getEpochSecond()) {
+                return null;
+            }
+        } catch (NumberFormatException e) {
+            return null;
+        }
+        List<GrantedAuthority> authorities = parts[1].isEmpty() ? List.of()
+                : Arrays.stream(parts[1].split(" "))
+                        .<GrantedAuthority>map(SimpleGrantedAuthority::new).toList();
+        return new PreAuthenticatedAuthenticationToken(parts[0], assertion, authorities);
+    }
+
+    private byte[] sign(byte[] payload) {
+        try {
+            Mac mac = Mac.getInstance(HMAC);
+            mac.init(key);
+            return mac.doFinal(payload);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Cannot verify identity assertion", e);
+        }
+    }
+}
@@ -6,15 +6,33 @@ plugins {
 
 java { toolchain { languageVersion.set(JavaLanguageVersion.of(21)) } }
 
+// The default artifact runs either stack (CATALOG_WEB_STACK) but ships Tomcat, so in reactive mode
+// WebFlux is served by Tomcat through the servlet adapter. Build with -PwebStack=reactive for a
+// reactive-only artifact without Tomcat that runs on Reactor Netty (it cannot run servlet mode).
+val reactiveBuild = findProperty("webStack") == "reactive"
+
 dependencies {
-    implementation("org.springframework.boot:spring-boot-starter-web")
+    implementation("org.springframework.boot:spring-boot-starter-web") {
+        if (reactiveBuild) {
+            exclude(group = "org.springframework.boot", module = "spring-boot-starter-tomcat")
+        }
+    }
+    if (reactiveBuild) {
+        // compiles the servlet-mode classes, which the reactive-only artifact never loads
+        compileOnly("jakarta.servlet:jakarta.servlet-api")
+        testImplementation("jakarta.servlet:jakarta.servlet-api")
+    }
+    // reactive read path, selected with spring.main.web-application-type=reactive
+    implementation("org.springframework.boot:spring-boot-starter-webflux")
     implementation("org.springframework.boot:spring-boot-starter-actuator")
     implementation("org.springframework.boot:spring-boot-starter-security")
     implementation("org.springframework.boot:spring-boot-starter-oauth2-resource-server")
     implementation("org.springframework.boot:spring-boot-starter-validation")
     implementation("org.springframework.boot:spring-boot-starter-data-mongodb")
+    implementation("org.springframework.boot:spring-boot-starter-data-mongodb-reactive")
     implementation("org.springframework.kafka:spring-kafka")
     implementation("org.springframework.cloud:spring-cloud-starter-netflix-eureka-client")
+    implementation("com.github.ben-manes.caffeine:caffeine")
 
     // Micrometer Tracing + Brave bridge
     implementation("io.micrometer:micrometer-tracing-bridge-brave:1.3.2")
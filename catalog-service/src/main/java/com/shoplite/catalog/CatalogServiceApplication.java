@@ -3,15 +3,17 @@ package com.shoplite.catalog;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.cloud.client.discovery.EnableDiscoveryClient;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 /**
  * Catalog Service entrypoint.
  *
  * Registers with Eureka and exposes product APIs protected by Auth0 JWTs (see SecurityConfig for
- * resource server setup).
+ * resource server setup). Scheduling drives the optional inventory engine checkpoints.
  */
 @SpringBootApplication
 @EnableDiscoveryClient
+@EnableScheduling
 public class CatalogServiceApplication {
     public static void main(String[] args) {
         SpringApplication.run(CatalogServiceApplication.class, args);
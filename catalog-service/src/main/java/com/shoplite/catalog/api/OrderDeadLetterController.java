@@ -0,0 +1,46 @@
+package com.shoplite.catalog.api;
+
+import com.shoplite.catalog.service.OrderDeadLetters;
+import java.util.List;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Admin view of orders.events-dlt: {@code GET /api/admin/dlt/orders?limit=N} lists the newest dead
+ * letters with their exception; {@code POST /api/admin/dlt/orders/{partition}/{offset}/replay}
+ * republishes one to orders.events. Requires the catalog:admin permission.
+ */
+@RestController
+@RequestMapping("/api/admin/dlt/orders")
+@ConditionalOnExpression("${catalog.orders.retry.enabled:true} && !${catalog.orders.batch.enabled:false} && !${catalog.inventory.engine.enabled:false}")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class OrderDeadLetterController {
+    private static final int MAX_LIMIT = 500;
+
+    private final OrderDeadLetters orderDeadLetters;
+
+    public OrderDeadLetterController(OrderDeadLetters orderDeadLetters) {
+        this.orderDeadLetters = orderDeadLetters;
+    }
+
+    @GetMapping
+    public List<OrderDeadLetters.Entry> recent(@RequestParam(defaultValue = "50") int limit) {
+        return orderDeadLetters.recent(Math.max(1, Math.min(limit, MAX_LIMIT)));
+    }
+
+    @PostMapping("/{partition}/{offset}/replay")
+    public ResponseEntity<OrderDeadLetters.Replayed> replay(@PathVariable int partition,
+            @PathVariable long offset) throws Exception {
+        return orderDeadLetters.replay(partition, offset)
+                .map(replayed -> ResponseEntity.status(HttpStatus.ACCEPTED).body(replayed))
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+}
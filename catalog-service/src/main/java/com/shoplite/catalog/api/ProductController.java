@@ -1,52 +1,240 @@
 package com.shoplite.catalog.api;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.shoplite.catalog.api.dto.ProductDto;
+import com.shoplite.catalog.api.dto.ProductPage;
 import com.shoplite.catalog.domain.Product;
 import com.shoplite.catalog.repo.ProductRepository;
+import com.shoplite.catalog.service.InventoryEngine;
+import com.shoplite.catalog.service.ProductReadCache;
+import com.shoplite.catalog.service.StockEventPublisher;
 import io.micrometer.tracing.Span;
 import io.micrometer.tracing.Tracer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.ByteArrayOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.List;
+import java.util.stream.Stream;
 
 @RestController
 @RequestMapping("/api/products")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 public class ProductController {
     private static final Logger log = LoggerFactory.getLogger(ProductController.class);
+    private static final MediaType APPLICATION_NDJSON = MediaType.parseMediaType("application/x-ndjson");
+    private static final int MAX_PAGE_SIZE = 1000;
+
     private final ProductRepository productRepository;
+    private final StockEventPublisher stockEventPublisher;
+    private final ObjectProvider<InventoryEngine> inventoryEngine;
+    private final ProductReadCache productReadCache;
+    private final ObjectMapper objectMapper;
     private final Tracer tracer;
 
-    public ProductController(ProductRepository productRepository, Tracer tracer) {
+    public ProductController(ProductRepository productRepository,
+            StockEventPublisher stockEventPublisher, ObjectProvider<InventoryEngine> inventoryEngine,
+            ProductReadCache productReadCache, ObjectMapper objectMapper, Tracer tracer) {
         this.productRepository = productRepository;
+        this.stockEventPublisher = stockEventPublisher;
+        this.inventoryEngine = inventoryEngine;
+        this.productReadCache = productReadCache;
+        this.objectMapper = objectMapper;
         this.tracer = tracer;
     }
 
+    /**
+     * Full product list as a JSON array. The array is written element by element straight off the
+     * Mongo cursor, so memory stays flat regardless of catalog size. Responses carry a
+     * version-based ETag; a matching If-None-Match gets 304 without a database read.
+     */
     @GetMapping
-    public List<ProductDto> fetchAllProducts() {
-        Span span = tracer.nextSpan().name("fetch-all-products").start();
+    public ResponseEntity<StreamingResponseBody> fetchAllProducts(
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        return streamProducts("fetch-all-products", MediaType.APPLICATION_JSON, false,
+                ifNoneMatch);
+    }
 
-        try (Tracer.SpanInScope ws = tracer.withSpan(span)) {
-            log.info("Fetching all products");
-            span.event("Fetching all products from database");
+    /**
+     * Same data as {@link #fetchAllProducts}, one JSON document per line (NDJSON), so clients can
+     * process products as they arrive.
+     */
+    @GetMapping(produces = "application/x-ndjson")
+    public ResponseEntity<StreamingResponseBody> streamAllProducts(
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        return streamProducts("stream-all-products", APPLICATION_NDJSON, true, ifNoneMatch);
+    }
 
-            List<ProductDto> products = productRepository.findAll().stream()
-                    .map(product -> new ProductDto(product.getId(), product.getName(),
-                            product.getStock()))
-                    .toList();
+    /**
+     * Keyset pagination: {@code GET /api/products?limit=N[&after=<id>]}. Pass the returned
+     * {@code next} as {@code after} to fetch the following page.
+     */
+    @GetMapping(params = "limit")
+    public ResponseEntity<ProductPage> fetchProductPage(
+            @RequestParam(required = false) String after, @RequestParam int limit,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        int pageSize = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        var snapshot = productReadCache.snapshot();
+        if (productReadCache.notModified(ifNoneMatch, snapshot)) {
+            return notModified(snapshot);
+        }
+
+        Span span = tracer.nextSpan().name("fetch-product-page")
+                .tag("page.after", after == null ? "" : after)
+                .tag("page.limit", String.valueOf(pageSize)).start();
+
+        try (Tracer.SpanInScope ws = tracer.withSpan(span)) {
+            String cacheKey = "page:" + after + ":" + pageSize;
+            ProductPage page = productReadCache.get(snapshot, cacheKey, ProductPage.class);
+            span.tag("cache.hit", String.valueOf(page != null));
+            if (page == null) {
+                var pageRequest = PageRequest.ofSize(pageSize);
+                List<ProductDto> items = (after == null || after.isBlank()
+                        ? productRepository.findAllByOrderByIdAsc(pageRequest)
+                        : productRepository.findByIdGreaterThanOrderByIdAsc(after, pageRequest))
+                        .stream().map(this::toDto).toList();
+                String next = items.size() == pageSize ? items.get(items.size() - 1).id() : null;
+                page = new ProductPage(items, next);
+                productReadCache.put(snapshot, cacheKey, page);
+            }
 
-            span.tag("products.count", String.valueOf(products.size()));
-            span.event("Products fetched successfully");
-            log.info("Fetched {} products", products.size());
+            span.tag("products.count", String.valueOf(page.items().size()));
+            log.debug("Fetched page of {} products after {}", page.items().size(), after);
 
-            return products;
+            return ResponseEntity.ok().eTag(snapshot.etag())
+                    .cacheControl(productReadCache.cacheControl())
+                    .body(page);
         } finally {
             span.end();
         }
     }
 
+    private ResponseEntity<StreamingResponseBody> streamProducts(String spanName,
+            MediaType mediaType, boolean ndjson, String ifNoneMatch) {
+        var snapshot = productReadCache.snapshot();
+        if (productReadCache.notModified(ifNoneMatch, snapshot)) {
+            return notModified(snapshot);
+        }
+        String cacheKey = ndjson ? "all:ndjson" : "all:json";
+        byte[] cached = productReadCache.get(snapshot, cacheKey, byte[].class);
+        if (cached != null) {
+            return ResponseEntity.ok().eTag(snapshot.etag())
+                    .cacheControl(productReadCache.cacheControl())
+                    .contentType(mediaType).body(out -> out.write(cached));
+        }
+
+        Span span = tracer.nextSpan().name(spanName).start();
+
+        StreamingResponseBody body = out -> {
+            int count = 0;
+            var capture = new CapturingOutputStream(out, productReadCache.maxEntryBytes());
+            try (Tracer.SpanInScope ws = tracer.withSpan(span);
+                    Stream<Product> products = productRepository.streamAllByOrderByIdAsc();
+                    JsonGenerator generator = objectMapper.getFactory().createGenerator(capture)) {
+                log.info("Streaming all products");
+                span.event("Streaming products from database");
+
+                if (ndjson) {
+                    // newline-delimited, without Jackson's default space between root values
+                    generator.setRootValueSeparator(null);
+                } else {
+                    generator.writeStartArray();
+                }
+                for (var iterator = products.iterator(); iterator.hasNext();) {
+                    generator.writeObject(toDto(iterator.next()));
+                    if (ndjson) {
+                        generator.writeRaw('\n');
+                    }
+                    count++;
+                }
+                if (!ndjson) {
+                    generator.writeEndArray();
+                }
+
+                span.tag("products.count", String.valueOf(count));
+                span.event("Products streamed successfully");
+                log.info("Streamed {} products", count);
+            } catch (Exception e) {
+                span.error(e);
+                throw e;
+            } finally {
+                span.end();
+            }
+            byte[] captured = capture.captured();
+            if (captured != null) {
+                productReadCache.put(snapshot, cacheKey, captured);
+            }
+        };
+        return ResponseEntity.ok().eTag(snapshot.etag())
+                .cacheControl(productReadCache.cacheControl())
+                .contentType(mediaType).body(body);
+    }
+
+    private <T> ResponseEntity<T> notModified(ProductReadCache.Snapshot snapshot) {
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(snapshot.etag())
+                .cacheControl(productReadCache.cacheControl()).build();
+    }
+
+    /**
+     * Passes bytes through and keeps a copy until {@code limit} is exceeded, so small listings can
+     * be cached while large ones are still streamed with flat memory.
+     */
+    private static final class CapturingOutputStream extends FilterOutputStream {
+        private final int limit;
+        private ByteArrayOutputStream copy;
+
+        CapturingOutputStream(OutputStream out, int limit) {
+            super(out);
+            this.limit = limit;
+            this.copy = limit > 0 ? new ByteArrayOutputStream() : null;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            if (copy != null) {
+                copy.write(b);
+                checkLimit();
+            }
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            if (copy != null) {
+                copy.write(b, off, len);
+                checkLimit();
+            }
+        }
+
+        private void checkLimit() {
+            if (copy.size() > limit) {
+                copy = null;
+            }
+        }
+
+        byte[] captured() {
+            return copy == null ? null : copy.toByteArray();
+        }
+    }
+
+    private ProductDto toDto(Product product) {
+        return new ProductDto(product.getId(), product.getName(), product.getStock());
+    }
+
     @PostMapping
     public ResponseEntity<ProductDto> createNewProduct(@RequestBody ProductDto productDto) {
         Span span = tracer.nextSpan().name("create-product").tag("product.name", productDto.name())
@@ -59,6 +247,9 @@ public class ProductController {
 
             var product = new Product(productDto.name(), productDto.stock());
             var savedProduct = productRepository.save(product);
+            inventoryEngine.ifAvailable(
+                    engine -> engine.put(savedProduct.getId(), savedProduct.getStock()));
+            stockEventPublisher.publish(savedProduct.getId(), savedProduct.getStock());
 
             span.tag("product.id", savedProduct.getId().toString());
             span.event("Product created successfully");
@@ -0,0 +1,180 @@
+package com.shoplite.catalog.api;
+
+import com.shoplite.catalog.api.dto.ProductDto;
+import com.shoplite.catalog.api.dto.ProductPage;
+import com.shoplite.catalog.domain.Product;
+import com.shoplite.catalog.repo.ReactiveProductRepository;
+import com.shoplite.catalog.service.InventoryEngine;
+import com.shoplite.catalog.service.ProductReadCache;
+import com.shoplite.catalog.service.StockEventPublisher;
+import io.micrometer.tracing.Span;
+import io.micrometer.tracing.Tracer;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Product API on the reactive stack (spring.main.web-application-type=reactive); same endpoints
+ * and ETag semantics as ProductController.
+ *
+ * Listings are returned as Flux<ProductDto> straight from the reactive Mongo cursor and encoded
+ * incrementally (JSON array or NDJSON), with demand driven by the client connection, so a read
+ * holds no thread while waiting on Mongo or the network. Full listings are not body-cached here;
+ * unchanged listings are still answered with 304 from the ProductReadCache version.
+ */
+@RestController
+@RequestMapping("/api/products")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveProductController {
+    private static final Logger log = LoggerFactory.getLogger(ReactiveProductController.class);
+    private static final int MAX_PAGE_SIZE = 1000;
+
+    private final ReactiveProductRepository productRepository;
+    private final StockEventPublisher stockEventPublisher;
+    private final ObjectProvider<InventoryEngine> inventoryEngine;
+    private final ProductReadCache productReadCache;
+    private final Tracer tracer;
+
+    public ReactiveProductController(ReactiveProductRepository productRepository,
+            StockEventPublisher stockEventPublisher, ObjectProvider<InventoryEngine> inventoryEngine,
+            ProductReadCache productReadCache, Tracer tracer) {
+        this.productRepository = productRepository;
+        this.stockEventPublisher = stockEventPublisher;
+        this.inventoryEngine = inventoryEngine;
+        this.productReadCache = productReadCache;
+        this.tracer = tracer;
+    }
+
+    /**
+     * Full product list as a JSON array, encoded element by element as Mongo delivers them.
+     */
+    @GetMapping
+    public ResponseEntity<Flux<ProductDto>> fetchAllProducts(
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        return streamProducts("fetch-all-products", MediaType.APPLICATION_JSON, ifNoneMatch);
+    }
+
+    /**
+     * Same data as {@link #fetchAllProducts}, one JSON document per line (NDJSON).
+     */
+    @GetMapping(produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<Flux<ProductDto>> streamAllProducts(
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        return streamProducts("stream-all-products", MediaType.APPLICATION_NDJSON, ifNoneMatch);
+    }
+
+    /**
+     * Keyset pagination: {@code GET /api/products?limit=N[&after=<id>]}.
+     */
+    @GetMapping(params = "limit")
+    public Mono<ResponseEntity<ProductPage>> fetchProductPage(
+            @RequestParam(required = false) String after, @RequestParam int limit,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        int pageSize = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        var snapshot = productReadCache.snapshot();
+        if (productReadCache.notModified(ifNoneMatch, snapshot)) {
+            return Mono.just(notModified(snapshot));
+        }
+
+        Span span = tracer.nextSpan().name("fetch-product-page")
+                .tag("page.after", after == null ? "" : after)
+                .tag("page.limit", String.valueOf(pageSize)).start();
+
+        String cacheKey = "page:" + after + ":" + pageSize;
+        ProductPage cached = productReadCache.get(snapshot, cacheKey, ProductPage.class);
+        span.tag("cache.hit", String.valueOf(cached != null));
+        var pageRequest = PageRequest.ofSize(pageSize);
+        Mono<ProductPage> page = cached != null ? Mono.just(cached)
+                : (after == null || after.isBlank()
+                        ? productRepository.findAllByOrderByIdAsc(pageRequest)
+                        : productRepository.findByIdGreaterThanOrderByIdAsc(after, pageRequest))
+                        .map(this::toDto).collectList().map(items -> {
+                            String next = items.size() == pageSize
+                                    ? items.get(items.size() - 1).id()
+                                    : null;
+                            ProductPage loaded = new ProductPage(items, next);
+                            productReadCache.put(snapshot, cacheKey, loaded);
+                            return loaded;
+                        });
+
+        return page.map(loaded -> {
+            span.tag("products.count", String.valueOf(loaded.items().size()));
+            log.debug("Fetched page of {} products after {}", loaded.items().size(), after);
+            return ResponseEntity.ok().eTag(snapshot.etag())
+                    .cacheControl(productReadCache.cacheControl())
+                    .body(loaded);
+        }).doOnError(span::error).doFinally(signal -> span.end());
+    }
+
+    private ResponseEntity<Flux<ProductDto>> streamProducts(String spanName, MediaType mediaType,
+            String ifNoneMatch) {
+        var snapshot = productReadCache.snapshot();
+        if (productReadCache.notModified(ifNoneMatch, snapshot)) {
+            return notModified(snapshot);
+        }
+
+        Span span = tracer.nextSpan().name(spanName);
+        AtomicInteger count = new AtomicInteger();
+        Flux<ProductDto> products = productRepository.findAllByOrderByIdAsc().map(this::toDto)
+                .doOnSubscribe(subscription -> {
+                    span.start();
+                    span.event("Streaming products from database");
+                    log.info("Streaming all products");
+                }).doOnNext(product -> count.incrementAndGet()).doOnComplete(() -> {
+                    span.tag("products.count", String.valueOf(count.get()));
+                    span.event("Products streamed successfully");
+                    log.info("Streamed {} products", count.get());
+                }).doOnError(span::error).doFinally(signal -> span.end());
+
+        return ResponseEntity.ok().eTag(snapshot.etag())
+                .cacheControl(productReadCache.cacheControl())
+                .contentType(mediaType).body(products);
+    }
+
+    private <T> ResponseEntity<T> notModified(ProductReadCache.Snapshot snapshot) {
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(snapshot.etag())
+                .cacheControl(productReadCache.cacheControl()).build();
+    }
+
+    private ProductDto toDto(Product product) {
+        return new ProductDto(product.getId(), product.getName(), product.getStock());
+    }
+
+    @PostMapping
+    public Mono<ResponseEntity<ProductDto>> createNewProduct(@RequestBody ProductDto productDto) {
+        Span span = tracer.nextSpan().name("create-product").tag("product.name", productDto.name())
+                .tag("product.stock", String.valueOf(productDto.stock())).start();
+        log.info("Creating new product: {}", productDto.name());
+        span.event("Creating new product");
+
+        return productRepository.save(new Product(productDto.name(), productDto.stock()))
+                // the Kafka send may block on metadata; keep it off the event loop
+                .publishOn(Schedulers.boundedElastic()).map(savedProduct -> {
+                    inventoryEngine.ifAvailable(
+                            engine -> engine.put(savedProduct.getId(), savedProduct.getStock()));
+                    stockEventPublisher.publish(savedProduct.getId(), savedProduct.getStock());
+
+                    span.tag("product.id", savedProduct.getId());
+                    span.event("Product created successfully");
+                    log.info("Product created with ID: {}", savedProduct.getId());
+                    return ResponseEntity.ok(toDto(savedProduct));
+                }).doOnError(span::error).doFinally(signal -> span.end());
+    }
+}
@@ -0,0 +1,7 @@
+package com.shoplite.catalog.api.dto;
+
+import java.util.List;
+
+// keyset page; next is the cursor for ?after=, null on the last page
+public record ProductPage(List<ProductDto> items, String next) {
+}
@@ -0,0 +1,187 @@
+package com.shoplite.catalog.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.PathContainer;
+import org.springframework.stereotype.Component;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerMapping;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+
+/**
+ * Sheds load per endpoint once measured latency shows the service is saturated.
+ *
+ * Every /api endpoint (method + route template, e.g. GET /api/products/{id}) gets its own
+ * GradientLimit. A request that finds its endpoint at the limit is answered 503 with Retry-After
+ * right away, before security, the controller or the connection pool see it, so overload degrades
+ * into fast rejections instead of a growing queue. Async (streamed) responses hold their slot
+ * until they complete.
+ *
+ * Templates come from the controllers' request mappings and are matched here: the handler-mapping
+ * attribute is only set inside the DispatcherServlet, well behind security. Paths matching no
+ * mapping share a single "unmatched" endpoint, so junk URLs cannot add limiters or meters.
+ *
+ * Opt-in with shoplite.concurrency.enabled=true: the limits have not been tuned under load yet.
+ * Per-endpoint state is exported as http.server.concurrency.limit / .in_flight gauges and
+ * http.server.concurrency.shed counters, tagged by endpoint.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 10)
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@ConditionalOnProperty(name = "shoplite.concurrency.enabled", havingValue = "true")
+public class AdaptiveConcurrencyFilter extends OncePerRequestFilter {
+
+    private static final String PREFIX = "http.server.concurrency";
+    private static final String UNMATCHED = "unmatched";
+
+    private final RequestMappingHandlerMapping handlerMapping;
+    private final MeterRegistry meterRegistry;
+    private final int initialLimit;
+    private final int minLimit;
+    private final int maxLimit;
+    private final Map<String, Endpoint> endpoints = new ConcurrentHashMap<>();
+    private volatile List<Route> routes;
+
+    public AdaptiveConcurrencyFilter(
+            @Qualifier("requestMappingHandlerMapping") RequestMappingHandlerMapping handlerMapping,
+            MeterRegistry meterRegistry,
+            @Value("${shoplite.concurrency.initial-limit:20}") int initialLimit,
+            @Value("${shoplite.concurrency.min-limit:4}") int minLimit,
+            @Value("${shoplite.concurrency.max-limit:200}") int maxLimit) {
+        this.handlerMapping = handlerMapping;
+        this.meterRegistry = meterRegistry;
+        this.initialLimit = initialLimit;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !request.getRequestURI().startsWith("/api/");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+            FilterChain chain) throws ServletException, IOException {
+        Endpoint endpoint = endpoints.computeIfAbsent(endpointKey(request), this::newEndpoint);
+        if (!endpoint.limit.tryAcquire()) {
+            endpoint.shed.increment();
+            response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+            response.setHeader(HttpHeaders.RETRY_AFTER, "1");
+            return;
+        }
+        long start = System.nanoTime();
+        AtomicBoolean released = new AtomicBoolean();
+        Runnable release = () -> {
+            if (released.compareAndSet(false, true)) {
+                endpoint.limit.release(System.nanoTime() - start);
+            }
+        };
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            if (request.isAsyncStarted()) {
+                request.getAsyncContext().addListener(new ReleaseOnComplete(release));
+            } else {
+                release.run();
+            }
+        }
+    }
+
+    private String endpointKey(HttpServletRequest request) {
+        RequestMethod method = RequestMethod.resolve(request.getMethod());
+        if (method == null) {
+            return UNMATCHED;
+        }
+        PathContainer path = PathContainer.parsePath(
+                request.getRequestURI().substring(request.getContextPath().length()));
+        for (Route route : routes()) {
+            if ((route.methods().isEmpty() || route.methods().contains(method))
+                    && route.pattern().matches(path)) {
+                return method + " " + route.pattern().getPatternString();
+            }
+        }
+        return UNMATCHED;
+    }
+
+    // built on first use: controller mappings are only complete once the context has started
+    private List<Route> routes() {
+        List<Route> routes = this.routes;
+        if (routes == null) {
+            PathPatternParser parser = PathPatternParser.defaultInstance;
+            routes = handlerMapping.getHandlerMethods().keySet().stream()
+                    .flatMap(info -> info.getPatternValues().stream()
+                            .map(pattern -> new Route(parser.parse(pattern),
+                                    info.getMethodsCondition().getMethods())))
+                    .sorted(Comparator.comparing(Route::pattern,
+                            PathPattern.SPECIFICITY_COMPARATOR))
+                    .toList();
+            this.routes = routes;
+        }
+        return routes;
+    }
+
+    private Endpoint newEndpoint(String key) {
+        GradientLimit limit = new GradientLimit(initialLimit, minLimit, maxLimit);
+        Gauge.builder(PREFIX + ".limit", limit, GradientLimit::limit).tag("endpoint", key)
+                .register(meterRegistry);
+        Gauge.builder(PREFIX + ".in_flight", limit, GradientLimit::inFlight)
+                .tag("endpoint", key).register(meterRegistry);
+        Counter shed = Counter.builder(PREFIX + ".shed").tag("endpoint", key)
+                .register(meterRegistry);
+        return new Endpoint(limit, shed);
+    }
+
+    private record Route(PathPattern pattern, Set<RequestMethod> methods) {
+    }
+
+    private record Endpoint(GradientLimit limit, Counter shed) {
+    }
+
+    private record ReleaseOnComplete(Runnable release) implements AsyncListener {
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            release.run();
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            release.run();
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            release.run();
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+            event.getAsyncContext().addListener(this);
+        }
+    }
+}
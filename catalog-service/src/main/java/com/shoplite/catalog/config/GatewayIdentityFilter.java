@@ -0,0 +1,36 @@
+package com.shoplite.catalog.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.web.authentication.preauth.PreAuthenticatedAuthenticationToken;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+/**
+ * Authenticates servlet requests from the gateway's signed identity assertion (trusted-identity
+ * mode, see GatewayIdentityVerifier).
+ */
+public class GatewayIdentityFilter extends OncePerRequestFilter {
+
+    private final GatewayIdentityVerifier verifier;
+
+    public GatewayIdentityFilter(String key) {
+        this.verifier = new GatewayIdentityVerifier(key);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+            FilterChain chain) throws ServletException, IOException {
+        String assertion = request.getHeader(GatewayIdentityVerifier.HEADER);
+        if (assertion != null) {
+            PreAuthenticatedAuthenticationToken authentication = verifier.verify(assertion);
+            if (authentication != null) {
+                SecurityContextHolder.getContext().setAuthentication(authentication);
+            }
+        }
+        chain.doFilter(request, response);
+    }
+}
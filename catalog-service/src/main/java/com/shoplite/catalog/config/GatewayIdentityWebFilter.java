@@ -0,0 +1,32 @@
+package com.shoplite.catalog.config;
+
+import org.springframework.security.core.context.ReactiveSecurityContextHolder;
+import org.springframework.security.web.authentication.preauth.PreAuthenticatedAuthenticationToken;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+
+/**
+ * Authenticates reactive requests from the gateway's signed identity assertion (trusted-identity
+ * mode, see GatewayIdentityVerifier).
+ */
+public class GatewayIdentityWebFilter implements WebFilter {
+
+    private final GatewayIdentityVerifier verifier;
+
+    public GatewayIdentityWebFilter(String key) {
+        this.verifier = new GatewayIdentityVerifier(key);
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        String assertion = exchange.getRequest().getHeaders()
+                .getFirst(GatewayIdentityVerifier.HEADER);
+        PreAuthenticatedAuthenticationToken authentication =
+                assertion == null ? null : verifier.verify(assertion);
+        return authentication == null ? chain.filter(exchange)
+                : chain.filter(exchange).contextWrite(
+                        ReactiveSecurityContextHolder.withAuthentication(authentication));
+    }
+}
@@ -0,0 +1,92 @@
+package com.shoplite.catalog.config;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Adaptive in-flight limit for one endpoint (gradient algorithm, in the style of Netflix
+ * concurrency-limits Gradient2).
+ *
+ * A slow moving average of latency stands in for the no-load latency. Each sample compares it
+ * with the measured latency: while they agree the limit grows by a small queue allowance, when
+ * latency rises the limit shrinks proportionally (never by more than half per sample). Requests
+ * beyond the limit are rejected immediately instead of queueing on threads and connection pools.
+ */
+class GradientLimit {
+
+    private static final double SMOOTHING = 0.2;
+    private static final int LONG_WINDOW = 600;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final ReentrantLock updateLock = new ReentrantLock();
+
+    private volatile double limit;
+    private double longRttNanos;
+
+    GradientLimit(int initialLimit, int minLimit, int maxLimit) {
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.limit = initialLimit;
+    }
+
+    /**
+     * Claims a slot; false means the endpoint is at its limit and the request should be shed.
+     */
+    boolean tryAcquire() {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= (int) limit) {
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Releases a slot and feeds the observed latency into the limit.
+     */
+    void release(long rttNanos) {
+        int current = inFlight.getAndDecrement();
+        // a sample lost to a concurrent update does not matter; never block (or pin) on it
+        if (rttNanos > 0 && updateLock.tryLock()) {
+            try {
+                update(rttNanos, current);
+            } finally {
+                updateLock.unlock();
+            }
+        }
+    }
+
+    private void update(long rttNanos, int inFlightAtRelease) {
+        if (longRttNanos == 0) {
+            longRttNanos = rttNanos;
+        } else {
+            longRttNanos += (rttNanos - longRttNanos) / LONG_WINDOW;
+            // recover quickly after a slow period so the baseline does not stay inflated
+            if (longRttNanos > 2 * rttNanos) {
+                longRttNanos *= 0.95;
+            }
+        }
+        double gradient = Math.max(0.5, Math.min(1.0, longRttNanos / rttNanos));
+        // only grow when the limit is actually being used
+        if (gradient >= 1.0 && inFlightAtRelease < limit / 2) {
+            return;
+        }
+        double queueSize = Math.sqrt(limit);
+        double target = limit * gradient + queueSize;
+        double next = limit * (1 - SMOOTHING) + target * SMOOTHING;
+        limit = Math.max(minLimit, Math.min(maxLimit, next));
+    }
+
+    int limit() {
+        return (int) limit;
+    }
+
+    int inFlight() {
+        return inFlight.get();
+    }
+}
@@ -0,0 +1,125 @@
+package com.shoplite.catalog.config;
+
+import com.shoplite.catalog.service.InventoryEngine;
+import java.util.Collection;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.kafka.ConcurrentKafkaListenerContainerFactoryConfigurer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
+import org.springframework.kafka.config.ContainerCustomizer;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.listener.ConcurrentMessageListenerContainer;
+import org.springframework.kafka.listener.ConsumerAwareRebalanceListener;
+import org.springframework.kafka.listener.ContainerProperties.AckMode;
+
+/**
+ * Kafka consumer configuration for Catalog Service.
+ *
+ * The default single-record container factory comes from Spring Boot auto-configuration. When
+ * catalog.orders.batch.enabled=true an additional batch factory is registered for
+ * OrderPlacedBatchListener; it reuses Boot's consumer settings and only switches the container to
+ * batch delivery (poll size and fetch wait are set on the listener itself). With
+ * catalog.inventory.engine.enabled=true a MANUAL-ack factory is registered instead, so offsets are
+ * only committed once InventoryEngine has checkpointed the matching orders to Mongo. Its
+ * containers also run a checkpoint when partitions are revoked, so the new owner resumes after the
+ * last order this instance applied.
+ *
+ * Every container gets OrderConsumerMetrics as record/batch interceptor and rebalance listener:
+ * Boot applies the containerCustomizer bean to its own factory only, so the factories declared
+ * here install their customizer themselves. catalog.orders.dedup.async-commits=true switches
+ * offset commits to commitAsync: the listeners apply each orderId at most once per product, so a
+ * commit lost in a rebalance only causes redeliveries that are dropped. Not available with the
+ * inventory engine, whose in-memory deltas are not deduplicated.
+ */
+@Configuration
+public class KafkaConsumerConfig {
+
+    @Bean
+    @ConditionalOnProperty(name = "catalog.orders.batch.enabled", havingValue = "true")
+    public ConcurrentKafkaListenerContainerFactory<Object, Object> batchKafkaListenerContainerFactory(
+            ConcurrentKafkaListenerContainerFactoryConfigurer configurer,
+            ConsumerFactory<Object, Object> consumerFactory,
+            OrderConsumerMetrics orderConsumerMetrics,
+            @Value("${catalog.orders.dedup.async-commits:false}") boolean asyncCommits) {
+        ConcurrentKafkaListenerContainerFactory<Object, Object> factory =
+                new ConcurrentKafkaListenerContainerFactory<>();
+        configurer.configure(factory, consumerFactory);
+        factory.setBatchListener(true);
+        factory.setContainerCustomizer(
+                customizer(orderConsumerMetrics, orderConsumerMetrics, asyncCommits));
+        return factory;
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "catalog.inventory.engine.enabled", havingValue = "true")
+    public ConcurrentKafkaListenerContainerFactory<Object, Object> inventoryKafkaListenerContainerFactory(
+            ConcurrentKafkaListenerContainerFactoryConfigurer configurer,
+            ConsumerFactory<Object, Object> consumerFactory,
+            OrderConsumerMetrics orderConsumerMetrics,
+            InventoryEngine inventoryEngine) {
+        ConcurrentKafkaListenerContainerFactory<Object, Object> factory =
+                new ConcurrentKafkaListenerContainerFactory<>();
+        configurer.configure(factory, consumerFactory);
+        factory.getContainerProperties().setAckMode(AckMode.MANUAL);
+        factory.setContainerCustomizer(customizer(orderConsumerMetrics,
+                checkpointOnRevoke(inventoryEngine, orderConsumerMetrics), false));
+        return factory;
+    }
+
+    // applied by Boot to the default kafkaListenerContainerFactory
+    @Bean
+    public ContainerCustomizer<Object, Object, ConcurrentMessageListenerContainer<Object, Object>> containerCustomizer(
+            OrderConsumerMetrics orderConsumerMetrics,
+            @Value("${catalog.orders.dedup.async-commits:false}") boolean asyncCommits,
+            @Value("${catalog.inventory.engine.enabled:false}") boolean inventoryEngine) {
+        return customizer(orderConsumerMetrics, orderConsumerMetrics, asyncCommits && !inventoryEngine);
+    }
+
+    private static ContainerCustomizer<Object, Object, ConcurrentMessageListenerContainer<Object, Object>> customizer(
+            OrderConsumerMetrics orderConsumerMetrics, ConsumerAwareRebalanceListener rebalanceListener,
+            boolean asyncCommits) {
+        return container -> {
+            container.setRecordInterceptor(orderConsumerMetrics);
+            container.setBatchInterceptor(orderConsumerMetrics);
+            container.getContainerProperties().setConsumerRebalanceListener(rebalanceListener);
+            if (asyncCommits) {
+                container.getContainerProperties().setSyncCommits(false);
+            }
+        };
+    }
+
+    // the container commits pending acknowledgments right after onPartitionsRevokedBeforeCommit
+    private static ConsumerAwareRebalanceListener checkpointOnRevoke(InventoryEngine engine,
+            OrderConsumerMetrics metrics) {
+        return new ConsumerAwareRebalanceListener() {
+            @Override
+            public void onPartitionsRevokedBeforeCommit(Consumer<?, ?> consumer,
+                    Collection<TopicPartition> partitions) {
+                engine.checkpoint();
+                metrics.onPartitionsRevokedBeforeCommit(consumer, partitions);
+            }
+
+            @Override
+            public void onPartitionsRevokedAfterCommit(Consumer<?, ?> consumer,
+                    Collection<TopicPartition> partitions) {
+                metrics.onPartitionsRevokedAfterCommit(consumer, partitions);
+            }
+
+            @Override
+            public void onPartitionsLost(Consumer<?, ?> consumer,
+                    Collection<TopicPartition> partitions) {
+                metrics.onPartitionsLost(consumer, partitions);
+            }
+
+            @Override
+            public void onPartitionsAssigned(Consumer<?, ?> consumer,
+                    Collection<TopicPartition> partitions) {
+                metrics.onPartitionsAssigned(consumer, partitions);
+            }
+        };
+    }
+}
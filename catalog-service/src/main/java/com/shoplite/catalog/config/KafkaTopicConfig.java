@@ -0,0 +1,21 @@
+package com.shoplite.catalog.config;
+
+import org.apache.kafka.clients.admin.NewTopic;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.config.TopicBuilder;
+
+/**
+ * Topics owned by Catalog Service. catalog.stock is log-compacted: it only needs to keep the latest
+ * StockChanged per product so consumers (order-service stock view) can bootstrap from it.
+ */
+@Configuration
+public class KafkaTopicConfig {
+
+    @Bean
+    public NewTopic stockTopic(@Value("${catalog.stock.topic:catalog.stock}") String topic,
+            @Value("${catalog.stock.partitions:3}") int partitions) {
+        return TopicBuilder.name(topic).partitions(partitions).compact().build();
+    }
+}
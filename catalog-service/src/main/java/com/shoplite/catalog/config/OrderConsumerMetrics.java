@@ -0,0 +1,158 @@
+package com.shoplite.catalog.config;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.util.Collection;
+import java.util.Map;
+import java.util.OptionalLong;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.kafka.listener.BatchInterceptor;
+import org.springframework.kafka.listener.ConsumerAwareRebalanceListener;
+import org.springframework.kafka.listener.RecordInterceptor;
+import org.springframework.stereotype.Component;
+
+/**
+ * Listener-container metrics for orders.events (and its retry topics), installed on every
+ * container by KafkaConsumerConfig:
+ *
+ * - catalog.orders.lag{topic,partition}: records behind the partition's high watermark at the
+ * record (or batch) being handled, for partitions assigned to this instance. Derived from the
+ * consumer's cached fetch position, so no broker round trip per record. Cleared on revocation.
+ * - catalog.orders.processing{topic,result}: listener time per record.
+ * - catalog.orders.batch.size / catalog.orders.batch.processing{result}: batch listener only.
+ *
+ * Group-wide lag (committed offsets, what order-service throttles on) is also available from the
+ * broker; these are the per-instance view.
+ */
+@Component
+public class OrderConsumerMetrics implements RecordInterceptor<Object, Object>,
+        BatchInterceptor<Object, Object>, ConsumerAwareRebalanceListener {
+
+    private static final String TOPIC = "orders.events";
+
+    private final MeterRegistry meterRegistry;
+    private final DistributionSummary batchSize;
+    private final Map<TopicPartition, Lag> lags = new ConcurrentHashMap<>();
+    private final ThreadLocal<Long> started = new ThreadLocal<>();
+
+    public OrderConsumerMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+        this.batchSize = DistributionSummary.builder("catalog.orders.batch.size")
+                .baseUnit("records").register(meterRegistry);
+    }
+
+    @Override
+    public ConsumerRecord<Object, Object> intercept(ConsumerRecord<Object, Object> record,
+            Consumer<Object, Object> consumer) {
+        if (record.topic().startsWith(TOPIC)) {
+            recordLag(record, consumer);
+            started.set(System.nanoTime());
+        }
+        return record;
+    }
+
+    @Override
+    public void success(ConsumerRecord<Object, Object> record, Consumer<Object, Object> consumer) {
+        recordProcessing(record.topic(), "success");
+    }
+
+    @Override
+    public void failure(ConsumerRecord<Object, Object> record, Exception exception,
+            Consumer<Object, Object> consumer) {
+        recordProcessing(record.topic(), "failure");
+    }
+
+    @Override
+    public ConsumerRecords<Object, Object> intercept(ConsumerRecords<Object, Object> records,
+            Consumer<Object, Object> consumer) {
+        batchSize.record(records.count());
+        // the last record of each partition gives that partition's lag after this batch
+        for (TopicPartition partition : records.partitions()) {
+            var partitionRecords = records.records(partition);
+            recordLag(partitionRecords.get(partitionRecords.size() - 1), consumer);
+        }
+        started.set(System.nanoTime());
+        return records;
+    }
+
+    @Override
+    public void success(ConsumerRecords<Object, Object> records,
+            Consumer<Object, Object> consumer) {
+        recordBatchProcessing("success");
+    }
+
+    @Override
+    public void failure(ConsumerRecords<Object, Object> records, Exception exception,
+            Consumer<Object, Object> consumer) {
+        recordBatchProcessing("failure");
+    }
+
+    @Override
+    public void onPartitionsRevokedAfterCommit(Consumer<?, ?> consumer,
+            Collection<TopicPartition> partitions) {
+        partitions.forEach(this::clearLag);
+    }
+
+    @Override
+    public void onPartitionsLost(Consumer<?, ?> consumer, Collection<TopicPartition> partitions) {
+        partitions.forEach(this::clearLag);
+    }
+
+    // high watermark = consumer position + currentLag; records after this one are still to do
+    private void recordLag(ConsumerRecord<?, ?> record, Consumer<?, ?> consumer) {
+        TopicPartition partition = new TopicPartition(record.topic(), record.partition());
+        OptionalLong currentLag = consumer.currentLag(partition);
+        if (currentLag.isEmpty()) {
+            return;
+        }
+        long behind = currentLag.getAsLong() + consumer.position(partition) - record.offset() - 1;
+        lags.computeIfAbsent(partition, this::newLag).value().set(Math.max(0, behind));
+    }
+
+    private Lag newLag(TopicPartition partition) {
+        AtomicLong value = new AtomicLong();
+        Gauge gauge = Gauge.builder("catalog.orders.lag", value, AtomicLong::get)
+                .tag("topic", partition.topic())
+                .tag("partition", String.valueOf(partition.partition()))
+                .baseUnit("records").register(meterRegistry);
+        return new Lag(value, gauge);
+    }
+
+    private void clearLag(TopicPartition partition) {
+        Lag lag = lags.remove(partition);
+        if (lag != null) {
+            meterRegistry.remove(lag.gauge());
+        }
+    }
+
+    private void recordProcessing(String topic, String result) {
+        Long start = started.get();
+        if (start == null || !topic.startsWith(TOPIC)) {
+            return;
+        }
+        started.remove();
+        Timer.builder("catalog.orders.processing").tag("topic", topic).tag("result", result)
+                .register(meterRegistry).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+
+    private void recordBatchProcessing(String result) {
+        Long start = started.get();
+        if (start == null) {
+            return;
+        }
+        started.remove();
+        Timer.builder("catalog.orders.batch.processing").tag("result", result)
+                .register(meterRegistry).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+
+    private record Lag(AtomicLong value, Gauge gauge) {
+    }
+}
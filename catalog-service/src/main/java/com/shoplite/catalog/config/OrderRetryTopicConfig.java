@@ -0,0 +1,43 @@
+package com.shoplite.catalog.config;
+
+import com.shoplite.catalog.service.OrderDeadLetters;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.retrytopic.RetryTopicConfiguration;
+import org.springframework.kafka.retrytopic.RetryTopicConfigurationBuilder;
+import org.springframework.kafka.retrytopic.TopicSuffixingStrategy;
+
+/**
+ * Non-blocking retries for OrderPlacedListener (single-record mode only; the batch and inventory
+ * engine listeners keep the container's in-place error handling).
+ *
+ * A failed orders.events record is forwarded to orders.events-retry-0..N-1 with exponential
+ * backoff and, once attempts are exhausted, to orders.events-dlt; the main partition moves on
+ * immediately. Deserialization and conversion failures skip the retries and go straight to the
+ * DLT. Retry consumers pause only their own partitions until a record is due. A retried event
+ * leaves its product's partition, so it can be applied after later events for the same product;
+ * stock decrements are floored and commute, so the final stock is unchanged.
+ */
+@Configuration
+@ConditionalOnExpression("${catalog.orders.retry.enabled:true} && !${catalog.orders.batch.enabled:false} && !${catalog.inventory.engine.enabled:false}")
+public class OrderRetryTopicConfig {
+
+    @Bean
+    public RetryTopicConfiguration ordersRetryTopic(OrderDeadLetters orderDeadLetters,
+            @Value("${catalog.orders.retry.attempts:4}") int attempts,
+            @Value("${catalog.orders.retry.initial-delay-ms:1000}") long initialDelayMs,
+            @Value("${catalog.orders.retry.multiplier:5.0}") double multiplier,
+            @Value("${catalog.orders.retry.max-delay-ms:60000}") long maxDelayMs,
+            @Value("${catalog.orders.retry.partitions:3}") int partitions) {
+        return RetryTopicConfigurationBuilder.newInstance()
+                .includeTopic(OrderDeadLetters.ORDERS_TOPIC)
+                .maxAttempts(attempts)
+                .exponentialBackoff(initialDelayMs, multiplier, maxDelayMs)
+                .setTopicSuffixingStrategy(TopicSuffixingStrategy.SUFFIX_WITH_INDEX_VALUE)
+                // -1: broker default replication factor
+                .autoCreateTopicsWith(partitions, (short) -1)
+                .create(orderDeadLetters.template());
+    }
+}
@@ -0,0 +1,65 @@
+package com.shoplite.catalog.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.config.annotation.web.reactive.EnableWebFluxSecurity;
+import org.springframework.security.config.web.server.SecurityWebFiltersOrder;
+import org.springframework.security.config.web.server.ServerHttpSecurity;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationConverter;
+import org.springframework.security.oauth2.server.resource.authentication.JwtGrantedAuthoritiesConverter;
+import org.springframework.security.oauth2.server.resource.authentication.ReactiveJwtAuthenticationConverterAdapter;
+import org.springframework.security.web.server.SecurityWebFilterChain;
+import org.springframework.security.web.server.authentication.HttpStatusServerEntryPoint;
+import org.springframework.security.web.server.context.NoOpServerSecurityContextRepository;
+
+/**
+ * Security configuration for Catalog Service on the reactive stack; mirrors SecurityConfig.
+ *
+ * Purpose: - Stateless resource server validating Auth0 JWTs, or the gateway's signed identity
+ * assertion when security.identity.trusted=true. - /actuator/** is public; all other APIs require
+ * authentication. - Maps Auth0 permissions to Spring authorities with "SCOPE_" prefix.
+ */
+@Configuration
+@EnableWebFluxSecurity
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveSecurityConfig {
+
+    @Value("${security.identity.trusted:false}")
+    private boolean trustGatewayIdentity;
+
+    @Value("${security.identity.key:}")
+    private String identityKey;
+
+    @Bean
+    public SecurityWebFilterChain securityWebFilterChain(ServerHttpSecurity http) {
+        http.csrf(ServerHttpSecurity.CsrfSpec::disable)
+                .securityContextRepository(NoOpServerSecurityContextRepository.getInstance())
+                .authorizeExchange(ex -> ex.pathMatchers("/actuator/**").permitAll()
+                        .anyExchange().authenticated());
+        if (trustGatewayIdentity) {
+            http.addFilterAt(new GatewayIdentityWebFilter(identityKey),
+                    SecurityWebFiltersOrder.AUTHENTICATION)
+                    .exceptionHandling(ex -> ex.authenticationEntryPoint(
+                            new HttpStatusServerEntryPoint(HttpStatus.UNAUTHORIZED)));
+        } else {
+            http.oauth2ResourceServer(oauth -> oauth.jwt(jwt -> jwt.jwtAuthenticationConverter(
+                    new ReactiveJwtAuthenticationConverterAdapter(jwtAuthenticationConverter()))));
+        }
+        return http.build();
+    }
+
+    /**
+     * Converts Auth0 permission claims into Spring GrantedAuthorities (SCOPE_...).
+     */
+    private static JwtAuthenticationConverter jwtAuthenticationConverter() {
+        JwtGrantedAuthoritiesConverter scopes = new JwtGrantedAuthoritiesConverter();
+        scopes.setAuthorityPrefix("SCOPE_");
+        scopes.setAuthoritiesClaimName("permissions");
+        JwtAuthenticationConverter converter = new JwtAuthenticationConverter();
+        converter.setJwtGrantedAuthoritiesConverter(scopes);
+        return converter;
+    }
+}
@@ -1,24 +1,39 @@
 package com.shoplite.catalog.config;
 
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpStatus;
 import org.springframework.security.config.Customizer;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationConverter;
 import org.springframework.security.oauth2.server.resource.authentication.JwtGrantedAuthoritiesConverter;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.authentication.AnonymousAuthenticationFilter;
+import org.springframework.security.web.authentication.HttpStatusEntryPoint;
 
 /**
  * Security configuration for Catalog Service (Spring MVC).
  *
  * Purpose: - Operates as a stateless OAuth2 resource server validating Auth0 JWTs. - Allows
- * unauthenticated access to /actuator/**; protects all other APIs. - Maps Auth0 permissions to
- * Spring authorities with "SCOPE_" prefix.
+ * unauthenticated access to /actuator/**; /api/admin/** needs the catalog:admin permission;
+ * protects all other APIs. - Maps Auth0 permissions to
+ * Spring authorities with "SCOPE_" prefix. - With security.identity.trusted=true, authenticates from
+ * the gateway's signed identity assertion instead of re-verifying the JWT.
  */
 @Configuration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 public class SecurityConfig {
 
+    // trusted-identity mode: accept the gateway's HMAC-signed assertion instead of the JWT
+    @Value("${security.identity.trusted:false}")
+    private boolean trustGatewayIdentity;
+
+    @Value("${security.identity.key:}")
+    private String identityKey;
+
     /**
      * Configures stateless security and JWT validation for APIs.
      */
@@ -27,9 +42,17 @@ public class SecurityConfig {
         http.csrf(csrf -> csrf.disable())
                 .sessionManagement(sm -> sm.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
                 .authorizeHttpRequests(auth -> auth.requestMatchers("/actuator/**").permitAll()
-                        .anyRequest().authenticated())
-                .oauth2ResourceServer(oauth -> oauth
-                        .jwt(jwt -> jwt.jwtAuthenticationConverter(jwtAuthenticationConverter())));
+                        .requestMatchers("/api/admin/**").hasAuthority("SCOPE_catalog:admin")
+                        .anyRequest().authenticated());
+        if (trustGatewayIdentity) {
+            http.addFilterBefore(new GatewayIdentityFilter(identityKey),
+                    AnonymousAuthenticationFilter.class)
+                    .exceptionHandling(ex -> ex.authenticationEntryPoint(
+                            new HttpStatusEntryPoint(HttpStatus.UNAUTHORIZED)));
+        } else {
+            http.oauth2ResourceServer(oauth -> oauth
+                    .jwt(jwt -> jwt.jwtAuthenticationConverter(jwtAuthenticationConverter())));
+        }
         return http.build();
     }
 
@@ -0,0 +1,35 @@
+package com.shoplite.catalog.config;
+
+import java.util.Map;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.env.EnvironmentPostProcessor;
+import org.springframework.core.env.ConfigurableEnvironment;
+import org.springframework.core.env.MapPropertySource;
+
+/**
+ * Keeps the reactive Mongo driver idle unless catalog runs the reactive web stack.
+ *
+ * Both Mongo starters are on the classpath so one artifact can run either stack, but the reactive
+ * auto-configuration would otherwise open its own MongoClient (and connection pool) next to the
+ * blocking one in servlet mode, where nothing uses it. Registered in META-INF/spring.factories;
+ * runs after application.yml has been loaded so spring.main.web-application-type is resolved.
+ * An explicit spring.autoconfigure.exclude takes precedence over this default.
+ */
+public class WebStackEnvironmentPostProcessor implements EnvironmentPostProcessor {
+
+    private static final String REACTIVE_MONGO = String.join(",",
+            "org.springframework.boot.autoconfigure.mongo.MongoReactiveAutoConfiguration",
+            "org.springframework.boot.autoconfigure.data.mongo.MongoReactiveDataAutoConfiguration",
+            "org.springframework.boot.autoconfigure.data.mongo"
+                    + ".MongoReactiveRepositoriesAutoConfiguration");
+
+    @Override
+    public void postProcessEnvironment(ConfigurableEnvironment environment,
+            SpringApplication application) {
+        if (!"reactive".equalsIgnoreCase(
+                environment.getProperty("spring.main.web-application-type"))) {
+            environment.getPropertySources().addLast(new MapPropertySource("catalogWebStack",
+                    Map.of("spring.autoconfigure.exclude", REACTIVE_MONGO)));
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package com.shoplite.catalog.domain;
+
+// stock level before and after an atomic server-side adjustment; duplicate when the order had
+// already been applied, so nothing changed (before == after, even at zero stock)
+public record StockChange(String productId, int before, int after, boolean duplicate) {
+
+    public StockChange(String productId, int before, int after) {
+        this(productId, before, after, false);
+    }
+
+    public int delta() {
+        return before - after;
+    }
+}
@@ -0,0 +1,9 @@
+package com.shoplite.catalog.events;
+
+import java.util.List;
+
+// latest absolute stock of a product; keyed by productId on the compacted catalog.stock topic.
+// orderIds names the orders whose decrement this value includes, so order-service can release
+// exactly those reservations (empty for changes not caused by an order)
+public record StockChanged(String productId, int stock, List<String> orderIds) {
+}
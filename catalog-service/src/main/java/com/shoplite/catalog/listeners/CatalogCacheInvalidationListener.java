@@ -0,0 +1,46 @@
+package com.shoplite.catalog.listeners;
+
+import com.shoplite.catalog.events.StockChanged;
+import com.shoplite.catalog.service.ProductReadCache;
+import java.util.HashMap;
+import java.util.Map;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.listener.ConsumerSeekAware;
+import org.springframework.kafka.support.KafkaHeaders;
+import org.springframework.messaging.handler.annotation.Header;
+import org.springframework.stereotype.Component;
+
+/**
+ * Moves this instance's ProductReadCache along catalog.stock as any catalog instance changes
+ * stock. Each instance has its own consumer group and starts at the end of catalog.stock, since
+ * only changes made after startup matter; the end offsets found on assignment are the cache's
+ * starting positions.
+ */
+@Component
+public class CatalogCacheInvalidationListener implements ConsumerSeekAware {
+
+    private final ProductReadCache productReadCache;
+
+    public CatalogCacheInvalidationListener(ProductReadCache productReadCache) {
+        this.productReadCache = productReadCache;
+    }
+
+    @KafkaListener(topics = "${catalog.stock.topic:catalog.stock}",
+            groupId = "catalog-cache-${random.uuid}",
+            properties = {"auto.offset.reset:latest", "enable.auto.commit:false"})
+    public void onStockChanged(StockChanged stockChanged,
+            @Header(KafkaHeaders.RECEIVED_PARTITION) int partition,
+            @Header(KafkaHeaders.OFFSET) long offset) {
+        productReadCache.advance(Map.of(partition, offset + 1));
+    }
+
+    @Override
+    public void onPartitionsAssigned(Map<TopicPartition, Long> assignments,
+            ConsumerSeekCallback callback) {
+        Map<Integer, Long> positions = new HashMap<>();
+        assignments.forEach((partition, position) ->
+                positions.put(partition.partition(), position));
+        productReadCache.advance(positions);
+    }
+}
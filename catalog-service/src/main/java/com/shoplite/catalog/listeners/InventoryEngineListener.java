@@ -0,0 +1,88 @@
+package com.shoplite.catalog.listeners;
+
+import com.shoplite.catalog.domain.StockChange;
+import com.shoplite.catalog.service.InventoryEngine;
+import com.shoplite.orders.events.OrderPlaced;
+import io.micrometer.tracing.Span;
+import io.micrometer.tracing.Tracer;
+import java.util.List;
+import java.util.Map;
+import org.apache.kafka.common.TopicPartition;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.kafka.annotation.KafkaHandler;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.kafka.support.KafkaHeaders;
+import org.springframework.messaging.handler.annotation.Header;
+import org.springframework.stereotype.Component;
+
+/**
+ * orders.events consumer for the in-memory inventory engine (catalog.inventory.engine.enabled=true).
+ * Decrements are applied to InventoryEngine only; offsets are acknowledged by the engine once the
+ * corresponding deltas have been checkpointed to Mongo.
+ */
+@Component
+@ConditionalOnProperty(name = "catalog.inventory.engine.enabled", havingValue = "true")
+@KafkaListener(topics = "orders.events", groupId = "catalog-service",
+        containerFactory = "inventoryKafkaListenerContainerFactory",
+        concurrency = "${catalog.orders.concurrency:3}")
+public class InventoryEngineListener {
+
+    private static final Logger log = LoggerFactory.getLogger(InventoryEngineListener.class);
+
+    private final InventoryEngine inventoryEngine;
+    private final Tracer tracer;
+
+    public InventoryEngineListener(InventoryEngine inventoryEngine, Tracer tracer) {
+        this.inventoryEngine = inventoryEngine;
+        this.tracer = tracer;
+    }
+
+    @KafkaHandler
+    public void listen(OrderPlaced orderPlaced,
+            @Header(KafkaHeaders.RECEIVED_TOPIC) String topic,
+            @Header(KafkaHeaders.RECEIVED_PARTITION) int partition,
+            Acknowledgment acknowledgment) {
+        apply(orderPlaced.orderId(), Map.of(orderPlaced.productId(), orderPlaced.quantity()),
+                new TopicPartition(topic, partition), acknowledgment);
+    }
+
+    private void apply(String orderId, Map<String, Integer> quantities, TopicPartition partition,
+            Acknowledgment acknowledgment) {
+        Span span = tracer.nextSpan().name("catalog.order-processing").tag("order.id", orderId)
+                .tag("order.products", String.valueOf(quantities.size()))
+                .tag("inventory.mode", "engine").start();
+
+        try (Tracer.SpanInScope ws = tracer.withSpan(span)) {
+            List<StockChange> changes =
+                    inventoryEngine.apply(orderId, quantities, partition, acknowledgment);
+            for (StockChange change : changes) {
+                log.info("Stock updated in memory for product {} - Original: {}, Updated: {}, TraceId: {}",
+                        change.productId(), change.before(), change.after(),
+                        span.context().traceId());
+            }
+            if (changes.size() == 1) {
+                StockChange change = changes.get(0);
+                span.tag("product.id", change.productId())
+                        .tag("stock.original", String.valueOf(change.before()))
+                        .tag("stock.updated", String.valueOf(change.after()))
+                        .tag("stock.change", String.valueOf(change.delta()));
+            }
+            if (changes.size() < quantities.size()) {
+                span.tag("error", "product.not.found");
+                log.warn("{} product(s) not found for order {} - TraceId: {}",
+                        quantities.size() - changes.size(), orderId, span.context().traceId());
+            }
+        } catch (Exception e) {
+            span.tag("error", e.getClass().getSimpleName()).tag("error.message",
+                    String.valueOf(e.getMessage()));
+            log.error("Error applying order {} to inventory engine - TraceId: {}", orderId,
+                    span.context().traceId(), e);
+            throw e;
+        } finally {
+            span.end();
+        }
+    }
+}
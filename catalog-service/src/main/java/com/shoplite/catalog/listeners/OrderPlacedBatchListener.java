@@ -0,0 +1,167 @@
+package com.shoplite.catalog.listeners;
+
+import com.shoplite.catalog.repo.ProductRepository;
+import com.shoplite.catalog.service.ProcessedOrders;
+import com.shoplite.catalog.service.StockEventPublisher;
+import com.shoplite.orders.events.OrderPlaced;
+import io.micrometer.tracing.Span;
+import io.micrometer.tracing.Tracer;
+import io.micrometer.tracing.propagation.Propagator;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.header.Headers;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * Batch-mode consumer for orders.events, enabled with catalog.orders.batch.enabled=true (replaces
+ * OrderPlacedListener; the inventory engine takes precedence when both are enabled).
+ *
+ * Each poll of up to max-records OrderPlaced events is folded into one quantity per product and
+ * applied with a single Mongo bulkWrite. Because every decrement is floored at zero, the final
+ * stock matches what applying the same events one by one would produce. Each record still gets
+ * its own span (parented on the producer's trace headers) and log line. Orders this instance
+ * already applied are dropped up front (ProcessedOrders); the rest are recorded in each product's
+ * applied-orders window by the same bulkWrite, so a redelivered batch is not decremented twice.
+ */
+@Component
+@ConditionalOnExpression("${catalog.orders.batch.enabled:false} && !${catalog.inventory.engine.enabled:false}")
+public class OrderPlacedBatchListener {
+
+    private static final Logger log = LoggerFactory.getLogger(OrderPlacedBatchListener.class);
+
+    private static final Propagator.Getter<Headers> KAFKA_HEADERS = (headers, key) -> {
+        Header header = headers.lastHeader(key);
+        return header == null ? null : new String(header.value(), StandardCharsets.UTF_8);
+    };
+
+    private final ProductRepository productRepository;
+    private final StockEventPublisher stockEventPublisher;
+    private final ProcessedOrders processedOrders;
+    private final Tracer tracer;
+    private final Propagator propagator;
+
+    public OrderPlacedBatchListener(ProductRepository productRepository,
+            StockEventPublisher stockEventPublisher, ProcessedOrders processedOrders,
+            Tracer tracer, Propagator propagator) {
+        this.productRepository = productRepository;
+        this.stockEventPublisher = stockEventPublisher;
+        this.processedOrders = processedOrders;
+        this.tracer = tracer;
+        this.propagator = propagator;
+    }
+
+    @KafkaListener(topics = "orders.events", groupId = "catalog-service",
+            containerFactory = "batchKafkaListenerContainerFactory",
+            concurrency = "${catalog.orders.concurrency:3}",
+            properties = {"max.poll.records:${catalog.orders.batch.max-records:500}",
+                    "fetch.min.bytes:${catalog.orders.batch.min-bytes:65536}",
+                    "fetch.max.wait.ms:${catalog.orders.batch.max-wait-ms:50}"})
+    public void listen(List<ConsumerRecord<String, Object>> records) {
+        Span batchSpan = tracer.nextSpan().name("catalog.order-batch")
+                .tag("batch.size", String.valueOf(records.size())).start();
+        List<RecordWork> work = new ArrayList<>(records.size());
+
+        try (Tracer.SpanInScope ws = tracer.withSpan(batchSpan)) {
+            // productId -> (orderId -> quantity); an order repeated within the batch counts once
+            Map<String, Map<String, Integer>> orders = new LinkedHashMap<>();
+            List<RecordWork> applied = new ArrayList<>(records.size());
+            for (ConsumerRecord<String, Object> record : records) {
+                RecordWork recordWork = toWork(record, batchSpan);
+                if (recordWork == null) {
+                    continue;
+                }
+                work.add(recordWork);
+                boolean fresh = false;
+                for (var line : recordWork.lines().entrySet()) {
+                    if (!processedOrders.seen(recordWork.orderId(), line.getKey())) {
+                        fresh = true;
+                        orders.computeIfAbsent(line.getKey(), id -> new LinkedHashMap<>())
+                                .putIfAbsent(recordWork.orderId(), line.getValue());
+                    }
+                }
+                if (!fresh) {
+                    recordWork.span().tag("order.duplicate", "memory");
+                    continue;
+                }
+                applied.add(recordWork);
+            }
+
+            Set<String> missing = productRepository.decrementStockOnce(orders);
+            applied.forEach(recordWork -> recordWork.lines().keySet().forEach(productId ->
+                    processedOrders.markProcessed(recordWork.orderId(), productId)));
+            if (!orders.isEmpty()) {
+                Map<String, Set<String>> orderIds = new LinkedHashMap<>();
+                orders.forEach((productId, quantities) -> orderIds.put(productId,
+                        quantities.keySet()));
+                stockEventPublisher.publish(productRepository.findStock(orders.keySet()),
+                        orderIds);
+            }
+            batchSpan.tag("batch.products", String.valueOf(orders.size()))
+                    .tag("batch.products.missing", String.valueOf(missing.size()))
+                    .tag("batch.duplicates", String.valueOf(work.size() - applied.size()));
+
+            for (RecordWork recordWork : applied) {
+                Span span = recordWork.span();
+                for (var line : recordWork.lines().entrySet()) {
+                    if (missing.contains(line.getKey())) {
+                        span.tag("error", "product.not.found");
+                        log.warn("Product {} not found for order {} - TraceId: {}", line.getKey(),
+                                recordWork.orderId(), span.context().traceId());
+                    } else {
+                        log.info("Stock decremented for product {} by {} (order {}) - TraceId: {}",
+                                line.getKey(), line.getValue(), recordWork.orderId(),
+                                span.context().traceId());
+                    }
+                }
+            }
+            log.debug("Applied batch of {} order events across {} products", records.size(),
+                    orders.size());
+        } catch (Exception e) {
+            batchSpan.tag("error", e.getClass().getSimpleName()).tag("error.message",
+                    String.valueOf(e.getMessage()));
+            work.forEach(recordWork -> recordWork.span().tag("error",
+                    e.getClass().getSimpleName()));
+            log.error("Error processing batch of {} order events - TraceId: {}", records.size(),
+                    batchSpan.context().traceId(), e);
+            throw e;
+        } finally {
+            work.forEach(recordWork -> recordWork.span().end());
+            batchSpan.end();
+        }
+    }
+
+    // one consumed record: its span and the per-product quantities it contributes
+    private record RecordWork(Span span, String orderId, Map<String, Integer> lines) {
+    }
+
+    private RecordWork toWork(ConsumerRecord<String, Object> record, Span batchSpan) {
+        Span.Builder span = propagator.extract(record.headers(), KAFKA_HEADERS)
+                .name("catalog.order-processing")
+                .tag("batch.trace.id", batchSpan.context().traceId());
+        return switch (record.value()) {
+            case OrderPlaced orderPlaced -> new RecordWork(
+                    span.tag("order.id", orderPlaced.orderId())
+                            .tag("product.id", orderPlaced.productId())
+                            .tag("order.quantity", String.valueOf(orderPlaced.quantity()))
+                            .start(),
+                    orderPlaced.orderId(),
+                    Map.of(orderPlaced.productId(), orderPlaced.quantity()));
+            case null, default -> {
+                log.warn("Skipping unsupported event {} at {}-{}@{}",
+                        record.value() == null ? null : record.value().getClass().getName(),
+                        record.topic(), record.partition(), record.offset());
+                yield null;
+            }
+        };
+    }
+}
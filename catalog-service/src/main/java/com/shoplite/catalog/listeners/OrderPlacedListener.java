@@ -1,35 +1,55 @@
 package com.shoplite.catalog.listeners;
 
 import com.shoplite.catalog.repo.ProductRepository;
+import com.shoplite.catalog.service.ProcessedOrders;
+import com.shoplite.catalog.service.StockEventPublisher;
 import com.shoplite.orders.events.OrderPlaced;
 import io.micrometer.tracing.Span;
 import io.micrometer.tracing.Tracer;
+import java.util.List;
 import java.util.Map;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.kafka.annotation.KafkaHandler;
 import org.springframework.kafka.annotation.KafkaListener;
 import org.springframework.kafka.support.KafkaHeaders;
 import org.springframework.messaging.handler.annotation.Header;
 import org.springframework.messaging.handler.annotation.Headers;
 import org.springframework.stereotype.Component;
-import org.springframework.transaction.annotation.Transactional;
 
+/**
+ * Single-record consumer for orders.events (default). Disabled when
+ * catalog.orders.batch.enabled=true (OrderPlacedBatchListener) or
+ * catalog.inventory.engine.enabled=true (InventoryEngineListener).
+ * Handles OrderPlaced; a checkout arrives as one OrderPlaced per product, sharing the order id.
+ * Failures are rethrown and, unless catalog.orders.retry.enabled=false, handed to the retry topics
+ * and finally orders.events-dlt (OrderRetryTopicConfig) instead of blocking the partition.
+ */
 @Component
+@ConditionalOnExpression("!${catalog.orders.batch.enabled:false} && !${catalog.inventory.engine.enabled:false}")
+@KafkaListener(topics = "orders.events", groupId = "catalog-service",
+                containerFactory = "kafkaListenerContainerFactory",
+                concurrency = "${catalog.orders.concurrency:3}")
 public class OrderPlacedListener {
 
         private static final Logger log = LoggerFactory.getLogger(OrderPlacedListener.class);
 
         private final ProductRepository productRepository;
+        private final StockEventPublisher stockEventPublisher;
+        private final ProcessedOrders processedOrders;
         private final Tracer tracer;
 
-        public OrderPlacedListener(ProductRepository productRepository, Tracer tracer) {
+        public OrderPlacedListener(ProductRepository productRepository,
+                        StockEventPublisher stockEventPublisher, ProcessedOrders processedOrders,
+                        Tracer tracer) {
                 this.productRepository = productRepository;
+                this.stockEventPublisher = stockEventPublisher;
+                this.processedOrders = processedOrders;
                 this.tracer = tracer;
         }
 
-        @KafkaListener(topics = "orders.events", groupId = "catalog-service",
-                        containerFactory = "kafkaListenerContainerFactory")
-        @Transactional
+        @KafkaHandler
         public void listen(OrderPlaced orderPlaced, @Header(KafkaHeaders.RECEIVED_KEY) String key,
                         @Headers Map<String, Object> headers) {
 
@@ -48,30 +68,48 @@ public class OrderPlacedListener {
                                         traceId, spanId, orderPlaced);
                         log.debug("Kafka Headers: {}", headers);
 
-                        productRepository.findById(orderPlaced.productId())
-                                        .ifPresentOrElse(product -> {
-                                                int originalStock = product.getStock();
-                                                int updatedStock = Math.max(0, originalStock
-                                                                - orderPlaced.quantity());
-                                                product.setStock(updatedStock);
-                                                productRepository.save(product);
+                        if (processedOrders.seen(orderPlaced.orderId(),
+                                        orderPlaced.productId())) {
+                                currentSpan.tag("order.duplicate", "memory");
+                                log.info("Skipping already applied order {} - TraceId: {}",
+                                                orderPlaced.orderId(), traceId);
+                                return;
+                        }
 
+                        // single atomic findAndModify (decrement + applied-orders window); no
+                        // read-modify-write race between consumers, no double decrement on redelivery
+                        productRepository.decrementStockOnce(orderPlaced.productId(),
+                                        orderPlaced.orderId(), orderPlaced.quantity())
+                                        .ifPresentOrElse(change -> {
+                                                if (change.duplicate()) {
+                                                        processedOrders.storeDuplicate();
+                                                        currentSpan.tag("order.duplicate", "store");
+                                                        log.info("Order {} already applied to product {} - TraceId: {}",
+                                                                        orderPlaced.orderId(),
+                                                                        change.productId(), traceId);
+                                                        return;
+                                                }
+                                                stockEventPublisher.publish(change.productId(),
+                                                                change.after(),
+                                                                List.of(orderPlaced.orderId()));
                                                 currentSpan.tag("stock.original",
-                                                                String.valueOf(originalStock))
+                                                                String.valueOf(change.before()))
                                                                 .tag("stock.updated", String
-                                                                                .valueOf(updatedStock))
+                                                                                .valueOf(change.after()))
                                                                 .tag("stock.change", String.valueOf(
-                                                                                originalStock - updatedStock));
+                                                                                change.delta()));
 
                                                 log.info("Stock updated for product {} - Original: {}, Updated: {}, TraceId: {}",
-                                                                product.getId(), originalStock,
-                                                                updatedStock, traceId);
+                                                                change.productId(), change.before(),
+                                                                change.after(), traceId);
                                         }, () -> {
                                                 currentSpan.tag("error", "product.not.found");
                                                 log.warn("Product {} not found for order {} - TraceId: {}",
                                                                 orderPlaced.productId(),
                                                                 orderPlaced.orderId(), traceId);
                                         });
+                        processedOrders.markProcessed(orderPlaced.orderId(),
+                                        orderPlaced.productId());
 
                 } catch (Exception e) {
                         currentSpan.tag("error", e.getClass().getSimpleName()).tag("error.message",
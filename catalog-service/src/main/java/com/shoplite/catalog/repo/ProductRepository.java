@@ -1,7 +1,39 @@
 package com.shoplite.catalog.repo;
 
 import com.shoplite.catalog.domain.Product;
+import java.util.List;
+import java.util.stream.Stream;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
 
-public interface ProductRepository extends MongoRepository<Product, String> {
+/**
+ * Listing reads leave out {@code appliedOrders}, the order-dedup window kept on each document by
+ * ProductRepositoryImpl (up to a few hundred KB on a hot product), so a listing costs what the API
+ * returns rather than what the write path remembers.
+ */
+public interface ProductRepository
+        extends MongoRepository<Product, String>, ProductStockOperations {
+
+    String LISTING_FIELDS = "{ 'appliedOrders': 0 }";
+
+    /**
+     * First keyset page, ordered by _id.
+     */
+    @Query(value = "{}", fields = LISTING_FIELDS, sort = "{ '_id': 1 }")
+    List<Product> findAllByOrderByIdAsc(Pageable pageable);
+
+    /**
+     * Next keyset page: products whose _id sorts after the given cursor. Uses the _id index, so
+     * the cost of a page does not grow with its position in the collection (unlike skip/offset).
+     */
+    @Query(value = "{ '_id': { '$gt': ?0 } }", fields = LISTING_FIELDS, sort = "{ '_id': 1 }")
+    List<Product> findByIdGreaterThanOrderByIdAsc(String after, Pageable pageable);
+
+    /**
+     * Backed by a live Mongo cursor; documents are fetched in driver-sized batches as the stream
+     * is consumed. Callers must close the stream.
+     */
+    @Query(value = "{}", fields = LISTING_FIELDS, sort = "{ '_id': 1 }")
+    Stream<Product> streamAllByOrderByIdAsc();
 }
@@ -0,0 +1,202 @@
+package com.shoplite.catalog.repo;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
+import com.mongodb.bulk.BulkWriteResult;
+import com.shoplite.catalog.domain.Product;
+import com.shoplite.catalog.domain.StockChange;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.BulkOperations.BulkMode;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.AggregationOperation;
+import org.springframework.data.mongodb.core.aggregation.AggregationUpdate;
+import org.springframework.data.mongodb.core.aggregation.ArithmeticOperators;
+import org.springframework.data.mongodb.core.aggregation.ComparisonOperators;
+import org.springframework.data.mongodb.core.aggregation.ConditionalOperators;
+import org.springframework.data.mongodb.core.query.Query;
+
+/**
+ * {@link ProductStockOperations} fragment picked up by Spring Data for {@link ProductRepository}.
+ *
+ * The idempotent variants keep, on each product document, {@code appliedOrders}: a 64-bit hash of
+ * each order id applied to it with the server time it was applied (about 30 bytes per entry).
+ * Entries older than {@code catalog.orders.dedup.horizon} are dropped on the next update, so the
+ * window follows each product's own throughput: a hot product remembers every order of the
+ * horizon, a cold one only a few. {@code catalog.orders.dedup.max-window} caps it to bound document
+ * size and update cost; a product taking more orders than that within the horizon only remembers
+ * the most recent max-window, and an older redelivery of it is applied again. Every update still
+ * rewrites the window and checks the orders against it on the server, so both are kept small; the
+ * single-record path reads back only the entry matching its order.
+ */
+class ProductRepositoryImpl implements ProductStockOperations {
+
+    private static final String APPLIED_ORDERS = "appliedOrders";
+    private static final String PENDING = "_pendingOrders";
+
+    private final MongoTemplate mongoTemplate;
+    private final long horizonMillis;
+    private final int maxWindow;
+
+    ProductRepositoryImpl(MongoTemplate mongoTemplate,
+            @Value("${catalog.orders.dedup.horizon:PT2M}") Duration horizon,
+            @Value("${catalog.orders.dedup.max-window:2000}") int maxWindow) {
+        this.mongoTemplate = mongoTemplate;
+        this.horizonMillis = horizon.toMillis();
+        this.maxWindow = maxWindow;
+    }
+
+    @Override
+    public Optional<StockChange> decrementStock(String productId, int quantity) {
+        Query query = Query.query(where("id").is(productId));
+        query.fields().include("stock");
+
+        Product before = mongoTemplate.findAndModify(query, flooredDecrement(quantity),
+                FindAndModifyOptions.options().returnNew(false), Product.class);
+        if (before == null) {
+            return Optional.empty();
+        }
+        int original = before.getStock();
+        return Optional.of(new StockChange(productId, original, Math.max(0, original - quantity)));
+    }
+
+    @Override
+    public Set<String> decrementStock(Map<String, Integer> quantitiesByProduct) {
+        if (quantitiesByProduct.isEmpty()) {
+            return Set.of();
+        }
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkMode.UNORDERED, Product.class);
+        quantitiesByProduct.forEach((productId, quantity) -> bulk.updateOne(
+                Query.query(where("id").is(productId)), flooredDecrement(quantity)));
+        BulkWriteResult result = bulk.execute();
+
+        if (result.getMatchedCount() == quantitiesByProduct.size()) {
+            return Set.of();
+        }
+        // rare path: work out which products were unknown with one extra id-only lookup
+        Query existing = Query.query(where("id").in(quantitiesByProduct.keySet()));
+        existing.fields().include("id");
+        Set<String> missing = new HashSet<>(quantitiesByProduct.keySet());
+        mongoTemplate.find(existing, Product.class).forEach(p -> missing.remove(p.getId()));
+        return missing;
+    }
+
+    @Override
+    public Optional<StockChange> decrementStockOnce(String productId, String orderId,
+            int quantity) {
+        // raw Document so the matching applied-orders entry comes back (only that one, not the
+        // whole window); id mapped as Spring Data does
+        long key = orderKey(orderId);
+        Object id = ObjectId.isValid(productId) ? new ObjectId(productId) : productId;
+        Query query = Query.query(where("_id").is(id));
+        query.fields().include("stock").elemMatch(APPLIED_ORDERS, where("o").is(key));
+
+        Document before = mongoTemplate.findAndModify(query,
+                decrementOnce(Map.of(orderId, quantity)),
+                FindAndModifyOptions.options().returnNew(false), Document.class,
+                mongoTemplate.getCollectionName(Product.class));
+        if (before == null) {
+            return Optional.empty();
+        }
+        int original = before.getInteger("stock", 0);
+        boolean duplicate = !before.getList(APPLIED_ORDERS, Document.class, List.of()).isEmpty();
+        return Optional.of(new StockChange(productId, original,
+                duplicate ? original : Math.max(0, original - quantity), duplicate));
+    }
+
+    @Override
+    public Set<String> decrementStockOnce(Map<String, Map<String, Integer>> ordersByProduct) {
+        if (ordersByProduct.isEmpty()) {
+            return Set.of();
+        }
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkMode.UNORDERED, Product.class);
+        ordersByProduct.forEach((productId, orders) -> bulk.updateOne(
+                Query.query(where("id").is(productId)), decrementOnce(orders)));
+        BulkWriteResult result = bulk.execute();
+
+        if (result.getMatchedCount() == ordersByProduct.size()) {
+            return Set.of();
+        }
+        Query existing = Query.query(where("id").in(ordersByProduct.keySet()));
+        existing.fields().include("id");
+        Set<String> missing = new HashSet<>(ordersByProduct.keySet());
+        mongoTemplate.find(existing, Product.class).forEach(p -> missing.remove(p.getId()));
+        return missing;
+    }
+
+    @Override
+    public Map<String, Integer> findStock(Collection<String> productIds) {
+        Query query = Query.query(where("id").in(productIds));
+        query.fields().include("stock");
+        Map<String, Integer> stock = new HashMap<>(productIds.size());
+        mongoTemplate.find(query, Product.class).forEach(p -> stock.put(p.getId(), p.getStock()));
+        return stock;
+    }
+
+    // pipeline update: stock = stock >= qty ? stock - qty : 0, evaluated on the server
+    private static AggregationUpdate flooredDecrement(int quantity) {
+        return AggregationUpdate.update().set("stock")
+                .toValue(ConditionalOperators
+                        .when(ComparisonOperators.valueOf("stock")
+                                .greaterThanEqualToValue(quantity))
+                        .thenValueOf(ArithmeticOperators.valueOf("stock").subtract(quantity))
+                        .otherwise(0));
+    }
+
+    /*
+     * pipeline update:
+     *   pending       = given orders whose key is not in appliedOrders.o
+     *   stock         = max(0, stock - sum(pending.q))
+     *   appliedOrders = last `maxWindow` of (appliedOrders newer than NOW - horizon)
+     *                   + {o: pending.o, t: NOW}
+     */
+    private AggregationUpdate decrementOnce(Map<String, Integer> quantityByOrder) {
+        List<Document> orders = quantityByOrder.entrySet().stream()
+                .map(order -> new Document("o", orderKey(order.getKey())).append("q",
+                        order.getValue()))
+                .toList();
+        Document applied = new Document("$ifNull", List.of("$" + APPLIED_ORDERS, List.of()));
+        Document appliedKeys =
+                new Document("$ifNull", List.of("$" + APPLIED_ORDERS + ".o", List.of()));
+        Document pending = new Document("$filter", new Document("input", orders).append("cond",
+                new Document("$not",
+                        List.of(new Document("$in", List.of("$$this.o", appliedKeys))))));
+        Document decremented = new Document("$max", List.of(0, new Document("$subtract",
+                List.of("$stock", new Document("$sum", "$" + PENDING + ".q")))));
+        Document recent = new Document("$filter", new Document("input", applied).append("cond",
+                new Document("$gte", List.of("$$this.t",
+                        new Document("$subtract", List.of("$$NOW", horizonMillis))))));
+        Document added = new Document("$map", new Document("input", "$" + PENDING).append("in",
+                new Document("o", "$$this.o").append("t", "$$NOW")));
+        Document window = new Document("$slice", List.of(
+                new Document("$concatArrays", List.of(recent, added)), -maxWindow));
+
+        return AggregationUpdate.from(List.<AggregationOperation>of(
+                context -> new Document("$set", new Document(PENDING, pending)),
+                context -> new Document("$set",
+                        new Document("stock", decremented).append(APPLIED_ORDERS, window)),
+                context -> new Document("$unset", PENDING)));
+    }
+
+    // FNV-1a 64 of the order id; collisions within one product's window are negligible
+    private static long orderKey(String orderId) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : orderId.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b & 0xff;
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+}
@@ -0,0 +1,54 @@
+package com.shoplite.catalog.repo;
+
+import com.shoplite.catalog.domain.StockChange;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Stock mutations executed server-side in Mongo, so concurrent consumers never read-modify-write a
+ * {@code Product}.
+ */
+public interface ProductStockOperations {
+
+    /**
+     * Atomically decrements {@code products.stock} by {@code quantity}, flooring at zero, in a
+     * single findAndModify round trip.
+     *
+     * @return before/after stock, or empty if the product does not exist
+     */
+    Optional<StockChange> decrementStock(String productId, int quantity);
+
+    /**
+     * Applies one floored decrement per product in a single unordered bulkWrite.
+     *
+     * @return ids of products that do not exist (their decrements were not applied)
+     */
+    Set<String> decrementStock(Map<String, Integer> quantitiesByProduct);
+
+    /**
+     * Idempotent {@link #decrementStock(String, int)} for one order line: if {@code orderId} is
+     * not yet in the product's applied-orders window, decrements (floored) and records it in the
+     * same findAndModify; a redelivered order leaves the product untouched.
+     *
+     * @return before/after stock (equal when the order was already applied or stock was 0), or
+     *         empty if the product does not exist
+     */
+    Optional<StockChange> decrementStockOnce(String productId, String orderId, int quantity);
+
+    /**
+     * Idempotent {@link #decrementStock(Map)}: for each product, sums the quantities of the orders
+     * not yet in its applied-orders window, applies them as one floored decrement and records the
+     * orders, in one update per product and a single unordered bulkWrite.
+     *
+     * @param ordersByProduct productId -> (orderId -> quantity)
+     * @return ids of products that do not exist (their decrements were not applied)
+     */
+    Set<String> decrementStockOnce(Map<String, Map<String, Integer>> ordersByProduct);
+
+    /**
+     * Current stock of the given products (id and stock only); unknown ids are absent.
+     */
+    Map<String, Integer> findStock(Collection<String> productIds);
+}
@@ -0,0 +1,31 @@
+package com.shoplite.catalog.repo;
+
+import com.shoplite.catalog.domain.Product;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.mongodb.repository.Query;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+import reactor.core.publisher.Flux;
+
+/**
+ * Non-blocking reads for the reactive web stack (see ReactiveProductController). Documents are
+ * pulled from the cursor on demand, so a slow client applies backpressure all the way to Mongo.
+ * Like ProductRepository's, these reads leave out the appliedOrders dedup window.
+ */
+public interface ReactiveProductRepository extends ReactiveMongoRepository<Product, String> {
+
+    @Query(value = "{}", fields = ProductRepository.LISTING_FIELDS, sort = "{ '_id': 1 }")
+    Flux<Product> findAllByOrderByIdAsc();
+
+    /**
+     * First keyset page, ordered by _id.
+     */
+    @Query(value = "{}", fields = ProductRepository.LISTING_FIELDS, sort = "{ '_id': 1 }")
+    Flux<Product> findAllByOrderByIdAsc(Pageable pageable);
+
+    /**
+     * Next keyset page: products whose _id sorts after the given cursor.
+     */
+    @Query(value = "{ '_id': { '$gt': ?0 } }", fields = ProductRepository.LISTING_FIELDS,
+            sort = "{ '_id': 1 }")
+    Flux<Product> findByIdGreaterThanOrderByIdAsc(String after, Pageable pageable);
+}
@@ -0,0 +1,323 @@
+package com.shoplite.catalog.service;
+
+import com.shoplite.catalog.domain.Product;
+import com.shoplite.catalog.domain.StockChange;
+import com.shoplite.catalog.repo.ProductRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+import org.apache.kafka.common.TopicPartition;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.kafka.listener.AbstractMessageListenerContainer;
+import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * In-memory inventory engine (catalog.inventory.engine.enabled=true).
+ *
+ * Stock lives in int segments (AtomicIntegerArray) addressed through a productId -> slot index and
+ * is decremented with CAS, floored at zero, so applying an OrderPlaced never touches Mongo. Each
+ * slot also accumulates the requested quantity not yet written back, and the engine keeps the
+ * orders behind it. A scheduled checkpoint drains those orders and writes them with one idempotent
+ * bulkWrite (ProductStockOperations#decrementStockOnce), then acknowledges the Kafka offsets the
+ * checkpoint covers and publishes the new stock naming the orders it includes. The checkpoint takes
+ * a brief write lock so the orders and offsets it captures are consistent with each other.
+ *
+ * Recovery: on startup the table is loaded from Mongo (which holds every checkpointed order) and
+ * Kafka redelivers everything after the last acknowledged offset. Events applied after the last
+ * checkpoint are therefore replayed, not lost, and events replayed after their checkpoint (a crash
+ * between the bulkWrite and the offset commit, or a partition that moved to another instance) are
+ * dropped by the products' applied-orders window. KafkaConsumerConfig also runs a checkpoint when
+ * partitions are revoked, so their acknowledgments are committed before the new owner starts.
+ *
+ * Shutdown: the final checkpoint runs in {@link #stop()}, in a lifecycle phase that stops before
+ * the listener containers, so its acknowledgments are still committed when the containers shut
+ * down. Checkpoints are skipped once stopped: deltas applied after that are neither written nor
+ * acknowledged and are replayed on restart.
+ */
+@Component
+@ConditionalOnProperty(name = "catalog.inventory.engine.enabled", havingValue = "true")
+public class InventoryEngine implements SmartLifecycle {
+
+    private static final Logger log = LoggerFactory.getLogger(InventoryEngine.class);
+
+    private static final int SEGMENT_BITS = 12;
+    private static final int SEGMENT_SIZE = 1 << SEGMENT_BITS;
+    private static final int SEGMENT_MASK = SEGMENT_SIZE - 1;
+
+    private final ConcurrentHashMap<String, Integer> slots = new ConcurrentHashMap<>();
+    private volatile AtomicIntegerArray[] stock = new AtomicIntegerArray[0];
+    private volatile AtomicIntegerArray[] pending = new AtomicIntegerArray[0];
+    private volatile String[][] ids = new String[0][];
+    private int size;
+
+    private final ConcurrentLinkedQueue<Integer> dirty = new ConcurrentLinkedQueue<>();
+    // productId -> (orderId -> quantity) applied in memory but not checkpointed yet
+    private final Map<String, Map<String, Integer>> pendingOrders = new ConcurrentHashMap<>();
+    private final Map<TopicPartition, Acknowledgment> pendingAcks = new ConcurrentHashMap<>();
+    private final ReentrantReadWriteLock checkpointLock = new ReentrantReadWriteLock();
+    // one checkpoint at a time (scheduled or on partition revocation)
+    private final ReentrantLock checkpointing = new ReentrantLock();
+    private volatile boolean running;
+
+    private final ProductRepository productRepository;
+    private final StockEventPublisher stockEventPublisher;
+    private final Timer checkpointTimer;
+
+    public InventoryEngine(ProductRepository productRepository,
+            StockEventPublisher stockEventPublisher, MeterRegistry meterRegistry) {
+        this.productRepository = productRepository;
+        this.stockEventPublisher = stockEventPublisher;
+        this.checkpointTimer = Timer.builder("catalog.inventory.checkpoint")
+                .register(meterRegistry);
+        Gauge.builder("catalog.inventory.products", slots, Map::size).register(meterRegistry);
+        Gauge.builder("catalog.inventory.dirty", dirty, ConcurrentLinkedQueue::size)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Loads the table from Mongo. Runs during bean initialisation, i.e. before listener containers
+     * start consuming.
+     */
+    @PostConstruct
+    void load() {
+        try (Stream<Product> products = productRepository.streamAllByOrderByIdAsc()) {
+            products.forEach(product -> register(product.getId(), product.getStock()));
+        }
+        log.info("Inventory engine loaded {} products", slots.size());
+    }
+
+    @Override
+    public void start() {
+        running = true;
+    }
+
+    /**
+     * Final checkpoint while the listener containers can still commit its acknowledgments.
+     */
+    @Override
+    public void stop() {
+        checkpoint();
+        running = false;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    // higher phase stops first: before the Kafka listener containers
+    @Override
+    public int getPhase() {
+        return AbstractMessageListenerContainer.DEFAULT_PHASE + 1;
+    }
+
+    /**
+     * Adds a product (e.g. just created) or overwrites its stock.
+     */
+    public void put(String productId, int value) {
+        int slot = register(productId, value);
+        stock[slot >>> SEGMENT_BITS].set(slot & SEGMENT_MASK, value);
+    }
+
+    /**
+     * Applies the decrements of one consumed order and remembers it and its offset for the next
+     * checkpoint.
+     *
+     * @return before/after stock per known product; unknown products are left out
+     */
+    public List<StockChange> apply(String orderId, Map<String, Integer> quantities,
+            TopicPartition partition, Acknowledgment acknowledgment) {
+        List<StockChange> changes = new ArrayList<>(quantities.size());
+        checkpointLock.readLock().lock();
+        try {
+            quantities.forEach((productId, quantity) -> {
+                int slot = slotOf(productId);
+                if (slot >= 0) {
+                    changes.add(decrement(slot, productId, quantity));
+                    pendingOrders.computeIfAbsent(productId, id -> new ConcurrentHashMap<>())
+                            .putIfAbsent(orderId, quantity);
+                }
+            });
+            if (acknowledgment != null) {
+                pendingAcks.put(partition, acknowledgment);
+            }
+        } finally {
+            checkpointLock.readLock().unlock();
+        }
+        return changes;
+    }
+
+    /**
+     * Writes pending orders to Mongo in one idempotent bulkWrite, then commits the covered Kafka
+     * offsets. Only a failed bulkWrite puts the orders back for the next run; once it succeeded,
+     * the re-base and stock events are best effort and never cause the orders to be written again.
+     * Also called on the consumer thread when partitions are revoked; a scheduled checkpoint in
+     * progress is waited for, so its acknowledgments are in before the offsets are committed.
+     */
+    @Scheduled(fixedDelayString = "${catalog.inventory.engine.flush-interval-ms:200}")
+    public void checkpoint() {
+        checkpointing.lock();
+        try {
+            if (running) {
+                runCheckpoint();
+            }
+        } finally {
+            checkpointing.unlock();
+        }
+    }
+
+    private void runCheckpoint() {
+        Map<String, Integer> deltas = new HashMap<>();
+        Map<String, Map<String, Integer>> orders = new HashMap<>();
+        Map<TopicPartition, Acknowledgment> acks;
+        checkpointLock.writeLock().lock();
+        try {
+            for (Integer slot; (slot = dirty.poll()) != null;) {
+                int delta = pending[slot >>> SEGMENT_BITS].getAndSet(slot & SEGMENT_MASK, 0);
+                String productId = idOf(slot);
+                if (delta > 0) {
+                    deltas.merge(productId, delta, Integer::sum);
+                }
+                Map<String, Integer> productOrders = pendingOrders.remove(productId);
+                if (productOrders != null) {
+                    orders.put(productId, productOrders);
+                }
+            }
+            acks = new HashMap<>(pendingAcks);
+            pendingAcks.clear();
+        } finally {
+            checkpointLock.writeLock().unlock();
+        }
+        if (orders.isEmpty() && acks.isEmpty()) {
+            return;
+        }
+
+        try {
+            checkpointTimer.record(() -> write(orders));
+        } catch (RuntimeException e) {
+            log.warn("Inventory checkpoint of {} products failed, will retry: {}", orders.size(),
+                    e.toString());
+            orders.forEach((productId, productOrders) -> productOrders.forEach(
+                    (orderId, quantity) -> pendingOrders
+                            .computeIfAbsent(productId, id -> new ConcurrentHashMap<>())
+                            .putIfAbsent(orderId, quantity)));
+            deltas.forEach((productId, delta) -> addPending(slots.get(productId), delta));
+            acks.forEach(pendingAcks::putIfAbsent);
+            return;
+        }
+        acks.values().forEach(Acknowledgment::acknowledge);
+
+        try {
+            rebaseAndPublish(orders);
+        } catch (RuntimeException e) {
+            // orders are in Mongo; the table is re-based on the next checkpoint of these products
+            log.warn("Inventory re-base of {} products failed: {}", orders.size(), e.toString());
+        }
+    }
+
+    private void write(Map<String, Map<String, Integer>> orders) {
+        if (orders.isEmpty()) {
+            return;
+        }
+        Set<String> missing = productRepository.decrementStockOnce(orders);
+        if (!missing.isEmpty()) {
+            log.warn("Inventory checkpoint skipped unknown products {}", missing);
+        }
+    }
+
+    // re-base on Mongo (other writers may have changed it, replays were not applied twice),
+    // keeping unflushed local deltas, and publish naming the orders each value includes
+    private void rebaseAndPublish(Map<String, Map<String, Integer>> orders) {
+        if (orders.isEmpty()) {
+            return;
+        }
+        Map<String, Integer> current = productRepository.findStock(orders.keySet());
+        current.forEach((productId, value) -> {
+            int slot = slots.get(productId);
+            int unflushed = pending[slot >>> SEGMENT_BITS].get(slot & SEGMENT_MASK);
+            stock[slot >>> SEGMENT_BITS].set(slot & SEGMENT_MASK, Math.max(0, value - unflushed));
+        });
+        Map<String, Set<String>> orderIds = new HashMap<>();
+        orders.forEach((productId, productOrders) -> orderIds.put(productId,
+                productOrders.keySet()));
+        stockEventPublisher.publish(current, orderIds);
+    }
+
+    private StockChange decrement(int slot, String productId, int quantity) {
+        AtomicIntegerArray segment = stock[slot >>> SEGMENT_BITS];
+        int index = slot & SEGMENT_MASK;
+        int before;
+        int after;
+        do {
+            before = segment.get(index);
+            after = Math.max(0, before - quantity);
+        } while (!segment.compareAndSet(index, before, after));
+        addPending(slot, quantity);
+        return new StockChange(productId, before, after);
+    }
+
+    private void addPending(int slot, int quantity) {
+        if (pending[slot >>> SEGMENT_BITS].getAndAdd(slot & SEGMENT_MASK, quantity) == 0) {
+            dirty.add(slot);
+        }
+    }
+
+    private int slotOf(String productId) {
+        Integer slot = slots.get(productId);
+        if (slot != null) {
+            return slot;
+        }
+        // created elsewhere since load: pull it in once
+        Integer value = productRepository.findStock(List.of(productId)).get(productId);
+        return value == null ? -1 : register(productId, value);
+    }
+
+    private String idOf(int slot) {
+        return ids[slot >>> SEGMENT_BITS][slot & SEGMENT_MASK];
+    }
+
+    // slow path, only for products the engine has not seen yet
+    private synchronized int register(String productId, int value) {
+        Integer existing = slots.get(productId);
+        if (existing != null) {
+            return existing;
+        }
+        int slot = size++;
+        int segment = slot >>> SEGMENT_BITS;
+        if (segment == stock.length) {
+            stock = grow(stock);
+            pending = grow(pending);
+            String[][] grownIds = Arrays.copyOf(ids, segment + 1);
+            grownIds[segment] = new String[SEGMENT_SIZE];
+            ids = grownIds;
+        }
+        stock[segment].set(slot & SEGMENT_MASK, value);
+        ids[segment][slot & SEGMENT_MASK] = productId;
+        slots.put(productId, slot);
+        return slot;
+    }
+
+    private static AtomicIntegerArray[] grow(AtomicIntegerArray[] segments) {
+        AtomicIntegerArray[] grown = Arrays.copyOf(segments, segments.length + 1);
+        grown[segments.length] = new AtomicIntegerArray(SEGMENT_SIZE);
+        return grown;
+    }
+}
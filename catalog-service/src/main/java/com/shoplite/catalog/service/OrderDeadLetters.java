@@ -0,0 +1,231 @@
+package com.shoplite.catalog.service;
+
+import com.shoplite.orders.events.OrderEventCodec;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.KafkaConsumer;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.serialization.ByteArrayDeserializer;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.apache.kafka.common.serialization.Serializer;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.core.ProducerFactory;
+import org.springframework.kafka.support.KafkaHeaders;
+import org.springframework.kafka.support.serializer.DelegatingByTypeSerializer;
+import org.springframework.kafka.support.serializer.JsonSerializer;
+import org.springframework.stereotype.Service;
+
+/**
+ * Dead letters of orders.events (orders.events-dlt): the publishing side for the retry topics and
+ * the read/replay side for the admin endpoint.
+ *
+ * The template serializes byte[] values as-is and everything else as JSON, so events that failed
+ * in the listener are dead-lettered as JSON order events and records that could not be
+ * deserialized keep their original bytes. Reads use a short-lived consumer assigned to the DLT
+ * partitions (no consumer group, nothing committed); replay republishes the stored bytes and
+ * headers, minus the dead-letter and retry headers, to orders.events.
+ */
+@Service
+@ConditionalOnExpression("${catalog.orders.retry.enabled:true} && !${catalog.orders.batch.enabled:false} && !${catalog.inventory.engine.enabled:false}")
+public class OrderDeadLetters implements DisposableBean {
+
+    public static final String ORDERS_TOPIC = "orders.events";
+    public static final String DLT_TOPIC = ORDERS_TOPIC + "-dlt";
+
+    private static final Logger log = LoggerFactory.getLogger(OrderDeadLetters.class);
+    private static final Duration POLL_TIMEOUT = Duration.ofMillis(500);
+    private static final Duration READ_TIMEOUT = Duration.ofSeconds(10);
+    private static final List<String> DROPPED_HEADER_PREFIXES =
+            List.of("kafka_dlt-", "retry_topic-", "springDeserializerException");
+
+    private final DefaultKafkaProducerFactory<String, Object> producerFactory;
+    private final KafkaTemplate<String, Object> template;
+    private final Map<String, Object> consumerConfigs;
+
+    public OrderDeadLetters(ProducerFactory<?, ?> producerFactory,
+            ConsumerFactory<?, ?> consumerFactory) {
+        Map<Class<?>, Serializer<?>> serializers = new LinkedHashMap<>();
+        serializers.put(byte[].class, new ByteArraySerializer());
+        serializers.put(Object.class, new JsonSerializer<>());
+        this.producerFactory = new DefaultKafkaProducerFactory<>(
+                producerFactory.getConfigurationProperties(), new StringSerializer(),
+                new DelegatingByTypeSerializer(serializers, true));
+        this.template = new KafkaTemplate<>(this.producerFactory);
+
+        Map<String, Object> configs = new HashMap<>(consumerFactory.getConfigurationProperties());
+        configs.remove(ConsumerConfig.GROUP_ID_CONFIG);
+        configs.remove(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG);
+        configs.remove(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG);
+        configs.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, false);
+        configs.put(ConsumerConfig.CLIENT_ID_CONFIG, "catalog-dlt-admin");
+        this.consumerConfigs = configs;
+    }
+
+    /**
+     * Template used by the retry topics to forward failed events to the next retry topic and,
+     * finally, to the DLT.
+     */
+    public KafkaTemplate<String, Object> template() {
+        return template;
+    }
+
+    /**
+     * The most recent dead letters, newest first: up to {@code limit} from the tail of each DLT
+     * partition, merged and cut to {@code limit}.
+     */
+    public List<Entry> recent(int limit) {
+        try (Consumer<String, byte[]> consumer = newConsumer()) {
+            List<TopicPartition> partitions = consumer.partitionsFor(DLT_TOPIC).stream()
+                    .map(info -> new TopicPartition(info.topic(), info.partition())).toList();
+            if (partitions.isEmpty()) {
+                return List.of();
+            }
+            consumer.assign(partitions);
+            Map<TopicPartition, Long> beginning = consumer.beginningOffsets(partitions);
+            Map<TopicPartition, Long> end = consumer.endOffsets(partitions);
+            Set<TopicPartition> pending = new HashSet<>();
+            for (TopicPartition partition : partitions) {
+                long from = Math.max(beginning.get(partition), end.get(partition) - limit);
+                consumer.seek(partition, from);
+                if (from < end.get(partition)) {
+                    pending.add(partition);
+                }
+            }
+
+            List<Entry> entries = new ArrayList<>();
+            long deadline = System.nanoTime() + READ_TIMEOUT.toNanos();
+            while (!pending.isEmpty() && System.nanoTime() < deadline) {
+                for (ConsumerRecord<String, byte[]> record : consumer.poll(POLL_TIMEOUT)) {
+                    entries.add(toEntry(record));
+                }
+                pending.removeIf(partition -> consumer.position(partition) >= end.get(partition));
+            }
+            return entries.stream().sorted(Comparator.comparing(Entry::timestamp).reversed())
+                    .limit(limit).toList();
+        }
+    }
+
+    /**
+     * Republishes the dead letter at {@code partition}/{@code offset} to orders.events. Empty if
+     * there is no such record.
+     */
+    public Optional<Replayed> replay(int partition, long offset) throws Exception {
+        ConsumerRecord<String, byte[]> record =
+                read(new TopicPartition(DLT_TOPIC, partition), offset);
+        if (record == null) {
+            return Optional.empty();
+        }
+        ProducerRecord<String, Object> replay = new ProducerRecord<>(ORDERS_TOPIC, null,
+                record.key(), record.value(), replayHeaders(record.headers()));
+        var metadata = template.send(replay).get(READ_TIMEOUT.toMillis(), TimeUnit.MILLISECONDS)
+                .getRecordMetadata();
+        log.info("Replayed dead letter {}-{}@{} (key {}) to {}-{}@{}", DLT_TOPIC, partition,
+                offset, record.key(), metadata.topic(), metadata.partition(), metadata.offset());
+        return Optional.of(new Replayed(metadata.topic(), metadata.partition(), metadata.offset()));
+    }
+
+    private ConsumerRecord<String, byte[]> read(TopicPartition partition, long offset) {
+        try (Consumer<String, byte[]> consumer = newConsumer()) {
+            consumer.assign(List.of(partition));
+            long end = consumer.endOffsets(List.of(partition)).get(partition);
+            if (offset < consumer.beginningOffsets(List.of(partition)).get(partition)
+                    || offset >= end) {
+                return null;
+            }
+            consumer.seek(partition, offset);
+            long deadline = System.nanoTime() + READ_TIMEOUT.toNanos();
+            while (System.nanoTime() < deadline) {
+                for (ConsumerRecord<String, byte[]> record : consumer.poll(POLL_TIMEOUT)) {
+                    if (record.offset() == offset) {
+                        return record;
+                    }
+                    if (record.offset() > offset) {
+                        return null; // compacted or transaction marker
+                    }
+                }
+            }
+            return null;
+        }
+    }
+
+    private Consumer<String, byte[]> newConsumer() {
+        return new KafkaConsumer<>(consumerConfigs, new StringDeserializer(),
+                new ByteArrayDeserializer());
+    }
+
+    private static Iterable<Header> replayHeaders(Headers headers) {
+        List<Header> kept = new ArrayList<>();
+        for (Header header : headers) {
+            if (DROPPED_HEADER_PREFIXES.stream().noneMatch(header.key()::startsWith)) {
+                kept.add(header);
+            }
+        }
+        return kept;
+    }
+
+    private static Entry toEntry(ConsumerRecord<String, byte[]> record) {
+        return new Entry(record.partition(), record.offset(),
+                Instant.ofEpochMilli(record.timestamp()), record.key(),
+                header(record.headers(), KafkaHeaders.DLT_EXCEPTION_FQCN),
+                header(record.headers(), KafkaHeaders.DLT_EXCEPTION_MESSAGE),
+                payload(record.value()));
+    }
+
+    private static String header(Headers headers, String name) {
+        Header header = headers.lastHeader(name);
+        return header == null ? null : new String(header.value(), StandardCharsets.UTF_8);
+    }
+
+    // JSON as text, binary order events decoded, anything else base64
+    private static String payload(byte[] value) {
+        if (value == null) {
+            return null;
+        }
+        if (OrderEventCodec.isBinary(value)) {
+            try {
+                return String.valueOf(OrderEventCodec.decode(value));
+            } catch (IllegalArgumentException e) {
+                return "base64:" + Base64.getEncoder().encodeToString(value);
+            }
+        }
+        return new String(value, StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public void destroy() {
+        producerFactory.destroy();
+    }
+
+    public record Entry(int partition, long offset, Instant timestamp, String key,
+            String exception, String message, String payload) {
+    }
+
+    public record Replayed(String topic, int partition, long offset) {
+    }
+}
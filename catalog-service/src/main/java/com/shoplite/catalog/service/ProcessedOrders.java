@@ -0,0 +1,65 @@
+package com.shoplite.catalog.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * In-memory filter of (order, product) pairs this instance has already applied to stock. Keyed
+ * per product because a checkout reaches catalog as one OrderPlaced per product, all sharing the
+ * order id.
+ *
+ * Checked before touching Mongo so redeliveries to the same instance (seek after an error, a lost
+ * async commit) are dropped without a round trip. Bounded by size and age; an id that has aged out,
+ * or was applied by another instance before a rebalance, is still caught by the applied-orders
+ * window written with the stock update (ProductStockOperations#decrementStockOnce). Ids are only
+ * marked after that write succeeded. Dropped duplicates are counted as
+ * catalog.orders.duplicates{source=memory|store}.
+ */
+@Component
+public class ProcessedOrders {
+
+    private final Cache<String, Boolean> processed;
+    private final Counter memoryDuplicates;
+    private final Counter storeDuplicates;
+
+    public ProcessedOrders(MeterRegistry meterRegistry,
+            @Value("${catalog.orders.dedup.max-entries:100000}") long maxEntries,
+            @Value("${catalog.orders.dedup.ttl:PT10M}") Duration ttl) {
+        this.processed = Caffeine.newBuilder().maximumSize(maxEntries).expireAfterWrite(ttl).build();
+        this.memoryDuplicates = Counter.builder("catalog.orders.duplicates").tag("source", "memory")
+                .register(meterRegistry);
+        this.storeDuplicates = Counter.builder("catalog.orders.duplicates").tag("source", "store")
+                .register(meterRegistry);
+    }
+
+    /**
+     * True (and counted) if this instance already applied {@code orderId} to {@code productId}.
+     */
+    public boolean seen(String orderId, String productId) {
+        if (processed.getIfPresent(key(orderId, productId)) != null) {
+            memoryDuplicates.increment();
+            return true;
+        }
+        return false;
+    }
+
+    public void markProcessed(String orderId, String productId) {
+        processed.put(key(orderId, productId), Boolean.TRUE);
+    }
+
+    private static String key(String orderId, String productId) {
+        return orderId + '/' + productId;
+    }
+
+    /**
+     * Counts a redelivery detected by the durable applied-orders window.
+     */
+    public void storeDuplicate() {
+        storeDuplicates.increment();
+    }
+}
@@ -0,0 +1,173 @@
+package com.shoplite.catalog.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.shoplite.catalog.api.dto.ProductPage;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import java.time.Duration;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ETag;
+import org.springframework.stereotype.Component;
+
+/**
+ * Versioned read cache for product listings.
+ *
+ * Every stock or catalog change is published to catalog.stock, so the listings are a function of
+ * how far into that topic the catalog has got. The ETag names those positions (next offset per
+ * partition), which makes it the same on every instance that has read the same changes, and after a
+ * restart: an If-None-Match from a client that was served by another instance still gets 304
+ * without touching Mongo. Positions advance when this instance's own publishes are acknowledged
+ * (StockEventPublisher) and when another instance's changes are read back
+ * (CatalogCacheInvalidationListener); each advance bumps a local version that cached responses are
+ * keyed by, so a change makes all of them unreachable at once. Until the partitions are assigned,
+ * and while a local publish is unacknowledged, nothing is answered with 304 or served from cache.
+ * Entries are bounded by total weight (bytes) and TTL. Hit/miss/eviction counts are exported as
+ * cache.* metrics with cache=products.
+ *
+ * Listing responses carry {@link #cacheControl()}: clients revalidate on every use (max-age=0 with
+ * the ETag), while shared caches, i.e. the gateway's ResponseCache, may reuse a response for
+ * shared-max-age without asking.
+ */
+@Component
+public class ProductReadCache {
+
+    private static final int PAGE_ITEM_WEIGHT = 128;
+
+    // catalog.stock partition -> next offset; guarded by this
+    private final Map<Integer, Long> positions = new TreeMap<>();
+    private final AtomicInteger unpublished = new AtomicInteger();
+    private volatile Snapshot current = new Snapshot(0, etag(positions));
+    private volatile boolean positioned;
+    private final Cache<String, Object> cache;
+    private final boolean enabled;
+    private final int maxEntryBytes;
+    private final CacheControl cacheControl;
+
+    public record Snapshot(long version, String etag) {
+    }
+
+    public ProductReadCache(MeterRegistry meterRegistry,
+            @Value("${catalog.cache.enabled:true}") boolean enabled,
+            @Value("${catalog.cache.max-weight-bytes:33554432}") long maxWeightBytes,
+            @Value("${catalog.cache.max-entry-bytes:8388608}") int maxEntryBytes,
+            @Value("${catalog.cache.ttl:PT5M}") Duration ttl,
+            @Value("${catalog.cache.shared-max-age:PT2S}") Duration sharedMaxAge) {
+        this.enabled = enabled;
+        this.maxEntryBytes = maxEntryBytes;
+        this.cacheControl = CacheControl.maxAge(Duration.ZERO).mustRevalidate()
+                .sMaxAge(sharedMaxAge);
+        this.cache = Caffeine.newBuilder().maximumWeight(maxWeightBytes)
+                .weigher((String key, Object value) -> weigh(value)).expireAfterWrite(ttl)
+                .recordStats().build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "products");
+        Gauge.builder("catalog.cache.version", this, readCache -> readCache.current.version())
+                .register(meterRegistry);
+    }
+
+    public Snapshot snapshot() {
+        return current;
+    }
+
+    /**
+     * True if the client's If-None-Match already names the current catalog.stock positions: one of
+     * its entity-tags equals the ETag (weak comparison, so W/ tags match too) or it is *.
+     */
+    public boolean notModified(String ifNoneMatch, Snapshot snapshot) {
+        if (!settled() || ifNoneMatch == null) {
+            return false;
+        }
+        ETag current = ETag.create(snapshot.etag());
+        return ETag.parse(ifNoneMatch).stream()
+                .anyMatch(tag -> tag.isWildcard() || tag.compare(current, false));
+    }
+
+    public <T> T get(Snapshot snapshot, String key, Class<T> type) {
+        if (!settled()) {
+            return null;
+        }
+        Object value = cache.getIfPresent(snapshot.version() + ":" + key);
+        return type.isInstance(value) ? type.cast(value) : null;
+    }
+
+    public void put(Snapshot snapshot, String key, Object value) {
+        if (settled() && snapshot.version() == current.version()) {
+            cache.put(snapshot.version() + ":" + key, value);
+        }
+    }
+
+    /**
+     * Cache-Control for listing responses (and their 304s).
+     */
+    public CacheControl cacheControl() {
+        return cacheControl;
+    }
+
+    /**
+     * Largest serialized listing worth keeping; bigger ones are streamed uncached.
+     */
+    public int maxEntryBytes() {
+        return enabled ? maxEntryBytes : 0;
+    }
+
+    /**
+     * A batch of local changes is being published: listings are read from Mongo until
+     * {@link #published} reports where the batch landed.
+     */
+    public void publishing() {
+        unpublished.incrementAndGet();
+    }
+
+    /**
+     * The batch announced by {@link #publishing} was acknowledged at {@code next} (partition ->
+     * next offset; partitions whose send failed are left out).
+     */
+    public void published(Map<Integer, Long> next) {
+        advance(next);
+        unpublished.decrementAndGet();
+    }
+
+    /**
+     * Moves the catalog.stock positions forward (partition -> next offset), invalidating all cached
+     * listings once if any of them moved.
+     */
+    public synchronized void advance(Map<Integer, Long> next) {
+        boolean moved = false;
+        for (var position : next.entrySet()) {
+            Long previous = positions.get(position.getKey());
+            if (previous == null || position.getValue() > previous) {
+                positions.put(position.getKey(), position.getValue());
+                moved = true;
+            }
+        }
+        if (moved) {
+            current = new Snapshot(current.version() + 1, etag(positions));
+            positioned = true;
+            cache.invalidateAll();
+        }
+    }
+
+    private boolean settled() {
+        return enabled && positioned && unpublished.get() == 0;
+    }
+
+    private static String etag(Map<Integer, Long> positions) {
+        StringBuilder etag = new StringBuilder("\"stock");
+        positions.forEach((partition, offset) ->
+                etag.append('-').append(partition).append('.').append(offset));
+        return etag.append('"').toString();
+    }
+
+    private static int weigh(Object value) {
+        return switch (value) {
+            case byte[] bytes -> bytes.length;
+            case ProductPage page -> (page.items().size() + 1) * PAGE_ITEM_WEIGHT;
+            default -> PAGE_ITEM_WEIGHT;
+        };
+    }
+}
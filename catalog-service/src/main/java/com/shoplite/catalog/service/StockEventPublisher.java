@@ -0,0 +1,93 @@
+package com.shoplite.catalog.service;
+
+import com.shoplite.catalog.events.StockChanged;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import org.apache.kafka.clients.producer.RecordMetadata;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Publishes the latest stock of a product to the compacted catalog.stock topic, keyed by product
+ * id. Sends are fire-and-forget: the next change for the same product supersedes a lost one, so
+ * stock updates never wait on the broker. Every stock mutation goes through here, so this is also
+ * where the local ProductReadCache learns about this instance's changes: it stops serving cached
+ * listings when a batch is sent and moves to the batch's catalog.stock offsets once it is acked.
+ */
+@Component
+public class StockEventPublisher {
+
+    private static final Logger log = LoggerFactory.getLogger(StockEventPublisher.class);
+
+    private final KafkaTemplate<String, Object> kafkaTemplate;
+    private final ProductReadCache productReadCache;
+    private final String topic;
+
+    public StockEventPublisher(KafkaTemplate<String, Object> kafkaTemplate,
+            ProductReadCache productReadCache,
+            @Value("${catalog.stock.topic:catalog.stock}") String topic) {
+        this.kafkaTemplate = kafkaTemplate;
+        this.productReadCache = productReadCache;
+        this.topic = topic;
+    }
+
+    public void publish(String productId, int stock) {
+        publish(Map.of(productId, stock));
+    }
+
+    /**
+     * Publishes a stock value that includes the decrements of {@code orderIds}.
+     */
+    public void publish(String productId, int stock, Collection<String> orderIds) {
+        publish(Map.of(productId, stock), Map.of(productId, orderIds));
+    }
+
+    public void publish(Map<String, Integer> stockByProduct) {
+        publish(stockByProduct, Map.of());
+    }
+
+    /**
+     * Publishes several products; {@code orderIdsByProduct} names the orders each value includes.
+     * The whole batch moves the ProductReadCache forward once, when its last send completes.
+     */
+    public void publish(Map<String, Integer> stockByProduct,
+            Map<String, ? extends Collection<String>> orderIdsByProduct) {
+        if (stockByProduct.isEmpty()) {
+            return;
+        }
+        productReadCache.publishing();
+        Map<Integer, Long> positions = new ConcurrentHashMap<>();
+        List<CompletableFuture<?>> sends = new ArrayList<>();
+        try {
+            stockByProduct.forEach((productId, stock) -> sends.add(
+                    send(productId, stock, orderIdsByProduct.get(productId), positions)));
+        } finally {
+            // also when a send throws, so the cache is not left waiting for this batch
+            CompletableFuture.allOf(sends.toArray(CompletableFuture[]::new))
+                    .whenComplete((ignored, ex) -> productReadCache.published(positions));
+        }
+    }
+
+    private CompletableFuture<?> send(String productId, int stock, Collection<String> orderIds,
+            Map<Integer, Long> positions) {
+        var stockChanged = new StockChanged(productId, stock,
+                orderIds == null ? List.of() : List.copyOf(orderIds));
+        return kafkaTemplate.send(topic, productId, stockChanged)
+                .whenComplete((result, ex) -> {
+                    if (ex != null) {
+                        log.warn("Failed to publish stock {} for product {}: {}", stock,
+                                productId, ex.toString());
+                    } else {
+                        RecordMetadata metadata = result.getRecordMetadata();
+                        positions.merge(metadata.partition(), metadata.offset() + 1, Math::max);
+                    }
+                });
+    }
+}
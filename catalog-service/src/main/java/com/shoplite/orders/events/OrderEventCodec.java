@@ -0,0 +1,86 @@
+package com.shoplite.orders.events;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Decoder for order-service's compact binary OrderEvent format (format version 1).
+ *
+ * Layout: MAGIC, VERSION, type tag, then the fields in declaration order. Strings are a varint
+ * byte length followed by UTF-8; ints are unsigned varints. Type tags: 1 = OrderPlaced(orderId,
+ * productId, quantity), 3 = OrderRejected(reason). Tag 2 (the multi-product CartOrderPlaced) is
+ * retired and rejected like any unknown type.
+ *
+ * MAGIC (0xC5) can never start a JSON document, so consumers tell binary records from JSON ones by
+ * the first byte and both formats can be on the topic during a rollout. Fields are only ever
+ * appended in a new VERSION; decoders reject versions they do not know. The encoder lives in
+ * order-service's copy of this package; keep the two in step. OrderRejected (tag 3) is never
+ * published and is not decoded here.
+ */
+public final class OrderEventCodec {
+
+    public static final byte MAGIC = (byte) 0xC5;
+    public static final byte VERSION = 1;
+
+    private static final byte ORDER_PLACED = 1;
+
+    private OrderEventCodec() {
+    }
+
+    public static boolean isBinary(byte[] data) {
+        return data != null && data.length > 0 && data[0] == MAGIC;
+    }
+
+    public static Object decode(byte[] data) {
+        Reader in = new Reader(data);
+        if (in.readByte() != MAGIC) {
+            throw new IllegalArgumentException("Not a binary order event");
+        }
+        byte version = in.readByte();
+        if (version != VERSION) {
+            throw new IllegalArgumentException("Unsupported order event version " + version);
+        }
+        byte type = in.readByte();
+        return switch (type) {
+            case ORDER_PLACED -> new OrderPlaced(in.readString(), in.readString(), in.readVarint());
+            default -> throw new IllegalArgumentException("Unknown order event type " + type);
+        };
+    }
+
+    private static final class Reader {
+        private final byte[] data;
+        private int position;
+
+        Reader(byte[] data) {
+            this.data = data;
+        }
+
+        byte readByte() {
+            if (position >= data.length) {
+                throw new IllegalArgumentException("Truncated order event");
+            }
+            return data[position++];
+        }
+
+        int readVarint() {
+            int value = 0;
+            for (int shift = 0; shift < 32; shift += 7) {
+                byte b = readByte();
+                value |= (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new IllegalArgumentException("Malformed varint");
+        }
+
+        String readString() {
+            int length = readVarint();
+            if (length < 0 || length > data.length - position) {
+                throw new IllegalArgumentException("Truncated order event");
+            }
+            String value = new String(data, position, length, StandardCharsets.UTF_8);
+            position += length;
+            return value;
+        }
+    }
+}
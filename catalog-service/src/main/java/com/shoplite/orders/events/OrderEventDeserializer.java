@@ -0,0 +1,45 @@
+package com.shoplite.orders.events;
+
+import java.util.Map;
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.serialization.Deserializer;
+import org.springframework.kafka.support.serializer.JsonDeserializer;
+
+/**
+ * Kafka value deserializer accepting both order event formats: records starting with
+ * OrderEventCodec.MAGIC are decoded as binary, everything else (JSON order events, StockChanged)
+ * goes to Spring's JsonDeserializer configured from the usual spring.json.* properties.
+ */
+public class OrderEventDeserializer implements Deserializer<Object> {
+
+    private final JsonDeserializer<Object> json = new JsonDeserializer<>();
+
+    @Override
+    public void configure(Map<String, ?> configs, boolean isKey) {
+        json.configure(configs, isKey);
+    }
+
+    @Override
+    public Object deserialize(String topic, byte[] data) {
+        return deserialize(topic, null, data);
+    }
+
+    @Override
+    public Object deserialize(String topic, Headers headers, byte[] data) {
+        if (OrderEventCodec.isBinary(data)) {
+            try {
+                return OrderEventCodec.decode(data);
+            } catch (IllegalArgumentException e) {
+                throw new SerializationException("Cannot decode order event on " + topic, e);
+            }
+        }
+        return headers == null ? json.deserialize(topic, data)
+                : json.deserialize(topic, headers, data);
+    }
+
+    @Override
+    public void close() {
+        json.close();
+    }
+}
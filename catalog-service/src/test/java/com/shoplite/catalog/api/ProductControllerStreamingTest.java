@@ -0,0 +1,111 @@
+package com.shoplite.catalog.api;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.shoplite.catalog.domain.Product;
+import com.shoplite.catalog.repo.ProductRepository;
+import com.shoplite.catalog.service.ProductReadCache;
+import com.shoplite.catalog.service.StockEventPublisher;
+import io.micrometer.tracing.Tracer;
+import java.io.OutputStream;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.http.CacheControl;
+import org.springframework.test.util.ReflectionTestUtils;
+
+class ProductControllerStreamingTest {
+
+    private static final int PRODUCTS = 100_000;
+    // Jackson's output buffer is 8000 bytes; allow one more element on top of it
+    private static final long MAX_BUFFERED_BYTES = 8_000 + 128;
+
+    private final ProductRepository productRepository = mock(ProductRepository.class);
+    private final ProductReadCache productReadCache = mock(ProductReadCache.class);
+    @SuppressWarnings("unchecked")
+    private final ProductController controller = new ProductController(productRepository,
+            mock(StockEventPublisher.class), mock(ObjectProvider.class), productReadCache,
+            new ObjectMapper(), Tracer.NOOP);
+
+    private final CountingOutputStream out = new CountingOutputStream();
+    private final AtomicBoolean closed = new AtomicBoolean();
+    private long elementBytes;
+    private long maxBuffered;
+
+    @BeforeEach
+    void cacheControl() {
+        when(productReadCache.cacheControl()).thenReturn(CacheControl.noCache());
+    }
+
+    @Test
+    void writesTheJsonArrayAsProductsArrive() throws Exception {
+        when(productReadCache.snapshot()).thenReturn(new ProductReadCache.Snapshot(1, "\"1\""));
+        when(productRepository.streamAllByOrderByIdAsc()).thenReturn(products());
+
+        controller.fetchAllProducts(null).getBody().writeTo(out);
+
+        // every product has the same encoded size, so each one's share of the output is exact
+        assertThat(out.count).isEqualTo(2 + PRODUCTS * elementBytes - 1);
+        assertThat(maxBuffered).isLessThanOrEqualTo(MAX_BUFFERED_BYTES);
+        assertThat(closed).isTrue();
+    }
+
+    @Test
+    void writesNdjsonAsProductsArrive() throws Exception {
+        when(productReadCache.snapshot()).thenReturn(new ProductReadCache.Snapshot(1, "\"1\""));
+        when(productRepository.streamAllByOrderByIdAsc()).thenReturn(products());
+
+        controller.streamAllProducts(null).getBody().writeTo(out);
+
+        assertThat(out.count).isEqualTo(PRODUCTS * elementBytes);
+        assertThat(maxBuffered).isLessThanOrEqualTo(MAX_BUFFERED_BYTES);
+        assertThat(closed).isTrue();
+    }
+
+    @Test
+    void servesCachedListingWithoutReadingTheDatabase() throws Exception {
+        var snapshot = new ProductReadCache.Snapshot(1, "\"1\"");
+        when(productReadCache.snapshot()).thenReturn(snapshot);
+        when(productReadCache.get(any(), any(), any())).thenReturn("[]".getBytes());
+
+        controller.fetchAllProducts(null).getBody().writeTo(out);
+
+        assertThat(out.count).isEqualTo(2);
+        assertThat(closed).isFalse();
+    }
+
+    /**
+     * A lazily generated catalog that, each time a product is pulled, checks how much of what was
+     * pulled so far has not reached the response yet.
+     */
+    private Stream<Product> products() {
+        elementBytes = "{\"id\":\"p00000000\",\"name\":\"product-00000000\",\"stock\":5},".length();
+        return IntStream.range(0, PRODUCTS).mapToObj(i -> {
+            maxBuffered = Math.max(maxBuffered, i * elementBytes - out.count);
+            Product product = new Product("product-%08d".formatted(i), 5);
+            ReflectionTestUtils.setField(product, "id", "p%08d".formatted(i));
+            return product;
+        }).onClose(() -> closed.set(true));
+    }
+
+    private static final class CountingOutputStream extends OutputStream {
+        private long count;
+
+        @Override
+        public void write(int b) {
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            count += len;
+        }
+    }
+}
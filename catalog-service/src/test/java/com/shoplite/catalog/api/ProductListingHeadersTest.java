@@ -0,0 +1,68 @@
+package com.shoplite.catalog.api;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.shoplite.catalog.repo.ProductRepository;
+import com.shoplite.catalog.service.ProductReadCache;
+import com.shoplite.catalog.service.StockEventPublisher;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.tracing.Tracer;
+import java.io.InputStream;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+/**
+ * Listings (and their 304s) carry the Cache-Control recorded in product-listing-headers.properties,
+ * which the gateway's ResponseCache test relies on being cacheable.
+ */
+class ProductListingHeadersTest {
+
+    private static final Properties CONTRACT = new Properties();
+
+    private final ProductRepository productRepository = mock(ProductRepository.class);
+    // application.yml defaults
+    private final ProductReadCache productReadCache = new ProductReadCache(
+            new SimpleMeterRegistry(), true, 33_554_432, 8_388_608, Duration.ofMinutes(5),
+            Duration.ofSeconds(2));
+    @SuppressWarnings("unchecked")
+    private final ProductController controller = new ProductController(productRepository,
+            mock(StockEventPublisher.class), mock(ObjectProvider.class), productReadCache,
+            new ObjectMapper(), Tracer.NOOP);
+
+    @BeforeAll
+    static void loadContract() throws Exception {
+        try (InputStream in = ProductListingHeadersTest.class
+                .getResourceAsStream("/contracts/product-listing-headers.properties")) {
+            CONTRACT.load(in);
+        }
+    }
+
+    @Test
+    void listingsAndNotModifiedRepliesCarryTheGatewayContract() {
+        productReadCache.advance(Map.of(0, 0L));
+        when(productRepository.findAllByOrderByIdAsc(any())).thenReturn(List.of());
+
+        ResponseEntity<?> page = controller.fetchProductPage(null, 10, null);
+        ResponseEntity<?> all = controller.fetchAllProducts(null);
+        ResponseEntity<?> notModified =
+                controller.fetchProductPage(null, 10, page.getHeaders().getETag());
+
+        assertThat(notModified.getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+        for (ResponseEntity<?> response : List.of(page, all, notModified)) {
+            assertThat(response.getHeaders().getFirst(HttpHeaders.CACHE_CONTROL))
+                    .isEqualTo(CONTRACT.getProperty("cache-control"));
+        }
+    }
+}
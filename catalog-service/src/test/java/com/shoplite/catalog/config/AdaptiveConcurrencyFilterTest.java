@@ -0,0 +1,136 @@
+package com.shoplite.catalog.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.servlet.mvc.method.RequestMappingInfo;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerMapping;
+
+class AdaptiveConcurrencyFilterTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private AdaptiveConcurrencyFilter filter;
+    // fixed limit of 4 per endpoint
+    private AdaptiveConcurrencyFilter saturating;
+
+    @BeforeEach
+    void setUp() throws NoSuchMethodException {
+        RequestMappingHandlerMapping handlerMapping = new RequestMappingHandlerMapping();
+        Handler handler = new Handler();
+        handlerMapping.registerMapping(
+                RequestMappingInfo.paths("/api/products").methods(RequestMethod.GET).build(),
+                handler, Handler.class.getMethod("handle"));
+        handlerMapping.registerMapping(
+                RequestMappingInfo.paths("/api/products").methods(RequestMethod.POST).build(),
+                handler, Handler.class.getMethod("handle"));
+        handlerMapping.registerMapping(
+                RequestMappingInfo.paths("/api/admin/dlt/orders/{partition}/{offset}/replay")
+                        .methods(RequestMethod.POST).build(),
+                handler, Handler.class.getMethod("handle"));
+        filter = new AdaptiveConcurrencyFilter(handlerMapping, meterRegistry, 20, 4, 200);
+        saturating = new AdaptiveConcurrencyFilter(handlerMapping, meterRegistry, 4, 4, 4);
+    }
+
+    @Test
+    void shedsRequestsToAFullEndpointWith503() throws Exception {
+        for (int i = 0; i < 4; i++) {
+            startAsync(asyncRequest("GET", "/api/products"));
+        }
+
+        MockHttpServletResponse shed = startAsync(asyncRequest("GET", "/api/products"));
+        assertThat(shed.getStatus()).isEqualTo(503);
+        assertThat(shed.getHeader(HttpHeaders.RETRY_AFTER)).isEqualTo("1");
+        assertThat(meterRegistry.get("http.server.concurrency.shed")
+                .tag("endpoint", "GET /api/products").counter().count()).isEqualTo(1);
+
+        // other endpoints have their own limit
+        assertThat(startAsync(asyncRequest("POST", "/api/products")).getStatus()).isEqualTo(200);
+    }
+
+    @Test
+    void asyncResponsesHoldTheirSlotUntilTheyComplete() throws Exception {
+        List<MockHttpServletRequest> held = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            MockHttpServletRequest request = asyncRequest("GET", "/api/products");
+            startAsync(request);
+            held.add(request);
+        }
+        assertThat(startAsync(asyncRequest("GET", "/api/products")).getStatus()).isEqualTo(503);
+
+        held.get(0).getAsyncContext().complete();
+
+        assertThat(startAsync(asyncRequest("GET", "/api/products")).getStatus()).isEqualTo(200);
+    }
+
+    @Test
+    void synchronousResponsesReleaseTheirSlotOnReturn() throws Exception {
+        for (int i = 0; i < 10; i++) {
+            MockHttpServletResponse response = new MockHttpServletResponse();
+            saturating.doFilter(new MockHttpServletRequest("GET", "/api/products"), response,
+                    new MockFilterChain());
+            assertThat(response.getStatus()).isEqualTo(200);
+        }
+    }
+
+    @Test
+    void keysEndpointsByRouteTemplate() throws Exception {
+        for (int offset = 0; offset < 100; offset++) {
+            request("POST", "/api/admin/dlt/orders/0/" + offset + "/replay");
+        }
+        request("GET", "/api/products");
+        request("POST", "/api/products");
+
+        assertThat(endpoints()).containsExactlyInAnyOrder(
+                "POST /api/admin/dlt/orders/{partition}/{offset}/replay", "GET /api/products",
+                "POST /api/products");
+    }
+
+    @Test
+    void unmappedPathsAndMethodsShareOneEndpoint() throws Exception {
+        for (int i = 0; i < 100; i++) {
+            request("GET", "/api/junk/" + i);
+        }
+        request("DELETE", "/api/products");
+        request("BREW", "/api/products");
+
+        assertThat(endpoints()).containsExactly("unmatched");
+    }
+
+    private static MockHttpServletRequest asyncRequest(String method, String uri) {
+        MockHttpServletRequest request = new MockHttpServletRequest(method, uri);
+        request.setAsyncSupported(true);
+        return request;
+    }
+
+    // the handler goes async: the response stays open until the request's AsyncContext completes
+    private MockHttpServletResponse startAsync(MockHttpServletRequest request) throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        saturating.doFilter(request, response, (req, res) -> req.startAsync());
+        return response;
+    }
+
+    private void request(String method, String uri) throws Exception {
+        filter.doFilter(new MockHttpServletRequest(method, uri), new MockHttpServletResponse(),
+                new MockFilterChain());
+    }
+
+    private String[] endpoints() {
+        return meterRegistry.find("http.server.concurrency.limit").gauges().stream()
+                .map(gauge -> gauge.getId().getTag("endpoint")).toArray(String[]::new);
+    }
+
+    static class Handler {
+
+        public void handle() {
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.shoplite.catalog.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.InputStream;
+import java.util.Properties;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+class GatewayIdentityFilterTest {
+
+    private static final Properties CONTRACT = new Properties();
+
+    @BeforeAll
+    static void loadContract() throws Exception {
+        try (InputStream in = GatewayIdentityFilterTest.class
+                .getResourceAsStream("/contracts/identity-assertions.properties")) {
+            CONTRACT.load(in);
+        }
+    }
+
+    private final GatewayIdentityFilter filter =
+            new GatewayIdentityFilter(CONTRACT.getProperty("key"));
+
+    @AfterEach
+    void clearContext() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void authenticatesOnlyRequestsWithAValidAssertion() throws Exception {
+        assertThat(filtered(CONTRACT.getProperty("valid")).getName()).isEqualTo("user-1");
+        assertThat(filtered(CONTRACT.getProperty("expired"))).isNull();
+        assertThat(filtered(null)).isNull();
+    }
+
+    // authentication the rest of the chain sees
+    private Authentication filtered(String assertion) throws Exception {
+        SecurityContextHolder.clearContext();
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/products");
+        if (assertion != null) {
+            request.addHeader(GatewayIdentityVerifier.HEADER, assertion);
+        }
+        filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+        return SecurityContextHolder.getContext().getAuthentication();
+    }
+}
@@ -0,0 +1,101 @@
+package com.shoplite.catalog.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalStateException;
+
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Properties;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.AuthorityUtils;
+
+/**
+ * Verifies the assertions the gateway's IdentityAssertionFilter signs (this module's copy of the
+ * identity-assertions contract) and rejects anything else. The servlet and reactive filters that
+ * use it are covered by GatewayIdentityFilterTest and GatewayIdentityWebFilterTest.
+ */
+class GatewayIdentityVerifierTest {
+
+    private static final Properties CONTRACT = new Properties();
+
+    @BeforeAll
+    static void loadContract() throws Exception {
+        try (InputStream in = GatewayIdentityVerifierTest.class
+                .getResourceAsStream("/contracts/identity-assertions.properties")) {
+            CONTRACT.load(in);
+        }
+    }
+
+    private final GatewayIdentityVerifier verifier =
+            new GatewayIdentityVerifier(CONTRACT.getProperty("key"));
+
+    @Test
+    void acceptsTheGatewaysAssertions() {
+        Authentication user = verifier.verify(CONTRACT.getProperty("valid"));
+        assertThat(user.getName()).isEqualTo("user-1");
+        assertThat(AuthorityUtils.authorityListToSet(user.getAuthorities()))
+                .containsExactlyInAnyOrder("SCOPE_read:orders", "SCOPE_write:orders");
+
+        Authentication service = verifier.verify(CONTRACT.getProperty("no-authorities"));
+        assertThat(service.getName()).isEqualTo("service-1");
+        assertThat(service.getAuthorities()).isEmpty();
+    }
+
+    @Test
+    void rejectsExpiredAssertions() {
+        assertThat(verifier.verify(CONTRACT.getProperty("expired"))).isNull();
+    }
+
+    @Test
+    void rejectsForgedAssertions() {
+        String valid = CONTRACT.getProperty("valid");
+        String signature = valid.substring(valid.indexOf('.') + 1);
+
+        // payload changed under the gateway's signature
+        assertThat(verifier.verify(encode("admin\nSCOPE_read:orders SCOPE_write:orders\n4102444800")
+                + "." + signature)).isNull();
+        // signed under another key
+        assertThat(verifier.verify(sign("user-1\nSCOPE_read:orders\n4102444800",
+                "not-the-shared-identity-key-0123456789"))).isNull();
+        // no signature
+        assertThat(verifier.verify(valid.substring(0, valid.indexOf('.') + 1))).isNull();
+    }
+
+    @Test
+    void rejectsMalformedAssertions() {
+        String key = CONTRACT.getProperty("key");
+
+        assertThat(verifier.verify("")).isNull();
+        assertThat(verifier.verify("no-signature")).isNull();
+        assertThat(verifier.verify("not base64!.not base64!")).isNull();
+        // correctly signed, but not subject LF authorities LF exp
+        assertThat(verifier.verify(sign("user-1\n4102444800", key))).isNull();
+        assertThat(verifier.verify(sign("user-1\nSCOPE_read:orders\nnever", key))).isNull();
+    }
+
+    @Test
+    void refusesShortKeys() {
+        assertThatIllegalStateException().isThrownBy(() -> new GatewayIdentityVerifier("too-short"));
+    }
+
+    private static String sign(String payload, String key) {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(new SecretKeySpec(key.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+            return encode(payload) + "." + Base64.getUrlEncoder().withoutPadding()
+                    .encodeToString(mac.doFinal(payload.getBytes(StandardCharsets.UTF_8)));
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String encode(String payload) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(payload.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,54 @@
+package com.shoplite.catalog.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.InputStream;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.ReactiveSecurityContextHolder;
+import org.springframework.security.core.context.SecurityContext;
+import reactor.core.publisher.Mono;
+
+class GatewayIdentityWebFilterTest {
+
+    private static final Properties CONTRACT = new Properties();
+
+    @BeforeAll
+    static void loadContract() throws Exception {
+        try (InputStream in = GatewayIdentityWebFilterTest.class
+                .getResourceAsStream("/contracts/identity-assertions.properties")) {
+            CONTRACT.load(in);
+        }
+    }
+
+    private final GatewayIdentityWebFilter filter =
+            new GatewayIdentityWebFilter(CONTRACT.getProperty("key"));
+
+    @Test
+    void authenticatesOnlyRequestsWithAValidAssertion() {
+        assertThat(filtered(CONTRACT.getProperty("valid")).getName()).isEqualTo("user-1");
+        assertThat(filtered(CONTRACT.getProperty("expired"))).isNull();
+        assertThat(filtered(null)).isNull();
+    }
+
+    // authentication the rest of the chain sees
+    private Authentication filtered(String assertion) {
+        MockServerHttpRequest.BaseBuilder<?> request = MockServerHttpRequest.get("/api/products");
+        if (assertion != null) {
+            request.header(GatewayIdentityVerifier.HEADER, assertion);
+        }
+        AtomicReference<Authentication> seen = new AtomicReference<>();
+        filter.filter(MockServerWebExchange.from(request), exchange ->
+                ReactiveSecurityContextHolder.getContext()
+                        .map(SecurityContext::getAuthentication)
+                        .doOnNext(seen::set)
+                        .then())
+                .block();
+        return seen.get();
+    }
+}
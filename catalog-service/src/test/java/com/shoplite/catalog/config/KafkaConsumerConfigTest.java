@@ -0,0 +1,78 @@
+package com.shoplite.catalog.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+import com.shoplite.catalog.service.InventoryEngine;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.List;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.kafka.ConcurrentKafkaListenerContainerFactoryConfigurer;
+import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.listener.ConcurrentMessageListenerContainer;
+import org.springframework.kafka.listener.ConsumerAwareRebalanceListener;
+
+class KafkaConsumerConfigTest {
+
+    private static final List<TopicPartition> PARTITIONS =
+            List.of(new TopicPartition("orders.events", 0));
+
+    private final KafkaConsumerConfig config = new KafkaConsumerConfig();
+    private final ConcurrentKafkaListenerContainerFactoryConfigurer configurer =
+            mock(ConcurrentKafkaListenerContainerFactoryConfigurer.class);
+    @SuppressWarnings("unchecked")
+    private final ConsumerFactory<Object, Object> consumerFactory = mock(ConsumerFactory.class);
+    private final OrderConsumerMetrics metrics = new OrderConsumerMetrics(new SimpleMeterRegistry());
+    private final InventoryEngine engine = mock(InventoryEngine.class);
+    private final Consumer<?, ?> consumer = mock(Consumer.class);
+
+    @Test
+    void inventoryContainersCheckpointTheEngineWhenPartitionsAreRevoked() {
+        ConcurrentMessageListenerContainer<Object, Object> container = config
+                .inventoryKafkaListenerContainerFactory(configurer, consumerFactory, metrics, engine)
+                .createContainer("orders.events");
+
+        rebalanceListener(container).onPartitionsRevokedBeforeCommit(consumer, PARTITIONS);
+
+        verify(engine).checkpoint();
+        assertThat(container.getContainerProperties().isSyncCommits()).isTrue();
+    }
+
+    @Test
+    void batchContainersGetTheMetricsAndAsyncCommits() {
+        ConcurrentKafkaListenerContainerFactory<Object, Object> factory = config
+                .batchKafkaListenerContainerFactory(configurer, consumerFactory, metrics, true);
+        ConcurrentMessageListenerContainer<Object, Object> container =
+                factory.createContainer("orders.events");
+
+        assertThat(rebalanceListener(container)).isSameAs(metrics);
+        assertThat(container.getContainerProperties().isSyncCommits()).isFalse();
+    }
+
+    @Test
+    void defaultContainersNeverCheckpointTheEngine() {
+        ConcurrentKafkaListenerContainerFactory<Object, Object> factory =
+                new ConcurrentKafkaListenerContainerFactory<>();
+        factory.setConsumerFactory(consumerFactory);
+        factory.setContainerCustomizer(config.containerCustomizer(metrics, true, true));
+        ConcurrentMessageListenerContainer<Object, Object> container =
+                factory.createContainer("catalog.stock");
+
+        rebalanceListener(container).onPartitionsRevokedBeforeCommit(consumer, PARTITIONS);
+
+        assertThat(rebalanceListener(container)).isSameAs(metrics);
+        assertThat(container.getContainerProperties().isSyncCommits()).isTrue();
+        verify(engine, never()).checkpoint();
+    }
+
+    private static ConsumerAwareRebalanceListener rebalanceListener(
+            ConcurrentMessageListenerContainer<Object, Object> container) {
+        return (ConsumerAwareRebalanceListener) container.getContainerProperties()
+                .getConsumerRebalanceListener();
+    }
+}
@@ -0,0 +1,46 @@
+package com.shoplite.catalog.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.SpringApplication;
+import org.springframework.mock.env.MockEnvironment;
+
+class WebStackEnvironmentPostProcessorTest {
+
+    private final WebStackEnvironmentPostProcessor postProcessor =
+            new WebStackEnvironmentPostProcessor();
+
+    @Test
+    void excludesReactiveMongoInServletMode() {
+        MockEnvironment environment =
+                new MockEnvironment().withProperty("spring.main.web-application-type", "servlet");
+
+        postProcessor.postProcessEnvironment(environment, new SpringApplication());
+
+        assertThat(environment.getProperty("spring.autoconfigure.exclude"))
+                .contains("MongoReactiveAutoConfiguration",
+                        "MongoReactiveRepositoriesAutoConfiguration");
+    }
+
+    @Test
+    void keepsReactiveMongoInReactiveMode() {
+        MockEnvironment environment =
+                new MockEnvironment().withProperty("spring.main.web-application-type", "reactive");
+
+        postProcessor.postProcessEnvironment(environment, new SpringApplication());
+
+        assertThat(environment.getProperty("spring.autoconfigure.exclude")).isNull();
+    }
+
+    @Test
+    void explicitExclusionsWin() {
+        MockEnvironment environment = new MockEnvironment()
+                .withProperty("spring.autoconfigure.exclude", "com.example.SomeAutoConfiguration");
+
+        postProcessor.postProcessEnvironment(environment, new SpringApplication());
+
+        assertThat(environment.getProperty("spring.autoconfigure.exclude"))
+                .isEqualTo("com.example.SomeAutoConfiguration");
+    }
+}
@@ -0,0 +1,52 @@
+package com.shoplite.catalog.listeners;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import com.shoplite.catalog.domain.StockChange;
+import com.shoplite.catalog.repo.ProductRepository;
+import com.shoplite.catalog.service.ProcessedOrders;
+import com.shoplite.catalog.service.StockEventPublisher;
+import com.shoplite.orders.events.OrderPlaced;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.tracing.Tracer;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import org.junit.jupiter.api.Test;
+
+class OrderPlacedListenerTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final ProductRepository productRepository = mock(ProductRepository.class);
+    private final StockEventPublisher stockEventPublisher = mock(StockEventPublisher.class);
+    private final OrderPlacedListener listener = new OrderPlacedListener(productRepository,
+            stockEventPublisher, new ProcessedOrders(meterRegistry, 1_000, Duration.ofMinutes(10)),
+            Tracer.NOOP);
+
+    @Test
+    void publishesAnOrderThatEmptiesTheStock() {
+        when(productRepository.decrementStockOnce("p1", "order-1", 2))
+                .thenReturn(Optional.of(new StockChange("p1", 2, 0, false)));
+
+        listener.listen(new OrderPlaced("order-1", "p1", 2), "p1", Map.of());
+
+        verify(stockEventPublisher).publish("p1", 0, List.of("order-1"));
+    }
+
+    @Test
+    void doesNotPublishARedeliveryAtZeroStockAgain() {
+        when(productRepository.decrementStockOnce("p1", "order-1", 2))
+                .thenReturn(Optional.of(new StockChange("p1", 0, 0, true)));
+
+        listener.listen(new OrderPlaced("order-1", "p1", 2), "p1", Map.of());
+
+        verifyNoInteractions(stockEventPublisher);
+        assertThat(meterRegistry.get("catalog.orders.duplicates").tag("source", "store")
+                .counter().count()).isEqualTo(1);
+    }
+}
@@ -0,0 +1,185 @@
+package com.shoplite.catalog.repo;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+import com.mongodb.ConnectionString;
+import com.mongodb.MongoClientSettings;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import com.mongodb.event.CommandListener;
+import com.mongodb.event.CommandStartedEvent;
+import com.shoplite.catalog.domain.Product;
+import com.shoplite.catalog.listeners.OrderPlacedBatchListener;
+import com.shoplite.catalog.service.ProcessedOrders;
+import com.shoplite.catalog.service.StockEventPublisher;
+import com.shoplite.orders.events.OrderEventDeserializer;
+import com.shoplite.orders.events.OrderPlaced;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.tracing.Tracer;
+import io.micrometer.tracing.propagation.Propagator;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.apache.kafka.clients.admin.Admin;
+import org.apache.kafka.clients.admin.AdminClientConfig;
+import org.apache.kafka.clients.admin.NewTopic;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.KafkaConsumer;
+import org.apache.kafka.clients.producer.KafkaProducer;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.repository.support.MongoRepositoryFactory;
+import org.springframework.data.repository.core.support.RepositoryComposition.RepositoryFragments;
+import org.springframework.kafka.support.serializer.JsonSerializer;
+import org.testcontainers.containers.KafkaContainer;
+import org.testcontainers.containers.MongoDBContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.utility.DockerImageName;
+
+/**
+ * Drives OrderPlacedBatchListener with records polled from a real broker and applies them to a
+ * real MongoDB, checking that each poll costs one bulk update however many orders and products it
+ * carries, and that a redelivered poll does not decrement twice.
+ */
+@Testcontainers
+class OrderBatchBulkWriteTest {
+
+    private static final String TOPIC = "orders.events";
+    private static final int SINGLE_ORDERS = 200;
+
+    @Container
+    static final KafkaContainer KAFKA =
+            new KafkaContainer(DockerImageName.parse("confluentinc/cp-kafka:7.6.1"));
+
+    @Container
+    static final MongoDBContainer MONGO = new MongoDBContainer("mongo:7.0");
+
+    private final AtomicInteger updateCommands = new AtomicInteger();
+    private final StockEventPublisher stockEventPublisher = mock(StockEventPublisher.class);
+    private MongoClient mongoClient;
+    private ProductRepository productRepository;
+
+    @BeforeEach
+    void setUp() {
+        mongoClient = MongoClients.create(MongoClientSettings.builder()
+                .applyConnectionString(new ConnectionString(MONGO.getReplicaSetUrl("catalog")))
+                .addCommandListener(new CommandListener() {
+                    @Override
+                    public void commandStarted(CommandStartedEvent event) {
+                        if (event.getCommandName().equals("update")) {
+                            updateCommands.incrementAndGet();
+                        }
+                    }
+                })
+                .build());
+        MongoTemplate mongoTemplate = new MongoTemplate(mongoClient, "catalog");
+        mongoTemplate.dropCollection(Product.class);
+        productRepository = new MongoRepositoryFactory(mongoTemplate).getRepository(
+                ProductRepository.class, RepositoryFragments.just(
+                        new ProductRepositoryImpl(mongoTemplate, Duration.ofMinutes(10), 10_000)));
+    }
+
+    @AfterEach
+    void tearDown() {
+        mongoClient.close();
+    }
+
+    @Test
+    void appliesEachPollWithOneBulkWrite() throws Exception {
+        String hot = productRepository.save(new Product("hot", 1_000)).getId();
+        String scarce = productRepository.save(new Product("scarce", 3)).getId();
+        publishOrders(hot, scarce);
+
+        List<List<ConsumerRecord<String, Object>>> polls = poll(SINGLE_ORDERS + 4);
+        OrderPlacedBatchListener listener = listener();
+        updateCommands.set(0);
+        polls.forEach(listener::listen);
+
+        assertThat(updateCommands).hasValue(polls.size());
+        // order-0 is on the topic twice; the checkout's 5 units of scarce are floored at 0
+        assertThat(stock(hot)).isEqualTo(1_000 - SINGLE_ORDERS - 2);
+        assertThat(stock(scarce)).isZero();
+        verify(stockEventPublisher, atLeastOnce()).publish(anyMap(), anyMap());
+
+        // another instance (nothing in memory) gets the same polls after a rebalance
+        OrderPlacedBatchListener redelivered = listener();
+        updateCommands.set(0);
+        polls.forEach(redelivered::listen);
+
+        assertThat(updateCommands).hasValue(polls.size());
+        assertThat(stock(hot)).isEqualTo(1_000 - SINGLE_ORDERS - 2);
+    }
+
+    private OrderPlacedBatchListener listener() {
+        return new OrderPlacedBatchListener(productRepository, stockEventPublisher,
+                new ProcessedOrders(new SimpleMeterRegistry(), 100_000, Duration.ofMinutes(10)),
+                Tracer.NOOP, Propagator.NOOP);
+    }
+
+    private int stock(String productId) {
+        return productRepository.findById(productId).orElseThrow().getStock();
+    }
+
+    private static void publishOrders(String hot, String scarce) throws Exception {
+        try (Admin admin = Admin.create(Map.of(AdminClientConfig.BOOTSTRAP_SERVERS_CONFIG,
+                KAFKA.getBootstrapServers()))) {
+            admin.createTopics(List.of(new NewTopic(TOPIC, 1, (short) 1))).all().get();
+        }
+        try (var producer = new KafkaProducer<String, Object>(Map.of(
+                ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, KAFKA.getBootstrapServers(),
+                ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class,
+                ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, JsonSerializer.class))) {
+            for (int i = 0; i < SINGLE_ORDERS; i++) {
+                producer.send(new ProducerRecord<>(TOPIC, hot,
+                        new OrderPlaced("order-" + i, hot, 1)));
+            }
+            producer.send(new ProducerRecord<>(TOPIC, hot, new OrderPlaced("order-0", hot, 1)));
+            // a checkout: one OrderPlaced per product, sharing the order id
+            producer.send(new ProducerRecord<>(TOPIC, hot, new OrderPlaced("cart-1", hot, 2)));
+            producer.send(new ProducerRecord<>(TOPIC, scarce,
+                    new OrderPlaced("cart-1", scarce, 5)));
+            producer.send(new ProducerRecord<>(TOPIC, "unknown",
+                    new OrderPlaced("order-unknown", "unknown", 1)));
+        }
+    }
+
+    private static List<List<ConsumerRecord<String, Object>>> poll(int expected) {
+        List<List<ConsumerRecord<String, Object>>> polls = new ArrayList<>();
+        try (var consumer = new KafkaConsumer<String, Object>(Map.of(
+                ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, KAFKA.getBootstrapServers(),
+                ConsumerConfig.GROUP_ID_CONFIG, "catalog-service",
+                ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest",
+                ConsumerConfig.MAX_POLL_RECORDS_CONFIG, 50,
+                ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class,
+                ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, OrderEventDeserializer.class,
+                "spring.json.trusted-packages", "com.shoplite.orders.events"))) {
+            consumer.subscribe(List.of(TOPIC));
+            long deadline = System.nanoTime() + Duration.ofSeconds(30).toNanos();
+            int received = 0;
+            while (received < expected && System.nanoTime() < deadline) {
+                List<ConsumerRecord<String, Object>> batch = new ArrayList<>();
+                consumer.poll(Duration.ofMillis(500)).forEach(batch::add);
+                if (!batch.isEmpty()) {
+                    polls.add(batch);
+                    received += batch.size();
+                }
+            }
+            assertThat(received).isEqualTo(expected);
+        }
+        return polls;
+    }
+}
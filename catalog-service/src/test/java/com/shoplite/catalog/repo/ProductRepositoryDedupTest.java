@@ -0,0 +1,160 @@
+package com.shoplite.catalog.repo;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.mongodb.ConnectionString;
+import com.mongodb.MongoClientSettings;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import com.mongodb.event.CommandListener;
+import com.mongodb.event.CommandStartedEvent;
+import com.shoplite.catalog.domain.Product;
+import com.shoplite.catalog.domain.StockChange;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Stream;
+import org.bson.BsonDocument;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.repository.support.MongoRepositoryFactory;
+import org.springframework.data.repository.core.support.RepositoryComposition.RepositoryFragments;
+import org.testcontainers.containers.MongoDBContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+/**
+ * The appliedOrders dedup window against a real MongoDB: a redelivered order is applied once, the
+ * window forgets orders past the horizon or beyond max-window, and listing reads never fetch it.
+ */
+@Testcontainers
+class ProductRepositoryDedupTest {
+
+    @Container
+    static final MongoDBContainer MONGO = new MongoDBContainer("mongo:7.0");
+
+    private final List<BsonDocument> finds = new CopyOnWriteArrayList<>();
+    private MongoClient mongoClient;
+    private MongoTemplate mongoTemplate;
+
+    @BeforeEach
+    void setUp() {
+        mongoClient = MongoClients.create(MongoClientSettings.builder()
+                .applyConnectionString(new ConnectionString(MONGO.getReplicaSetUrl("catalog")))
+                .addCommandListener(new CommandListener() {
+                    @Override
+                    public void commandStarted(CommandStartedEvent event) {
+                        if (event.getCommandName().equals("find")) {
+                            finds.add(event.getCommand());
+                        }
+                    }
+                })
+                .build());
+        mongoTemplate = new MongoTemplate(mongoClient, "catalog");
+        mongoTemplate.dropCollection(Product.class);
+    }
+
+    @AfterEach
+    void tearDown() {
+        mongoClient.close();
+    }
+
+    @Test
+    void appliesARedeliveredOrderOnce() {
+        ProductRepository repository = repository(Duration.ofMinutes(10), 100);
+        String id = repository.save(new Product("widget", 10)).getId();
+
+        assertThat(repository.decrementStockOnce(id, "order-1", 3)).hasValueSatisfying(
+                change -> assertThat(change.delta()).isEqualTo(3));
+        assertThat(repository.decrementStockOnce(id, "order-1", 3)).hasValueSatisfying(
+                change -> assertThat(change.duplicate()).isTrue());
+        repository.decrementStockOnce(Map.of(id, Map.of("order-1", 3, "order-2", 2)));
+
+        assertThat(stock(repository, id)).isEqualTo(5);
+        assertThat(appliedOrders(id)).hasSize(2);
+    }
+
+    @Test
+    void flagsARedeliveryAtZeroStockAsDuplicate() {
+        ProductRepository repository = repository(Duration.ofMinutes(10), 100);
+        String id = repository.save(new Product("widget", 2)).getId();
+
+        assertThat(repository.decrementStockOnce(id, "order-1", 2)).hasValueSatisfying(
+                change -> assertThat(change).isEqualTo(new StockChange(id, 2, 0, false)));
+        // stock is 0 now, so before == after for a new order and for a redelivery alike
+        assertThat(repository.decrementStockOnce(id, "order-1", 2)).hasValueSatisfying(
+                change -> assertThat(change).isEqualTo(new StockChange(id, 0, 0, true)));
+        assertThat(repository.decrementStockOnce(id, "order-2", 1)).hasValueSatisfying(
+                change -> assertThat(change).isEqualTo(new StockChange(id, 0, 0, false)));
+    }
+
+    @Test
+    void forgetsOrdersOlderThanTheHorizon() throws InterruptedException {
+        ProductRepository repository = repository(Duration.ofSeconds(1), 100);
+        String id = repository.save(new Product("widget", 10)).getId();
+        repository.decrementStockOnce(id, "order-1", 1);
+
+        Thread.sleep(1_500);
+        repository.decrementStockOnce(id, "order-2", 1);
+
+        // order-1 was dropped by order-2's update, so its redelivery is applied again
+        assertThat(appliedOrders(id)).hasSize(1);
+        repository.decrementStockOnce(id, "order-1", 1);
+        assertThat(stock(repository, id)).isEqualTo(7);
+    }
+
+    @Test
+    void keepsOnlyTheMostRecentMaxWindowOrders() {
+        ProductRepository repository = repository(Duration.ofMinutes(10), 2);
+        String id = repository.save(new Product("widget", 10)).getId();
+        repository.decrementStockOnce(Map.of(id, Map.of("order-1", 1)));
+        repository.decrementStockOnce(Map.of(id, Map.of("order-2", 1)));
+        repository.decrementStockOnce(Map.of(id, Map.of("order-3", 1)));
+
+        assertThat(appliedOrders(id)).hasSize(2);
+        repository.decrementStockOnce(Map.of(id, Map.of("order-3", 1, "order-1", 1)));
+        assertThat(stock(repository, id)).isEqualTo(6);
+    }
+
+    @Test
+    void listingReadsLeaveTheWindowOnTheServer() {
+        ProductRepository repository = repository(Duration.ofMinutes(10), 100);
+        String first = repository.save(new Product("a", 10)).getId();
+        repository.save(new Product("b", 10));
+        repository.decrementStockOnce(first, "order-1", 1);
+        finds.clear();
+
+        assertThat(repository.findAllByOrderByIdAsc(PageRequest.ofSize(1)))
+                .extracting(Product::getId).containsExactly(first);
+        assertThat(repository.findByIdGreaterThanOrderByIdAsc(first, PageRequest.ofSize(10)))
+                .extracting(Product::getName).containsExactly("b");
+        try (Stream<Product> all = repository.streamAllByOrderByIdAsc()) {
+            assertThat(all).extracting(Product::getStock).containsExactly(9, 10);
+        }
+
+        assertThat(finds).hasSize(3).allSatisfy(find -> assertThat(
+                find.getDocument("projection").getInt32("appliedOrders").getValue()).isZero());
+    }
+
+    private ProductRepository repository(Duration horizon, int maxWindow) {
+        return new MongoRepositoryFactory(mongoTemplate).getRepository(ProductRepository.class,
+                RepositoryFragments.just(
+                        new ProductRepositoryImpl(mongoTemplate, horizon, maxWindow)));
+    }
+
+    private static int stock(ProductRepository repository, String id) {
+        return repository.findStock(List.of(id)).get(id);
+    }
+
+    private List<Document> appliedOrders(String id) {
+        Document product = mongoTemplate.getCollection("products")
+                .find(new Document("_id", new ObjectId(id))).first();
+        return product.getList("appliedOrders", Document.class);
+    }
+}
@@ -0,0 +1,93 @@
+package com.shoplite.catalog.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.shoplite.catalog.domain.Product;
+import com.shoplite.catalog.repo.ProductRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.test.util.ReflectionTestUtils;
+
+class InventoryEngineTest {
+
+    private static final TopicPartition PARTITION = new TopicPartition("orders.events", 0);
+
+    private final ProductRepository productRepository = mock(ProductRepository.class);
+    private final StockEventPublisher stockEventPublisher = mock(StockEventPublisher.class);
+    private final Acknowledgment acknowledgment = mock(Acknowledgment.class);
+    private final InventoryEngine engine = new InventoryEngine(productRepository,
+            stockEventPublisher, new SimpleMeterRegistry());
+
+    @BeforeEach
+    void load() {
+        when(productRepository.streamAllByOrderByIdAsc())
+                .thenReturn(Stream.of(product("p1", 10), product("p2", 5)));
+        engine.load();
+        engine.start();
+    }
+
+    @Test
+    void checkpointWritesTheOrdersIdempotentlyAndNamesThemInStockEvents() {
+        when(productRepository.decrementStockOnce(anyMap())).thenReturn(Set.of());
+        when(productRepository.findStock(Set.of("p1", "p2"))).thenReturn(Map.of("p1", 7, "p2", 4));
+
+        engine.apply("order-1", Map.of("p1", 2), PARTITION, acknowledgment);
+        engine.apply("order-2", Map.of("p1", 1, "p2", 1), PARTITION, acknowledgment);
+        engine.checkpoint();
+
+        verify(productRepository).decrementStockOnce(Map.of(
+                "p1", Map.of("order-1", 2, "order-2", 1),
+                "p2", Map.of("order-2", 1)));
+        verify(acknowledgment).acknowledge();
+        verify(stockEventPublisher).publish(Map.of("p1", 7, "p2", 4),
+                Map.of("p1", Set.of("order-1", "order-2"), "p2", Set.of("order-2")));
+    }
+
+    @Test
+    void failedCheckpointKeepsTheOrdersAndTheAcknowledgmentForTheNextRun() {
+        when(productRepository.decrementStockOnce(anyMap()))
+                .thenThrow(new IllegalStateException("mongo down")).thenReturn(Set.of());
+        when(productRepository.findStock(Set.of("p1"))).thenReturn(Map.of("p1", 8));
+
+        engine.apply("order-1", Map.of("p1", 2), PARTITION, acknowledgment);
+        engine.checkpoint();
+
+        verify(acknowledgment, never()).acknowledge();
+
+        engine.checkpoint();
+
+        verify(productRepository, times(2))
+                .decrementStockOnce(Map.of("p1", Map.of("order-1", 2)));
+        verify(acknowledgment).acknowledge();
+    }
+
+    @Test
+    void redeliveredOrderIsWrittenOnce() {
+        when(productRepository.decrementStockOnce(anyMap())).thenReturn(Set.of());
+        when(productRepository.findStock(Set.of("p1"))).thenReturn(Map.of("p1", 8));
+
+        engine.apply("order-1", Map.of("p1", 2), PARTITION, acknowledgment);
+        engine.apply("order-1", Map.of("p1", 2), PARTITION, acknowledgment);
+        engine.checkpoint();
+
+        verify(productRepository).decrementStockOnce(Map.of("p1", Map.of("order-1", 2)));
+    }
+
+    private static Product product(String id, int stock) {
+        Product product = new Product(id, stock);
+        ReflectionTestUtils.setField(product, "id", id);
+        return product;
+    }
+}
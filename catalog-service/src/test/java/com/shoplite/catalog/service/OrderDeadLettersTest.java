@@ -0,0 +1,158 @@
+package com.shoplite.catalog.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.shoplite.catalog.domain.Product;
+import com.shoplite.catalog.repo.ProductRepository;
+import com.shoplite.orders.events.OrderEventCodec;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import org.apache.kafka.clients.admin.Admin;
+import org.apache.kafka.clients.admin.AdminClientConfig;
+import org.apache.kafka.clients.admin.NewTopic;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.KafkaConsumer;
+import org.apache.kafka.clients.producer.KafkaProducer;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.serialization.ByteArrayDeserializer;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.KafkaContainer;
+import org.testcontainers.containers.MongoDBContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.utility.DockerImageName;
+
+/**
+ * Runs catalog-service in single-record mode against Testcontainers Kafka and MongoDB: a record
+ * that cannot be deserialized goes straight to orders.events-dlt without blocking its partition,
+ * shows up in the admin view, and replays to orders.events byte for byte.
+ */
+@Testcontainers
+@SpringBootTest(properties = {
+        "AUTH0_ISSUER_URI=http://localhost:9/", "AUTH0_AUDIENCE=catalog",
+        "SERVER_PORT=0", "EUREKA_DEFAULT_ZONE=http://localhost:9/eureka",
+        "JAEGER_ENDPOINT=http://localhost:9/api/v2/spans",
+        "eureka.client.enabled=false", "spring.cloud.discovery.enabled=false",
+        "management.tracing.enabled=false",
+        "spring.kafka.consumer.auto-offset-reset=earliest",
+        "catalog.orders.retry.attempts=2", "catalog.orders.retry.initial-delay-ms=100",
+        "catalog.orders.retry.partitions=1"})
+class OrderDeadLettersTest {
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(60);
+    // binary magic and version followed by an unknown event type
+    private static final byte[] POISON = {OrderEventCodec.MAGIC, 1, 0x7F};
+
+    @Container
+    static final KafkaContainer KAFKA =
+            new KafkaContainer(DockerImageName.parse("confluentinc/cp-kafka:7.6.1"));
+
+    @Container
+    static final MongoDBContainer MONGO = new MongoDBContainer("mongo:7.0");
+
+    @DynamicPropertySource
+    static void containers(DynamicPropertyRegistry registry) {
+        registry.add("KAFKA_BOOTSTRAP_SERVERS", KAFKA::getBootstrapServers);
+        registry.add("spring.data.mongodb.uri", () -> MONGO.getReplicaSetUrl("catalog"));
+    }
+
+    @Autowired
+    private OrderDeadLetters orderDeadLetters;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @BeforeAll
+    static void createTopic() throws Exception {
+        try (Admin admin = Admin.create(Map.of(AdminClientConfig.BOOTSTRAP_SERVERS_CONFIG,
+                KAFKA.getBootstrapServers()))) {
+            admin.createTopics(List.of(new NewTopic(OrderDeadLetters.ORDERS_TOPIC, 1, (short) 1)))
+                    .all().get();
+        }
+    }
+
+    @Test
+    void deadLettersPoisonRecordsAndReplaysThem() throws Exception {
+        String productId = productRepository.save(new Product("widget", 10)).getId();
+        byte[] order = ("{\"orderId\":\"order-1\",\"productId\":\"" + productId
+                + "\",\"quantity\":2}").getBytes(StandardCharsets.UTF_8);
+        send("poison", POISON);
+        send(productId, order);
+
+        OrderDeadLetters.Entry deadLetter = await(() -> orderDeadLetters.recent(10),
+                entries -> entries.size() == 1).get(0);
+        assertThat(deadLetter.key()).isEqualTo("poison");
+        assertThat(deadLetter.exception()).isNotBlank();
+        assertThat(deadLetter.payload()).startsWith("base64:");
+        // the order behind the poison record was not held up by it
+        await(() -> productRepository.findById(productId).orElseThrow().getStock(),
+                stock -> stock == 8);
+
+        OrderDeadLetters.Replayed replayed =
+                orderDeadLetters.replay(deadLetter.partition(), deadLetter.offset()).orElseThrow();
+
+        assertThat(replayed.topic()).isEqualTo(OrderDeadLetters.ORDERS_TOPIC);
+        ConsumerRecord<String, byte[]> record = read(replayed);
+        assertThat(record.key()).isEqualTo("poison");
+        assertThat(record.value()).isEqualTo(POISON);
+        for (Header header : record.headers()) {
+            assertThat(header.key()).doesNotStartWith("kafka_dlt-")
+                    .doesNotStartWith("retry_topic-");
+        }
+        // still poison, so it is dead-lettered again rather than retried
+        await(() -> orderDeadLetters.recent(10), entries -> entries.size() == 2);
+        assertThat(orderDeadLetters.replay(deadLetter.partition(), Long.MAX_VALUE)).isEmpty();
+    }
+
+    private static void send(String key, byte[] value) throws Exception {
+        try (var producer = new KafkaProducer<String, byte[]>(Map.of(
+                ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, KAFKA.getBootstrapServers(),
+                ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class,
+                ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, ByteArraySerializer.class))) {
+            producer.send(new ProducerRecord<>(OrderDeadLetters.ORDERS_TOPIC, key, value)).get();
+        }
+    }
+
+    private static ConsumerRecord<String, byte[]> read(OrderDeadLetters.Replayed replayed)
+            throws InterruptedException {
+        var partition = new TopicPartition(replayed.topic(), replayed.partition());
+        try (var consumer = new KafkaConsumer<String, byte[]>(Map.of(
+                ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, KAFKA.getBootstrapServers(),
+                ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, false),
+                new StringDeserializer(), new ByteArrayDeserializer())) {
+            consumer.assign(List.of(partition));
+            consumer.seek(partition, replayed.offset());
+            return await(() -> consumer.poll(Duration.ofMillis(500)).records(partition),
+                    records -> !records.isEmpty()).get(0);
+        }
+    }
+
+    private static <T> T await(Supplier<T> supplier, Predicate<T> done)
+            throws InterruptedException {
+        long deadline = System.nanoTime() + TIMEOUT.toNanos();
+        T value = supplier.get();
+        while (!done.test(value)) {
+            assertThat(System.nanoTime()).as("timed out, last value %s", value)
+                    .isLessThan(deadline);
+            Thread.sleep(200);
+            value = supplier.get();
+        }
+        return value;
+    }
+}
@@ -0,0 +1,92 @@
+package com.shoplite.catalog.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+/**
+ * ETags follow the catalog.stock positions, so instances that have read the same changes agree on
+ * them; cached listings are dropped once per advance.
+ */
+class ProductReadCacheTest {
+
+    private final ProductReadCache cache = cache();
+
+    @Test
+    void instancesAtTheSamePositionsShareTheETag() {
+        ProductReadCache other = cache();
+        cache.advance(Map.of(0, 5L, 1, 3L));
+        cache.advance(Map.of(1, 7L));
+        other.advance(Map.of(1, 7L, 0, 5L));
+
+        assertThat(other.snapshot().etag()).isEqualTo(cache.snapshot().etag());
+        assertThat(other.notModified(cache.snapshot().etag(), other.snapshot())).isTrue();
+
+        other.advance(Map.of(2, 1L));
+        assertThat(other.notModified(cache.snapshot().etag(), other.snapshot())).isFalse();
+    }
+
+    @Test
+    void matchesWholeEntityTagsOnly() {
+        cache.advance(Map.of(0, 5L, 1, 3L));
+        var snapshot = cache.snapshot();
+        String etag = snapshot.etag();
+
+        assertThat(cache.notModified("\"other\", " + etag, snapshot)).isTrue();
+        assertThat(cache.notModified("W/" + etag, snapshot)).isTrue();
+        assertThat(cache.notModified("*", snapshot)).isTrue();
+
+        // positions further on, or another opaque-tag around the same positions
+        String longer = etag.substring(0, etag.length() - 1) + "-2.1\"";
+        assertThat(cache.notModified(longer, snapshot)).isFalse();
+        assertThat(cache.notModified("\"x" + etag.substring(1), snapshot)).isFalse();
+        assertThat(cache.notModified("\"other\"", snapshot)).isFalse();
+    }
+
+    @Test
+    void neverGoesBackwards() {
+        cache.advance(Map.of(0, 5L));
+        var snapshot = cache.snapshot();
+
+        cache.advance(Map.of(0, 4L));
+        cache.advance(Map.of(0, 5L));
+
+        assertThat(cache.snapshot()).isEqualTo(snapshot);
+    }
+
+    @Test
+    void answersNothingFromCacheBeforeThePartitionsAreAssigned() {
+        var snapshot = cache.snapshot();
+        cache.put(snapshot, "all:json", new byte[1]);
+
+        assertThat(cache.notModified(snapshot.etag(), snapshot)).isFalse();
+        assertThat(cache.get(snapshot, "all:json", byte[].class)).isNull();
+    }
+
+    @Test
+    void bypassesTheCacheUntilALocalPublishIsAcknowledged() {
+        cache.advance(Map.of(0, 5L));
+        var before = cache.snapshot();
+        cache.put(before, "all:json", new byte[1]);
+
+        cache.publishing();
+        assertThat(cache.notModified(before.etag(), before)).isFalse();
+        assertThat(cache.get(before, "all:json", byte[].class)).isNull();
+
+        cache.published(Map.of(0, 6L));
+        var after = cache.snapshot();
+        assertThat(after.version()).isEqualTo(before.version() + 1);
+        assertThat(cache.notModified(before.etag(), after)).isFalse();
+        assertThat(cache.get(before, "all:json", byte[].class)).isNull();
+        cache.put(after, "all:json", new byte[2]);
+        assertThat(cache.get(after, "all:json", byte[].class)).hasSize(2);
+    }
+
+    private static ProductReadCache cache() {
+        return new ProductReadCache(new SimpleMeterRegistry(), true, 1_000_000, 100_000,
+                Duration.ofMinutes(5), Duration.ofSeconds(2));
+    }
+}
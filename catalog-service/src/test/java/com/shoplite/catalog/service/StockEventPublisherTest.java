@@ -0,0 +1,71 @@
+package com.shoplite.catalog.service;
+
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.clients.producer.RecordMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+
+class StockEventPublisherTest {
+
+    @SuppressWarnings("unchecked")
+    private final KafkaTemplate<String, Object> kafkaTemplate = mock(KafkaTemplate.class);
+    private final ProductReadCache productReadCache = mock(ProductReadCache.class);
+    private final StockEventPublisher publisher =
+            new StockEventPublisher(kafkaTemplate, productReadCache, "catalog.stock");
+
+    @Test
+    void movesTheCacheOnceWhenTheWholeBatchIsAcknowledged() {
+        var first = new CompletableFuture<SendResult<String, Object>>();
+        var second = new CompletableFuture<SendResult<String, Object>>();
+        var third = new CompletableFuture<SendResult<String, Object>>();
+        when(kafkaTemplate.send(eq("catalog.stock"), eq("p1"), any())).thenReturn(first);
+        when(kafkaTemplate.send(eq("catalog.stock"), eq("p2"), any())).thenReturn(second);
+        when(kafkaTemplate.send(eq("catalog.stock"), eq("p3"), any())).thenReturn(third);
+
+        publisher.publish(Map.of("p1", 1, "p2", 2, "p3", 3), Map.of("p1", List.of("order-1")));
+        first.complete(sent(0, 10));
+        second.complete(sent(0, 11));
+        verify(productReadCache, never()).published(any());
+        third.completeExceptionally(new IllegalStateException("broker down"));
+
+        InOrder order = inOrder(productReadCache);
+        order.verify(productReadCache).publishing();
+        // the failed send's partition is left where it was
+        order.verify(productReadCache).published(Map.of(0, 12L));
+        order.verifyNoMoreInteractions();
+    }
+
+    @Test
+    void releasesTheCacheWhenASendThrows() {
+        when(kafkaTemplate.send(anyString(), anyString(), any()))
+                .thenThrow(new IllegalStateException("metadata timeout"));
+
+        assertThatThrownBy(() -> publisher.publish("p1", 1))
+                .isInstanceOf(IllegalStateException.class);
+
+        verify(productReadCache).publishing();
+        verify(productReadCache).published(Map.of());
+    }
+
+    private static SendResult<String, Object> sent(int partition, long offset) {
+        return new SendResult<>(new ProducerRecord<>("catalog.stock", "key"),
+                new RecordMetadata(new TopicPartition("catalog.stock", partition), offset, 0, 0L,
+                        0, 0));
+    }
+}
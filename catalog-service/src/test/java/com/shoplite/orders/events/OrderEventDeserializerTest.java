@@ -0,0 +1,76 @@
+package com.shoplite.orders.events;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import org.apache.kafka.common.errors.SerializationException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Decodes the bytes order-service's OrderEventCodecTest pins its encoder to (this module's copy of
+ * the order-events-v1 contract).
+ */
+class OrderEventDeserializerTest {
+
+    // same names and events as order-service's OrderEventCodecTest
+    private static final Map<String, Object> EVENTS = Map.of(
+            "order-placed", new OrderPlaced("order-1", "product-1", 3),
+            "order-placed-multibyte", new OrderPlaced("order-2", "prodüct-€", 300));
+
+    private static final Properties CONTRACT = new Properties();
+
+    private final OrderEventDeserializer deserializer = new OrderEventDeserializer();
+
+    @BeforeAll
+    static void loadContract() throws Exception {
+        try (InputStream in = OrderEventDeserializerTest.class
+                .getResourceAsStream("/contracts/order-events-v1.properties")) {
+            CONTRACT.load(in);
+        }
+    }
+
+    @AfterEach
+    void close() {
+        deserializer.close();
+    }
+
+    @Test
+    void decodesWhatOrderServiceEncodes() {
+        deserializer.configure(Map.of(), false);
+
+        EVENTS.forEach((name, event) -> assertThat(deserializer.deserialize("orders.events",
+                HexFormat.of().parseHex(CONTRACT.getProperty(name)))).as(name).isEqualTo(event));
+    }
+
+    @Test
+    void rejectsOrderRejectedAndRetiredTypesAsUnknown() {
+        deserializer.configure(Map.of(), false);
+
+        for (String name : List.of("order-rejected", "cart-order-placed")) {
+            assertThatExceptionOfType(SerializationException.class).as(name)
+                    .isThrownBy(() -> deserializer.deserialize("orders.events",
+                            HexFormat.of().parseHex(CONTRACT.getProperty(name))))
+                    .withMessageContaining("orders.events");
+        }
+    }
+
+    @Test
+    void stillReadsJsonOrderEvents() {
+        deserializer.configure(Map.of("spring.json.trusted-packages", "com.shoplite.orders.events",
+                "spring.json.value.default.type", OrderPlaced.class.getName()), false);
+
+        byte[] json = "{\"orderId\":\"order-1\",\"productId\":\"product-1\",\"quantity\":3}"
+                .getBytes(StandardCharsets.UTF_8);
+
+        assertThat(deserializer.deserialize("orders.events", json))
+                .isEqualTo(EVENTS.get("order-placed"));
+    }
+}
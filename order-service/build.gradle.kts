@@ -36,3 +36,9 @@ dependencyManagement {
         mavenBom("org.springframework.cloud:spring-cloud-dependencies:2023.0.1")
     }
 }
+
+tasks.withType<Test> {
+    useJUnitPlatform()
+    // -Pbenchmark runs OrderEventCodecTest's serde timing against JSON
+    systemProperty("shoplite.benchmark", project.hasProperty("benchmark"))
+}
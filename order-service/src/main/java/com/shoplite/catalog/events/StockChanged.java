@@ -0,0 +1,7 @@
+package com.shoplite.catalog.events;
+
+import java.util.List;
+
+// orderIds: orders whose decrement this stock value includes (null from older catalog versions)
+public record StockChanged(String productId, int stock, List<String> orderIds) {
+}
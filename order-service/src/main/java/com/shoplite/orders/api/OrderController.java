@@ -1,5 +1,6 @@
 package com.shoplite.orders.api;
 
+import com.shoplite.orders.api.dto.CheckoutRequest;
 import com.shoplite.orders.api.dto.PlaceOrderRequest;
 import com.shoplite.orders.events.OrderEvent;
 import com.shoplite.orders.events.OrderPlaced;
@@ -7,21 +8,29 @@ import com.shoplite.orders.events.OrderRejected;
 import com.shoplite.orders.service.OrderService;
 import io.micrometer.tracing.Span;
 import io.micrometer.tracing.Tracer;
+import jakarta.validation.Valid;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.List;
+
 @RestController
 @RequestMapping("/api/orders")
 public class OrderController {
     private static final Logger log = LoggerFactory.getLogger(OrderController.class);
     private final OrderService orderService;
     private final Tracer tracer;
+    private final int maxBatchSize;
 
-    public OrderController(OrderService orderService, Tracer tracer) {
+    public OrderController(OrderService orderService, Tracer tracer,
+            @Value("${orders.batch.max-size:1000}") int maxBatchSize) {
         this.orderService = orderService;
         this.tracer = tracer;
+        this.maxBatchSize = maxBatchSize;
     }
 
     @PostMapping
@@ -60,4 +69,81 @@ public class OrderController {
             span.end();
         }
     }
+
+    /**
+     * Cart checkout: all lines become a single order, published as one OrderPlaced per product.
+     * Returns 200 with those OrderPlaced events (sharing the order id), or 400 with the
+     * OrderRejected. Carts without lines, with more than 100 or with malformed lines (no product
+     * id) are refused with 400 before anything is reserved or written.
+     */
+    @PostMapping("/checkout")
+    public ResponseEntity<List<OrderEvent>> checkout(
+            @Valid @RequestBody CheckoutRequest checkoutRequest) {
+        int lineCount = checkoutRequest.lines().size();
+        Span span = tracer.nextSpan().name("checkout-order")
+                .tag("order.lines", String.valueOf(lineCount)).start();
+
+        try (Tracer.SpanInScope ws = tracer.withSpan(span)) {
+            log.info("Received checkout with {} lines", lineCount);
+
+            var events = orderService.checkout(checkoutRequest);
+            return switch (events.get(0)) {
+                case OrderPlaced orderPlaced -> {
+                    log.info("Order placed successfully with ID: {}", orderPlaced.orderId());
+                    span.event("Order placed successfully")
+                            .tag("order.id", orderPlaced.orderId()).tag("status", "SUCCESS");
+                    yield ResponseEntity.ok(events);
+                }
+                case OrderRejected orderRejected -> {
+                    log.warn("Checkout rejected due to: {}", orderRejected.reason());
+                    span.event("Order rejected").tag("reason", orderRejected.reason())
+                            .tag("status", "REJECTED");
+                    yield ResponseEntity.badRequest().body(events);
+                }
+            };
+        } finally {
+            span.end();
+        }
+    }
+
+    /**
+     * Bulk placement for B2B clients: one HTTP call and one transaction for many orders. Returns
+     * 200 with one OrderPlaced/OrderRejected per request item, in order. A batch larger than
+     * orders.batch.max-size is refused whole with 413, and malformed items (null or no product id)
+     * with 400, before anything is reserved or written. Bodies over orders.batch.max-bytes are
+     * refused by OrderBatchSizeFilter before they are parsed.
+     */
+    @PostMapping("/batch")
+    public ResponseEntity<List<OrderEvent>> placeBatch(
+            @RequestBody List<@Valid PlaceOrderRequest> placeOrderRequests) {
+        Span span = tracer.nextSpan().name("place-order-batch")
+                .tag("batch.size", String.valueOf(placeOrderRequests.size())).start();
+
+        try (Tracer.SpanInScope ws = tracer.withSpan(span)) {
+            log.info("Received batch of {} orders", placeOrderRequests.size());
+            if (placeOrderRequests.size() > maxBatchSize) {
+                var rejection = new OrderRejected("Batch of %d orders exceeds the maximum of %d"
+                        .formatted(placeOrderRequests.size(), maxBatchSize));
+                log.warn(rejection.reason());
+                span.event("Batch rejected").tag("status", "REJECTED");
+                return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE)
+                        .body(List.of(rejection));
+            }
+            int nullItem = placeOrderRequests.indexOf(null);
+            if (nullItem >= 0) {
+                var rejection = new OrderRejected("Batch item %d is null".formatted(nullItem));
+                log.warn(rejection.reason());
+                span.event("Batch rejected").tag("status", "REJECTED");
+                return ResponseEntity.badRequest().body(List.of(rejection));
+            }
+
+            var results = orderService.placeAll(placeOrderRequests);
+            long rejected = results.stream().filter(OrderRejected.class::isInstance).count();
+            span.tag("batch.placed", String.valueOf(results.size() - rejected))
+                    .tag("batch.rejected", String.valueOf(rejected));
+            return ResponseEntity.ok(results);
+        } finally {
+            span.end();
+        }
+    }
 }
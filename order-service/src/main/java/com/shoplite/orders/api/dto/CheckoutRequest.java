@@ -0,0 +1,15 @@
+package com.shoplite.orders.api.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import java.util.List;
+
+// cart checkout: several products in a single order; quantities are checked by OrderService
+public record CheckoutRequest(@NotEmpty @Size(max = 100) List<@NotNull @Valid Line> lines) {
+
+    public record Line(@NotBlank @Size(max = 64) String productId, int quantity) {
+    }
+}
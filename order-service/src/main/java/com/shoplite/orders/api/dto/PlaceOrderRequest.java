@@ -1,5 +1,9 @@
 package com.shoplite.orders.api.dto;
 
-// Java 16+ records (highlight vs POJOs)
-public record PlaceOrderRequest(String productId, int quantity) {
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Size;
+
+// Java 16+ records (highlight vs POJOs); quantity is checked by OrderService (reported as
+// OrderRejected), the product id only where the request is @Valid
+public record PlaceOrderRequest(@NotBlank @Size(max = 64) String productId, int quantity) {
 }
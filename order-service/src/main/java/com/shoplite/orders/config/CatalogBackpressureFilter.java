@@ -0,0 +1,87 @@
+package com.shoplite.orders.config;
+
+import com.shoplite.orders.service.CatalogLagMonitor;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.concurrent.ThreadLocalRandom;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+/**
+ * Slows order intake while catalog-service is behind on orders.events, so stock decisions are not
+ * made against an inventory that is minutes stale.
+ *
+ * Applies to new orders only (POST /api/orders/**). Up to throttle-lag records of catalog lag
+ * every order is admitted; between throttle-lag and reject-lag the admitted share falls linearly to
+ * zero; from reject-lag on every order is answered 503 with Retry-After. Unknown lag (broker
+ * unreachable, see CatalogLagMonitor) admits everything. Decisions are counted as
+ * orders.backpressure.requests{result=admitted|throttled|rejected}.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 20)
+@ConditionalOnProperty(name = "orders.backpressure.enabled", havingValue = "true")
+public class CatalogBackpressureFilter extends OncePerRequestFilter {
+
+    private final CatalogLagMonitor catalogLagMonitor;
+    private final long throttleLag;
+    private final long rejectLag;
+    private final String retryAfterSeconds;
+    private final Counter admitted;
+    private final Counter throttled;
+    private final Counter rejected;
+
+    public CatalogBackpressureFilter(CatalogLagMonitor catalogLagMonitor,
+            MeterRegistry meterRegistry,
+            @Value("${orders.backpressure.throttle-lag:10000}") long throttleLag,
+            @Value("${orders.backpressure.reject-lag:50000}") long rejectLag,
+            @Value("${orders.backpressure.retry-after-seconds:5}") int retryAfterSeconds) {
+        this.catalogLagMonitor = catalogLagMonitor;
+        this.throttleLag = throttleLag;
+        this.rejectLag = Math.max(rejectLag, throttleLag + 1);
+        this.retryAfterSeconds = String.valueOf(retryAfterSeconds);
+        this.admitted = counter(meterRegistry, "admitted");
+        this.throttled = counter(meterRegistry, "throttled");
+        this.rejected = counter(meterRegistry, "rejected");
+    }
+
+    private static Counter counter(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("orders.backpressure.requests").tag("result", result)
+                .register(meterRegistry);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !HttpMethod.POST.matches(request.getMethod())
+                || !request.getRequestURI().startsWith("/api/orders");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+            FilterChain chain) throws ServletException, IOException {
+        long lag = catalogLagMonitor.lag();
+        if (lag > throttleLag) {
+            boolean reject = lag >= rejectLag;
+            double admitShare = (double) (rejectLag - lag) / (rejectLag - throttleLag);
+            if (reject || ThreadLocalRandom.current().nextDouble() >= admitShare) {
+                (reject ? rejected : throttled).increment();
+                response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+                response.setHeader(HttpHeaders.RETRY_AFTER, retryAfterSeconds);
+                return;
+            }
+        }
+        admitted.increment();
+        chain.doFilter(request, response);
+    }
+}
@@ -0,0 +1,35 @@
+package com.shoplite.orders.config;
+
+import java.util.Map;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.kafka.DefaultKafkaProducerFactoryCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * High-throughput producer profile for the outbox relay (orders.events).
+ *
+ * The relay hands Kafka hundreds of records per run, so a short linger, large batches and LZ4
+ * compression cut broker requests and bytes on the wire. Idempotence with acks=all keeps producer
+ * retries from duplicating or reordering records within a partition.
+ */
+@Configuration
+@ConditionalOnProperty(name = "orders.kafka.high-throughput.enabled", havingValue = "true")
+public class KafkaProducerConfig {
+
+    @Bean
+    public DefaultKafkaProducerFactoryCustomizer highThroughputProducer(
+            @Value("${orders.kafka.high-throughput.linger-ms:10}") int lingerMs,
+            @Value("${orders.kafka.high-throughput.batch-size:131072}") int batchSize,
+            @Value("${orders.kafka.high-throughput.compression:lz4}") String compression) {
+        return producerFactory -> producerFactory.updateConfigs(Map.of(
+                ProducerConfig.LINGER_MS_CONFIG, lingerMs,
+                ProducerConfig.BATCH_SIZE_CONFIG, batchSize,
+                ProducerConfig.COMPRESSION_TYPE_CONFIG, compression,
+                ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, true,
+                ProducerConfig.ACKS_CONFIG, "all",
+                ProducerConfig.MAX_IN_FLIGHT_REQUESTS_PER_CONNECTION_CONFIG, 5));
+    }
+}
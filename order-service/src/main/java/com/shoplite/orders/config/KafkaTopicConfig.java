@@ -0,0 +1,22 @@
+package com.shoplite.orders.config;
+
+import org.apache.kafka.clients.admin.NewTopic;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.config.TopicBuilder;
+
+/**
+ * Topics owned by Order Service. orders.events is keyed by productId; its partition count bounds
+ * how many catalog consumer threads (across all pods) can apply stock updates in parallel. Raising
+ * it adds partitions on startup, which moves some products to new partitions, so do it while
+ * orders are drained.
+ */
+@Configuration
+public class KafkaTopicConfig {
+
+    @Bean
+    public NewTopic ordersTopic(@Value("${orders.events.partitions:6}") int partitions) {
+        return TopicBuilder.name("orders.events").partitions(partitions).build();
+    }
+}
@@ -1,13 +1,17 @@
 package com.shoplite.orders.config;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpStatus;
 import org.springframework.security.config.Customizer;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationConverter;
 import org.springframework.security.oauth2.server.resource.authentication.JwtGrantedAuthoritiesConverter;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.authentication.AnonymousAuthenticationFilter;
+import org.springframework.security.web.authentication.HttpStatusEntryPoint;
 
 /**
  * Security configuration for Order Service (Spring MVC).
@@ -15,11 +19,19 @@ import org.springframework.security.web.SecurityFilterChain;
  * Purpose: - Stateless resource server that validates Auth0 JWTs (issuer/audience in yml). -
  * Exposes /actuator/** without auth; all other endpoints require a valid JWT. - Maps Auth0
  * permissions to Spring authorities with the "SCOPE_" prefix for downstream method/route checks, if
- * needed.
+ * needed. - With security.identity.trusted=true, authenticates from the gateway's signed identity
+ * assertion instead of re-verifying the JWT (see GatewayIdentityFilter).
  */
 @Configuration
 public class SecurityConfig {
 
+    // trusted-identity mode: accept the gateway's HMAC-signed assertion instead of the JWT
+    @Value("${security.identity.trusted:false}")
+    private boolean trustGatewayIdentity;
+
+    @Value("${security.identity.key:}")
+    private String identityKey;
+
     /**
      * Builds the servlet security chain with stateless session, actuator permitAll, and resource
      * server JWT support.
@@ -29,9 +41,16 @@ public class SecurityConfig {
         http.csrf(csrf -> csrf.disable())
                 .sessionManagement(sm -> sm.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
                 .authorizeHttpRequests(auth -> auth.requestMatchers("/actuator/**").permitAll()
-                        .anyRequest().authenticated())
-                .oauth2ResourceServer(oauth -> oauth
-                        .jwt(jwt -> jwt.jwtAuthenticationConverter(jwtAuthenticationConverter())));
+                        .anyRequest().authenticated());
+        if (trustGatewayIdentity) {
+            http.addFilterBefore(new GatewayIdentityFilter(identityKey),
+                    AnonymousAuthenticationFilter.class)
+                    .exceptionHandling(ex -> ex.authenticationEntryPoint(
+                            new HttpStatusEntryPoint(HttpStatus.UNAUTHORIZED)));
+        } else {
+            http.oauth2ResourceServer(oauth -> oauth
+                    .jwt(jwt -> jwt.jwtAuthenticationConverter(jwtAuthenticationConverter())));
+        }
         return http.build();
     }
 
@@ -2,22 +2,47 @@ package com.shoplite.orders.domain;
 
 import jakarta.persistence.*;
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.UUID;
+import org.springframework.data.domain.Persistable;
 
 @Entity
 @Table(name = "orders")
-public class Order {
+public class Order implements Persistable<String> {
   @Id
   private String id = UUID.randomUUID().toString();
 
+  // single-product orders; cart orders leave these unset and use lines instead
   private String productId;
   private int quantity;
   private Instant createdAt = Instant.now();
 
+  @ElementCollection
+  @CollectionTable(name = "order_lines", joinColumns = @JoinColumn(name = "order_id"))
+  @OrderColumn(name = "line_no")
+  private List<OrderLine> lines = new ArrayList<>();
+
+  // id is assigned up front, so tell Spring Data to persist (batchable insert) instead of merge
+  @Transient
+  private boolean isNew = true;
+
+  @Override
   public String getId() {
     return id;
   }
 
+  @Override
+  public boolean isNew() {
+    return isNew;
+  }
+
+  @PostLoad
+  @PostPersist
+  void markNotNew() {
+    this.isNew = false;
+  }
+
   public String getProductId() {
     return productId;
   }
@@ -34,6 +59,14 @@ public class Order {
     this.quantity = quantity;
   }
 
+  public List<OrderLine> getLines() {
+    return lines;
+  }
+
+  public void addLine(OrderLine line) {
+    lines.add(line);
+  }
+
   public Instant getCreatedAt() {
     return createdAt;
   }
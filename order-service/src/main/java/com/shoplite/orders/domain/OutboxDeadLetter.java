@@ -0,0 +1,81 @@
+package com.shoplite.orders.domain;
+
+import jakarta.persistence.*;
+import java.time.Instant;
+
+/**
+ * order_outbox row the relay gave up on (a send failed permanently max-attempts times), kept with
+ * its last error for inspection and manual re-insertion into order_outbox.
+ */
+@Entity
+@Table(name = "order_outbox_dead")
+public class OutboxDeadLetter {
+  /** Id the row had in order_outbox. */
+  @Id
+  private Long id;
+
+  private String topic;
+  private String messageKey;
+  private String eventType;
+
+  @Column(columnDefinition = "text")
+  private String payload;
+
+  private Instant createdAt;
+  private Instant failedAt;
+  private int attempts;
+
+  @Column(columnDefinition = "text")
+  private String error;
+
+  protected OutboxDeadLetter() {
+  }
+
+  public OutboxDeadLetter(OutboxEvent outboxEvent, String error) {
+    this.id = outboxEvent.getId();
+    this.topic = outboxEvent.getTopic();
+    this.messageKey = outboxEvent.getMessageKey();
+    this.eventType = outboxEvent.getEventType();
+    this.payload = outboxEvent.getPayload();
+    this.createdAt = outboxEvent.getCreatedAt();
+    this.failedAt = Instant.now();
+    this.attempts = outboxEvent.getAttempts() + 1;
+    this.error = error;
+  }
+
+  public Long getId() {
+    return id;
+  }
+
+  public String getTopic() {
+    return topic;
+  }
+
+  public String getMessageKey() {
+    return messageKey;
+  }
+
+  public String getEventType() {
+    return eventType;
+  }
+
+  public String getPayload() {
+    return payload;
+  }
+
+  public Instant getCreatedAt() {
+    return createdAt;
+  }
+
+  public Instant getFailedAt() {
+    return failedAt;
+  }
+
+  public int getAttempts() {
+    return attempts;
+  }
+
+  public String getError() {
+    return error;
+  }
+}
@@ -0,0 +1,86 @@
+package com.shoplite.orders.domain;
+
+import jakarta.persistence.*;
+import java.time.Instant;
+
+/**
+ * Pending Kafka message written in the same transaction as the order it describes, then drained
+ * to the broker by the outbox relay.
+ */
+@Entity
+@Table(name = "order_outbox")
+public class OutboxEvent {
+  @Id
+  @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "order_outbox_seq")
+  @SequenceGenerator(name = "order_outbox_seq", sequenceName = "order_outbox_seq",
+      allocationSize = 50)
+  private Long id;
+
+  private String topic;
+  private String messageKey;
+  private String eventType;
+
+  @Column(columnDefinition = "text")
+  private String payload;
+
+  private Instant createdAt = Instant.now();
+
+  /** Set while a relay is sending the row; other relays skip it until then. */
+  private Instant claimedUntil;
+
+  /** Permanent send failures so far (broker timeouts and other retriable errors do not count). */
+  @Column(nullable = false, columnDefinition = "integer default 0")
+  private int attempts;
+
+  protected OutboxEvent() {
+  }
+
+  public OutboxEvent(String topic, String messageKey, String eventType, String payload) {
+    this.topic = topic;
+    this.messageKey = messageKey;
+    this.eventType = eventType;
+    this.payload = payload;
+  }
+
+  public Long getId() {
+    return id;
+  }
+
+  public String getTopic() {
+    return topic;
+  }
+
+  public String getMessageKey() {
+    return messageKey;
+  }
+
+  public String getEventType() {
+    return eventType;
+  }
+
+  public String getPayload() {
+    return payload;
+  }
+
+  public Instant getCreatedAt() {
+    return createdAt;
+  }
+
+  public Instant getClaimedUntil() {
+    return claimedUntil;
+  }
+
+  public int getAttempts() {
+    return attempts;
+  }
+
+  public void claim(Instant until) {
+    this.claimedUntil = until;
+  }
+
+  @Override
+  public String toString() {
+    return "OutboxEvent{" + "id=" + id + ", topic='" + topic + '\'' + ", messageKey='"
+        + messageKey + '\'' + ", eventType='" + eventType + '\'' + ", attempts=" + attempts + '}';
+  }
+}
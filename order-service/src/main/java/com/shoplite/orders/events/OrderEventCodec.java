@@ -0,0 +1,148 @@
+package com.shoplite.orders.events;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Compact binary wire format for OrderEvent (format version 1).
+ *
+ * Layout: MAGIC, VERSION, type tag, then the fields in declaration order. Strings are a varint
+ * byte length followed by UTF-8; ints are unsigned varints. Type tags: 1 = OrderPlaced(orderId,
+ * productId, quantity), 3 = OrderRejected(reason). Tag 2 was the multi-product CartOrderPlaced,
+ * retired because it had no single product key; it is no longer encoded or decoded and must not be
+ * reused.
+ *
+ * MAGIC (0xC5) can never start a JSON document, so consumers tell binary records from JSON ones by
+ * the first byte and both formats can be on the topic during a rollout. Fields are only ever
+ * appended in a new VERSION; decoders reject versions they do not know. The same format is
+ * implemented in catalog-service's copy of this package; keep the two in step.
+ */
+public final class OrderEventCodec {
+
+    public static final byte MAGIC = (byte) 0xC5;
+    public static final byte VERSION = 1;
+
+    private static final byte ORDER_PLACED = 1;
+    private static final byte ORDER_REJECTED = 3;
+
+    private OrderEventCodec() {
+    }
+
+    public static boolean isBinary(byte[] data) {
+        return data != null && data.length > 0 && data[0] == MAGIC;
+    }
+
+    public static byte[] encode(OrderEvent event) {
+        Writer out = new Writer();
+        out.writeByte(MAGIC);
+        out.writeByte(VERSION);
+        switch (event) {
+            case OrderPlaced placed -> {
+                out.writeByte(ORDER_PLACED);
+                out.writeString(placed.orderId());
+                out.writeString(placed.productId());
+                out.writeVarint(placed.quantity());
+            }
+            case OrderRejected rejected -> {
+                out.writeByte(ORDER_REJECTED);
+                out.writeString(rejected.reason());
+            }
+        }
+        return out.toByteArray();
+    }
+
+    public static OrderEvent decode(byte[] data) {
+        Reader in = new Reader(data);
+        if (in.readByte() != MAGIC) {
+            throw new IllegalArgumentException("Not a binary order event");
+        }
+        byte version = in.readByte();
+        if (version != VERSION) {
+            throw new IllegalArgumentException("Unsupported order event version " + version);
+        }
+        byte type = in.readByte();
+        return switch (type) {
+            case ORDER_PLACED -> new OrderPlaced(in.readString(), in.readString(), in.readVarint());
+            case ORDER_REJECTED -> new OrderRejected(in.readString());
+            default -> throw new IllegalArgumentException("Unknown order event type " + type);
+        };
+    }
+
+    private static final class Writer {
+        private byte[] buffer = new byte[64];
+        private int size;
+
+        void writeByte(byte b) {
+            ensure(1);
+            buffer[size++] = b;
+        }
+
+        void writeVarint(int value) {
+            if (value < 0) {
+                throw new IllegalArgumentException("Negative value " + value);
+            }
+            ensure(5);
+            while ((value & ~0x7F) != 0) {
+                buffer[size++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            buffer[size++] = (byte) value;
+        }
+
+        void writeString(String value) {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            writeVarint(bytes.length);
+            ensure(bytes.length);
+            System.arraycopy(bytes, 0, buffer, size, bytes.length);
+            size += bytes.length;
+        }
+
+        private void ensure(int extra) {
+            if (size + extra > buffer.length) {
+                buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, size + extra));
+            }
+        }
+
+        byte[] toByteArray() {
+            return Arrays.copyOf(buffer, size);
+        }
+    }
+
+    private static final class Reader {
+        private final byte[] data;
+        private int position;
+
+        Reader(byte[] data) {
+            this.data = data;
+        }
+
+        byte readByte() {
+            if (position >= data.length) {
+                throw new IllegalArgumentException("Truncated order event");
+            }
+            return data[position++];
+        }
+
+        int readVarint() {
+            int value = 0;
+            for (int shift = 0; shift < 32; shift += 7) {
+                byte b = readByte();
+                value |= (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new IllegalArgumentException("Malformed varint");
+        }
+
+        String readString() {
+            int length = readVarint();
+            if (length < 0 || length > data.length - position) {
+                throw new IllegalArgumentException("Truncated order event");
+            }
+            String value = new String(data, position, length, StandardCharsets.UTF_8);
+            position += length;
+            return value;
+        }
+    }
+}
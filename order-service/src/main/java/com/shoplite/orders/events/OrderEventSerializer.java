@@ -0,0 +1,45 @@
+package com.shoplite.orders.events;
+
+import java.util.Map;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.serialization.Serializer;
+import org.springframework.kafka.support.serializer.JsonSerializer;
+
+/**
+ * Kafka value serializer for order-service: OrderEvents are written with OrderEventCodec when
+ * shoplite.events.codec=binary, everything else (and every value in json mode) goes through
+ * Spring's JsonSerializer with type headers as before.
+ *
+ * Roll out by upgrading consumers first (they accept both formats), then switching producers.
+ */
+public class OrderEventSerializer implements Serializer<Object> {
+
+    public static final String CODEC_CONFIG = "shoplite.events.codec";
+
+    private final JsonSerializer<Object> json = new JsonSerializer<>();
+    private boolean binary;
+
+    @Override
+    public void configure(Map<String, ?> configs, boolean isKey) {
+        json.configure(configs, isKey);
+        binary = "binary".equalsIgnoreCase(String.valueOf(configs.get(CODEC_CONFIG)));
+    }
+
+    @Override
+    public byte[] serialize(String topic, Object data) {
+        return serialize(topic, null, data);
+    }
+
+    @Override
+    public byte[] serialize(String topic, Headers headers, Object data) {
+        if (binary && data instanceof OrderEvent event) {
+            return OrderEventCodec.encode(event);
+        }
+        return headers == null ? json.serialize(topic, data) : json.serialize(topic, headers, data);
+    }
+
+    @Override
+    public void close() {
+        json.close();
+    }
+}
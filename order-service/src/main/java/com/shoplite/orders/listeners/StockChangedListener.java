@@ -0,0 +1,117 @@
+package com.shoplite.orders.listeners;
+
+import com.shoplite.catalog.events.StockChanged;
+import com.shoplite.orders.service.StockView;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import org.apache.kafka.clients.admin.Admin;
+import org.apache.kafka.clients.admin.OffsetSpec;
+import org.apache.kafka.common.TopicPartition;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.core.KafkaAdmin;
+import org.springframework.kafka.listener.ConsumerSeekAware;
+import org.springframework.kafka.support.KafkaHeaders;
+import org.springframework.messaging.handler.annotation.Header;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Feeds StockView from catalog.stock. Every instance uses its own consumer group and reads the
+ * compacted topic from the beginning, so each one bootstraps the full view on startup. The end
+ * offsets looked up on assignment tell the view when that replay is done. The group has no other
+ * member, so there is no later assignment to try again on: a failed lookup is retried every
+ * orders.stock-view.end-offsets-retry-ms until it succeeds.
+ *
+ * The lookup is a blocking Admin call of up to 10s. It runs under a ReentrantLock rather than a
+ * monitor, so it never pins a virtual thread's carrier, and a caller that finds a lookup already
+ * running leaves its assignment to the next retry instead of waiting.
+ */
+@Component
+@ConditionalOnProperty(name = "orders.stock-view.enabled", havingValue = "true",
+        matchIfMissing = true)
+public class StockChangedListener implements ConsumerSeekAware {
+
+    private static final Logger LOG = LoggerFactory.getLogger(StockChangedListener.class);
+    private static final long END_OFFSETS_TIMEOUT_MS = 10_000;
+
+    private final StockView stockView;
+    private final KafkaAdmin kafkaAdmin;
+    private final ReentrantLock lookupLock = new ReentrantLock();
+    // positions at assignment, until their end offsets have been looked up
+    private volatile Map<TopicPartition, Long> pendingAssignment;
+
+    public StockChangedListener(StockView stockView, KafkaAdmin kafkaAdmin) {
+        this.stockView = stockView;
+        this.kafkaAdmin = kafkaAdmin;
+    }
+
+    @KafkaListener(topics = "${orders.stock-view.topic:catalog.stock}",
+            groupId = "order-service-stock-${random.uuid}",
+            properties = {"auto.offset.reset:earliest", "enable.auto.commit:false"})
+    public void onStockChanged(StockChanged stockChanged,
+            @Header(KafkaHeaders.RECEIVED_PARTITION) int partition,
+            @Header(KafkaHeaders.OFFSET) long offset) {
+        LOG.debug("Stock view update: {}", stockChanged);
+        stockView.update(stockChanged.productId(), stockChanged.stock(), stockChanged.orderIds());
+        stockView.read(partition, offset + 1);
+    }
+
+    @Override
+    public void onPartitionsAssigned(Map<TopicPartition, Long> assignments,
+            ConsumerSeekCallback callback) {
+        if (stockView.replayed()) {
+            return;
+        }
+        pendingAssignment = Map.copyOf(assignments);
+        lookUpEndOffsets();
+    }
+
+    @Scheduled(fixedDelayString = "${orders.stock-view.end-offsets-retry-ms:5000}")
+    void retryEndOffsets() {
+        if (pendingAssignment != null && !stockView.replayed()) {
+            lookUpEndOffsets();
+        }
+    }
+
+    private void lookUpEndOffsets() {
+        if (!lookupLock.tryLock()) {
+            return;
+        }
+        try {
+            lookUpEndOffsets(pendingAssignment);
+        } finally {
+            lookupLock.unlock();
+        }
+    }
+
+    private void lookUpEndOffsets(Map<TopicPartition, Long> assignments) {
+        if (assignments == null) {
+            return;
+        }
+        Map<TopicPartition, OffsetSpec> latest = new HashMap<>();
+        assignments.keySet().forEach(partition -> latest.put(partition, OffsetSpec.latest()));
+        try (Admin admin = Admin.create(kafkaAdmin.getConfigurationProperties())) {
+            Map<Integer, Long> positions = new HashMap<>();
+            Map<Integer, Long> ends = new HashMap<>();
+            assignments.forEach((partition, position) ->
+                    positions.put(partition.partition(), position));
+            admin.listOffsets(latest).all().get(END_OFFSETS_TIMEOUT_MS, TimeUnit.MILLISECONDS)
+                    .forEach((partition, info) -> ends.put(partition.partition(), info.offset()));
+            stockView.replaying(positions, ends);
+            if (pendingAssignment == assignments) {
+                pendingAssignment = null;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            // the view stays not replayed (and the instance out of service) until a retry manages
+            // to read the end offsets
+            LOG.warn("Could not read catalog.stock end offsets, retrying: {}", e.toString());
+        }
+    }
+}
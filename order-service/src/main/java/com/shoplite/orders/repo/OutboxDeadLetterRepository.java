@@ -0,0 +1,7 @@
+package com.shoplite.orders.repo;
+
+import com.shoplite.orders.domain.OutboxDeadLetter;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface OutboxDeadLetterRepository extends JpaRepository<OutboxDeadLetter, Long> {
+}
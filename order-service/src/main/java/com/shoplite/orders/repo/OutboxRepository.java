@@ -0,0 +1,42 @@
+package com.shoplite.orders.repo;
+
+import com.shoplite.orders.domain.OutboxEvent;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+public interface OutboxRepository extends JpaRepository<OutboxEvent, Long> {
+
+    /**
+     * Locks the oldest rows no relay currently holds a claim on (claimed_until unset or past). Rows
+     * locked by another order-service instance are skipped rather than waited on, so relays share
+     * the backlog. The caller marks the rows claimed before its transaction commits.
+     */
+    @Query(value = """
+            SELECT * FROM order_outbox
+            WHERE claimed_until IS NULL OR claimed_until < :now
+            ORDER BY id
+            LIMIT :limit
+            FOR UPDATE SKIP LOCKED
+            """, nativeQuery = true)
+    List<OutboxEvent> claimBatch(@Param("now") Instant now, @Param("limit") int limit);
+
+    /**
+     * Drops the claim on rows that were not delivered so the next relay run picks them up again.
+     */
+    @Modifying
+    @Query("UPDATE OutboxEvent e SET e.claimedUntil = null WHERE e.id IN :ids")
+    int release(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Releases rows whose send failed permanently and counts the attempt.
+     */
+    @Modifying
+    @Query("UPDATE OutboxEvent e SET e.claimedUntil = null, e.attempts = e.attempts + 1"
+            + " WHERE e.id IN :ids")
+    int releaseFailed(@Param("ids") Collection<Long> ids);
+}
@@ -0,0 +1,107 @@
+package com.shoplite.orders.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.apache.kafka.clients.admin.Admin;
+import org.apache.kafka.clients.admin.ListOffsetsResult.ListOffsetsResultInfo;
+import org.apache.kafka.clients.admin.OffsetSpec;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.kafka.core.KafkaAdmin;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Tracks how far catalog-service is behind on orders.events: the sum over partitions of the log
+ * end offset minus the catalog consumer group's committed offset. A partition with no commit, or
+ * with a commit that retention has since deleted past, counts from its log start offset, which is
+ * where the consumer would resume. Polled from the broker with the admin client every
+ * poll-interval-ms and exported as orders.catalog.lag.
+ *
+ * {@link #lag()} is -1 when the last successful poll is older than stale-after-ms, so callers can
+ * fail open while the broker is unreachable rather than act on an old value.
+ */
+@Component
+@ConditionalOnProperty(name = "orders.backpressure.enabled", havingValue = "true")
+public class CatalogLagMonitor implements DisposableBean {
+
+    private static final Logger LOG = LoggerFactory.getLogger(CatalogLagMonitor.class);
+
+    private final Admin admin;
+    private final String groupId;
+    private final long timeoutMs;
+    private final long staleAfterMs;
+    private volatile long lag = -1;
+    private volatile long updatedAt;
+
+    public CatalogLagMonitor(KafkaAdmin kafkaAdmin, MeterRegistry meterRegistry,
+            @Value("${orders.backpressure.catalog-group:catalog-service}") String groupId,
+            @Value("${orders.backpressure.poll-interval-ms:5000}") long pollIntervalMs,
+            @Value("${orders.backpressure.stale-after-ms:30000}") long staleAfterMs) {
+        this.admin = Admin.create(kafkaAdmin.getConfigurationProperties());
+        this.groupId = groupId;
+        this.timeoutMs = pollIntervalMs;
+        this.staleAfterMs = staleAfterMs;
+        Gauge.builder("orders.catalog.lag", this, CatalogLagMonitor::lag).baseUnit("records")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Records catalog-service has yet to consume from orders.events, or -1 if unknown.
+     */
+    public long lag() {
+        return System.currentTimeMillis() - updatedAt > staleAfterMs ? -1 : lag;
+    }
+
+    @Scheduled(fixedDelayString = "${orders.backpressure.poll-interval-ms:5000}")
+    public void refresh() {
+        try {
+            var partitions = admin.describeTopics(List.of(OrderService.ORDERS_TOPIC))
+                    .allTopicNames().get(timeoutMs, TimeUnit.MILLISECONDS)
+                    .get(OrderService.ORDERS_TOPIC).partitions();
+            Map<TopicPartition, OffsetSpec> latest = new HashMap<>();
+            Map<TopicPartition, OffsetSpec> earliest = new HashMap<>();
+            partitions.forEach(info -> {
+                var partition = new TopicPartition(OrderService.ORDERS_TOPIC, info.partition());
+                latest.put(partition, OffsetSpec.latest());
+                earliest.put(partition, OffsetSpec.earliest());
+            });
+            Map<TopicPartition, ListOffsetsResultInfo> ends = admin.listOffsets(latest).all()
+                    .get(timeoutMs, TimeUnit.MILLISECONDS);
+            Map<TopicPartition, ListOffsetsResultInfo> starts = admin.listOffsets(earliest).all()
+                    .get(timeoutMs, TimeUnit.MILLISECONDS);
+            Map<TopicPartition, OffsetAndMetadata> committed = admin
+                    .listConsumerGroupOffsets(groupId).partitionsToOffsetAndMetadata()
+                    .get(timeoutMs, TimeUnit.MILLISECONDS);
+
+            long total = 0;
+            for (var end : ends.entrySet()) {
+                OffsetAndMetadata offset = committed.get(end.getKey());
+                long start = starts.get(end.getKey()).offset();
+                long consumed = offset == null ? start : Math.max(start, offset.offset());
+                total += Math.max(0, end.getValue().offset() - consumed);
+            }
+            lag = total;
+            updatedAt = System.currentTimeMillis();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            LOG.warn("Could not read {} lag on {}: {}", groupId, OrderService.ORDERS_TOPIC,
+                    e.toString());
+        }
+    }
+
+    @Override
+    public void destroy() {
+        admin.close();
+    }
+}
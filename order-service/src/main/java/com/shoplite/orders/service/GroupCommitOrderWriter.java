@@ -0,0 +1,214 @@
+package com.shoplite.orders.service;
+
+import com.shoplite.orders.repo.OrderRepository;
+import com.shoplite.orders.repo.OutboxRepository;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Group-commit writer (orders.group-commit.enabled=true).
+ *
+ * Callers enqueue their write and block until it is durable. A single flusher thread collects
+ * everything that arrives within window-ms of the first pending write (or up to max-batch writes)
+ * and commits it as one transaction with batched JDBC inserts for orders and order_outbox. If a
+ * group fails, its writes are retried one by one so a single bad row only fails its own caller.
+ *
+ * A caller waits at most write-timeout-ms and then fails. Its write is dropped if the flusher has
+ * not picked it up yet; if the flusher already has, it may still commit. Writes left when the
+ * flusher stops, or enqueued after it has, fail at once instead of waiting.
+ *
+ * Metrics: orders.group_commit.batch.size, orders.group_commit.flush, orders.group_commit.queue and
+ * the configured orders.group_commit.window / orders.group_commit.max_batch.
+ */
+@Component
+@ConditionalOnProperty(name = "orders.group-commit.enabled", havingValue = "true")
+public class GroupCommitOrderWriter implements OrderWriter {
+
+    private static final Logger LOG = LoggerFactory.getLogger(GroupCommitOrderWriter.class);
+
+    private record Pending(OrderWrite orderWrite, CompletableFuture<Void> done) {
+    }
+
+    private final BlockingQueue<Pending> queue = new LinkedBlockingQueue<>();
+    private final OrderRepository orderRepository;
+    private final OutboxRepository outboxRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final long windowNanos;
+    private final int maxBatch;
+    private final long writeTimeoutMs;
+    private final DistributionSummary batchSizes;
+    private final Timer flushTimer;
+    private final Thread flusher;
+    private volatile boolean running = true;
+
+    public GroupCommitOrderWriter(OrderRepository orderRepository,
+            OutboxRepository outboxRepository, TransactionTemplate transactionTemplate,
+            MeterRegistry meterRegistry,
+            @Value("${orders.group-commit.window-ms:2}") long windowMs,
+            @Value("${orders.group-commit.max-batch:64}") int maxBatch,
+            @Value("${orders.group-commit.write-timeout-ms:5000}") long writeTimeoutMs) {
+        this.orderRepository = orderRepository;
+        this.outboxRepository = outboxRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.windowNanos = TimeUnit.MILLISECONDS.toNanos(windowMs);
+        this.maxBatch = maxBatch;
+        this.writeTimeoutMs = writeTimeoutMs;
+
+        Gauge.builder("orders.group_commit.window", () -> windowMs).baseUnit("milliseconds")
+                .register(meterRegistry);
+        Gauge.builder("orders.group_commit.max_batch", () -> maxBatch).register(meterRegistry);
+        Gauge.builder("orders.group_commit.queue", queue, BlockingQueue::size)
+                .register(meterRegistry);
+        this.batchSizes = DistributionSummary.builder("orders.group_commit.batch.size")
+                .register(meterRegistry);
+        this.flushTimer = Timer.builder("orders.group_commit.flush").register(meterRegistry);
+        this.flusher = Thread.ofPlatform().name("order-group-commit").daemon()
+                .unstarted(this::run);
+    }
+
+    @PostConstruct
+    void start() {
+        flusher.start();
+    }
+
+    @PreDestroy
+    void stop() {
+        running = false;
+        flusher.interrupt();
+    }
+
+    @Override
+    public void write(OrderWrite orderWrite) {
+        var pending = new Pending(orderWrite, new CompletableFuture<>());
+        queue.add(pending);
+        if (!running) {
+            // the flusher may already have drained the queue for the last time
+            failQueued(new IllegalStateException("Order writer is shutting down"));
+        }
+        try {
+            pending.done().get(writeTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException("Group commit failed", e.getCause());
+        } catch (TimeoutException e) {
+            // dropped unless the flusher already has it
+            pending.done().completeExceptionally(e);
+            throw new IllegalStateException(
+                    "Group commit did not complete within %d ms".formatted(writeTimeoutMs), e);
+        } catch (InterruptedException e) {
+            pending.done().completeExceptionally(e);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted waiting for group commit", e);
+        }
+    }
+
+    @Override
+    public void writeAll(List<OrderWrite> orderWrites) {
+        // already a group; no need to go through the queue
+        transactionTemplate.executeWithoutResult(status -> persist(orderWrites));
+    }
+
+    private void run() {
+        try {
+            collect();
+        } finally {
+            running = false;
+            failQueued(new IllegalStateException("Order writer is shutting down"));
+        }
+    }
+
+    private void collect() {
+        List<Pending> batch = new ArrayList<>(maxBatch);
+        while (running) {
+            try {
+                batch.add(queue.take());
+                long deadline = System.nanoTime() + windowNanos;
+                while (batch.size() < maxBatch) {
+                    long remaining = deadline - System.nanoTime();
+                    Pending next = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS)
+                            : queue.poll();
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                flush(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } finally {
+                fail(batch, new IllegalStateException("Group commit interrupted"));
+                batch.clear();
+            }
+        }
+    }
+
+    private void flush(List<Pending> batch) {
+        // callers that gave up waiting
+        batch.removeIf(pending -> pending.done().isDone());
+        if (batch.isEmpty()) {
+            return;
+        }
+        batchSizes.record(batch.size());
+        flushTimer.record(() -> {
+            try {
+                transactionTemplate.executeWithoutResult(
+                        status -> persist(batch.stream().map(Pending::orderWrite).toList()));
+                batch.forEach(pending -> pending.done().complete(null));
+            } catch (RuntimeException e) {
+                if (batch.size() == 1) {
+                    batch.get(0).done().completeExceptionally(e);
+                    return;
+                }
+                LOG.warn("Group commit of {} orders failed, retrying individually: {}",
+                        batch.size(), e.toString());
+                for (Pending pending : batch) {
+                    try {
+                        transactionTemplate.executeWithoutResult(
+                                status -> persist(List.of(pending.orderWrite())));
+                        pending.done().complete(null);
+                    } catch (RuntimeException single) {
+                        pending.done().completeExceptionally(single);
+                    }
+                }
+            }
+        });
+    }
+
+    private void persist(List<OrderWrite> orderWrites) {
+        orderRepository.saveAll(orderWrites.stream().map(OrderWrite::order).toList());
+        outboxRepository.saveAll(orderWrites.stream()
+                .flatMap(orderWrite -> orderWrite.outboxEvents().stream()).toList());
+    }
+
+    private void failQueued(RuntimeException e) {
+        List<Pending> leftover = new ArrayList<>();
+        queue.drainTo(leftover);
+        fail(leftover, e);
+    }
+
+    private static void fail(List<Pending> pendings, RuntimeException e) {
+        // no-op for writes that already completed
+        pendings.forEach(pending -> pending.done().completeExceptionally(e));
+    }
+}
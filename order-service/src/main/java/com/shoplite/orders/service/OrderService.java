@@ -1,15 +1,21 @@
 package com.shoplite.orders.service;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.shoplite.orders.api.dto.CheckoutRequest;
 import com.shoplite.orders.api.dto.PlaceOrderRequest;
 import com.shoplite.orders.events.OrderPlaced;
 import com.shoplite.orders.events.OrderRejected;
 import com.shoplite.orders.events.OrderEvent;
 import com.shoplite.orders.domain.Order;
-import com.shoplite.orders.repo.OrderRepository;
-import jakarta.transaction.Transactional;
+import com.shoplite.orders.domain.OrderLine;
+import com.shoplite.orders.domain.OutboxEvent;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.stereotype.Service;
 
 @Service
@@ -17,36 +23,179 @@ public class OrderService {
 
     private static final Logger LOG = LoggerFactory.getLogger(OrderService.class);
 
-    private final OrderRepository orderRepository;
-    private final KafkaTemplate<String, OrderPlaced> kafkaTemplate;
+    static final String ORDERS_TOPIC = "orders.events";
+    static final String OUT_OF_STOCK = "out of stock";
 
-    public OrderService(OrderRepository orderRepository,
-            KafkaTemplate<String, OrderPlaced> kafkaTemplate) {
-        this.orderRepository = orderRepository;
-        this.kafkaTemplate = kafkaTemplate;
+    private final OrderWriter orderWriter;
+    private final StockView stockView;
+    private final ObjectMapper objectMapper;
+
+    public OrderService(OrderWriter orderWriter, StockView stockView, ObjectMapper objectMapper) {
+        this.orderWriter = orderWriter;
+        this.stockView = stockView;
+        this.objectMapper = objectMapper;
     }
 
-    @Transactional
     public OrderEvent place(PlaceOrderRequest placeOrderRequest) {
-        if (placeOrderRequest.quantity() <= 0) {
-            var orderRejected = new OrderRejected("Quantity must be > 0");
-            LOG.warn(toLogLine(orderRejected));
-            return orderRejected;
+        var order = toOrder(placeOrderRequest);
+        var rejection = validate(order);
+        if (rejection != null) {
+            LOG.warn(toLogLine(rejection));
+            return rejection;
         }
-        var order = new Order(); // Java 10 var
-        order.setProductId(placeOrderRequest.productId());
-        order.setQuantity(placeOrderRequest.quantity());
-        orderRepository.save(order);
 
         LOG.debug("Order to be placed: {}", order);
 
         var createOrderEvent =
                 new OrderPlaced(order.getId(), order.getProductId(), order.getQuantity());
-        kafkaTemplate.send("orders.events", order.getId(), createOrderEvent);
+        // outbox row is committed atomically with the order; OutboxRelay publishes it to Kafka
+        try {
+            orderWriter.write(
+                    new OrderWrite(order, toOutboxEvent(order.getProductId(), createOrderEvent)));
+        } catch (RuntimeException e) {
+            stockView.release(order.getProductId(), order.getId());
+            throw e;
+        }
         LOG.info(toLogLine(createOrderEvent));
         return createOrderEvent;
     }
 
+    /**
+     * Places many orders in one transaction. Each request is validated like {@link #place}; rejected
+     * items are reported in place and do not fail the rest. Results are in request order.
+     */
+    public List<OrderEvent> placeAll(List<PlaceOrderRequest> placeOrderRequests) {
+        List<OrderEvent> results = new ArrayList<>(placeOrderRequests.size());
+        List<OrderWrite> writes = new ArrayList<>(placeOrderRequests.size());
+        for (PlaceOrderRequest placeOrderRequest : placeOrderRequests) {
+            var order = toOrder(placeOrderRequest);
+            var rejection = validate(order);
+            if (rejection != null) {
+                results.add(rejection);
+                continue;
+            }
+            var createOrderEvent =
+                    new OrderPlaced(order.getId(), order.getProductId(), order.getQuantity());
+            writes.add(new OrderWrite(order,
+                    toOutboxEvent(order.getProductId(), createOrderEvent)));
+            results.add(createOrderEvent);
+        }
+        if (!writes.isEmpty()) {
+            try {
+                orderWriter.writeAll(writes);
+            } catch (RuntimeException e) {
+                writes.forEach(write -> stockView.release(write.order().getProductId(),
+                        write.order().getId()));
+                throw e;
+            }
+        }
+        LOG.info("Batch of {} orders: {} placed, {} rejected", placeOrderRequests.size(),
+                writes.size(), placeOrderRequests.size() - writes.size());
+        return results;
+    }
+
+    /**
+     * Cart checkout: one order with a line per product, one order row (plus order_lines) and one
+     * OrderPlaced event per product, keyed by that product like single orders so catalog applies
+     * it in order with the product's other events. Repeated products are merged into one line.
+     *
+     * @return the OrderPlaced events published for the order, one per product, or a single
+     *         OrderRejected
+     */
+    public List<OrderEvent> checkout(CheckoutRequest checkoutRequest) {
+        var rejection = validate(checkoutRequest);
+        if (rejection != null) {
+            LOG.warn(toLogLine(rejection));
+            return List.of(rejection);
+        }
+        Map<String, Integer> quantities = new LinkedHashMap<>();
+        try {
+            checkoutRequest.lines().forEach(
+                    line -> quantities.merge(line.productId(), line.quantity(), Math::addExact));
+        } catch (ArithmeticException e) {
+            rejection = new OrderRejected("Quantity too large");
+            LOG.warn(toLogLine(rejection));
+            return List.of(rejection);
+        }
+
+        var order = new Order();
+        rejection = reserve(order.getId(), quantities);
+        if (rejection != null) {
+            LOG.warn(toLogLine(rejection));
+            return List.of(rejection);
+        }
+        List<OrderEvent> events = new ArrayList<>(quantities.size());
+        List<OutboxEvent> outboxEvents = new ArrayList<>(quantities.size());
+        quantities.forEach((productId, quantity) -> {
+            order.addLine(new OrderLine(productId, quantity));
+            var orderPlaced = new OrderPlaced(order.getId(), productId, quantity);
+            events.add(orderPlaced);
+            outboxEvents.add(toOutboxEvent(productId, orderPlaced));
+        });
+
+        LOG.debug("Order to be placed: {} with lines {}", order, order.getLines());
+
+        try {
+            orderWriter.write(new OrderWrite(order, outboxEvents));
+        } catch (RuntimeException e) {
+            quantities.keySet().forEach(productId -> stockView.release(productId, order.getId()));
+            throw e;
+        }
+        LOG.info("Checkout {} placed with {} lines", order.getId(), events.size());
+        return events;
+    }
+
+    private OrderRejected validate(CheckoutRequest checkoutRequest) {
+        if (checkoutRequest.lines() == null || checkoutRequest.lines().isEmpty()) {
+            return new OrderRejected("Order must have at least one line");
+        }
+        for (CheckoutRequest.Line line : checkoutRequest.lines()) {
+            if (line.quantity() <= 0) {
+                return new OrderRejected("Quantity must be > 0");
+            }
+        }
+        return null;
+    }
+
+    // all-or-nothing reservation of every product of the order against the local stock view
+    private OrderRejected reserve(String orderId, Map<String, Integer> quantities) {
+        List<String> reserved = new ArrayList<>(quantities.size());
+        for (var line : quantities.entrySet()) {
+            if (!stockView.tryReserve(line.getKey(), orderId, line.getValue())) {
+                reserved.forEach(productId -> stockView.release(productId, orderId));
+                return new OrderRejected(OUT_OF_STOCK);
+            }
+            reserved.add(line.getKey());
+        }
+        return null;
+    }
+
+    private OrderRejected validate(Order order) {
+        if (order.getQuantity() <= 0) {
+            return new OrderRejected("Quantity must be > 0");
+        }
+        if (!stockView.tryReserve(order.getProductId(), order.getId(), order.getQuantity())) {
+            return new OrderRejected(OUT_OF_STOCK);
+        }
+        return null;
+    }
+
+    private Order toOrder(PlaceOrderRequest placeOrderRequest) {
+        var order = new Order(); // Java 10 var
+        order.setProductId(placeOrderRequest.productId());
+        order.setQuantity(placeOrderRequest.quantity());
+        return order;
+    }
+
+    private OutboxEvent toOutboxEvent(String key, OrderEvent orderEvent) {
+        try {
+            return new OutboxEvent(ORDERS_TOPIC, key, orderEvent.getClass().getName(),
+                    objectMapper.writeValueAsString(orderEvent));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot serialize " + orderEvent, e);
+        }
+    }
+
     // Example of pattern matching switch on sealed hierarchy
     public String toLogLine(OrderEvent orderEvent) {
         return switch (orderEvent) {
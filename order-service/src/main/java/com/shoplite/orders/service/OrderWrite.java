@@ -0,0 +1,13 @@
+package com.shoplite.orders.service;
+
+import com.shoplite.orders.domain.Order;
+import com.shoplite.orders.domain.OutboxEvent;
+import java.util.List;
+
+// an order row and its outbox messages; always committed together
+public record OrderWrite(Order order, List<OutboxEvent> outboxEvents) {
+
+    public OrderWrite(Order order, OutboxEvent outboxEvent) {
+        this(order, List.of(outboxEvent));
+    }
+}
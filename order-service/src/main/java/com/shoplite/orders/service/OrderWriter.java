@@ -0,0 +1,18 @@
+package com.shoplite.orders.service;
+
+import java.util.List;
+
+/**
+ * Persists orders together with their outbox rows. The default implementation commits each call
+ * in its own transaction; GroupCommitOrderWriter (orders.group-commit.enabled=true) merges
+ * concurrent calls into shared transactions.
+ */
+public interface OrderWriter {
+
+    void write(OrderWrite orderWrite);
+
+    /**
+     * Persists all writes in one transaction using JDBC batching.
+     */
+    void writeAll(List<OrderWrite> orderWrites);
+}
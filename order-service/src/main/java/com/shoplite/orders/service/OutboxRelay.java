@@ -0,0 +1,228 @@
+package com.shoplite.orders.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.shoplite.orders.domain.OutboxDeadLetter;
+import com.shoplite.orders.domain.OutboxEvent;
+import com.shoplite.orders.events.OrderEvent;
+import com.shoplite.orders.repo.OutboxDeadLetterRepository;
+import com.shoplite.orders.repo.OutboxRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import org.apache.kafka.common.errors.RetriableException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Drains order_outbox to Kafka.
+ *
+ * Each run claims up to batch-size rows in a short transaction (FOR UPDATE SKIP LOCKED, then
+ * claimed_until = now + claim-lease), publishes them with no transaction or row lock held, and
+ * deletes the acked rows in a second short transaction. Several instances can relay concurrently
+ * without sending the same row twice in parallel; a relay that dies mid-batch leaves its rows to
+ * the others once the lease expires.
+ *
+ * Every acked row is deleted; only the rows whose send failed are released and resent on a later
+ * run, so delivery is at-least-once and a failed row can be overtaken by later events for the same
+ * key (catalog drops duplicates, and its floored stock decrements do not depend on order). A row
+ * whose send fails permanently (unknown event type, unreadable payload, a broker rejection such as
+ * RecordTooLarge) has its attempts counted and, at max-attempts, is moved to order_outbox_dead
+ * with the error instead of being retried forever. Timeouts and other retriable broker errors are
+ * not counted, so an outage never dead-letters rows.
+ *
+ * The relay thread waits once per batch, for all sends together (bounded by send-timeout), rather
+ * than on each future in turn. Ack latency (send to broker ack) and send outcomes are recorded in
+ * whenComplete callbacks as each ack arrives: orders.outbox.ack.latency and
+ * orders.outbox.sends{result=acked|failed}.
+ */
+@Component
+public class OutboxRelay {
+
+    private static final Logger LOG = LoggerFactory.getLogger(OutboxRelay.class);
+
+    private final OutboxRepository outboxRepository;
+    private final OutboxDeadLetterRepository deadLetterRepository;
+    private final KafkaTemplate<String, Object> kafkaTemplate;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final long sendTimeoutMs;
+    private final Duration claimLease;
+    private final int maxAttempts;
+    private final Timer ackLatency;
+    private final Counter acks;
+    private final Counter failures;
+    private final Counter deadLettered;
+
+    public OutboxRelay(OutboxRepository outboxRepository,
+            OutboxDeadLetterRepository deadLetterRepository,
+            KafkaTemplate<String, Object> kafkaTemplate, ObjectMapper objectMapper,
+            TransactionTemplate transactionTemplate, MeterRegistry meterRegistry,
+            @Value("${orders.outbox.batch-size:500}") int batchSize,
+            @Value("${orders.outbox.send-timeout-ms:10000}") long sendTimeoutMs,
+            @Value("${orders.outbox.claim-lease:PT1M}") Duration claimLease,
+            @Value("${orders.outbox.max-attempts:5}") int maxAttempts) {
+        this.outboxRepository = outboxRepository;
+        this.deadLetterRepository = deadLetterRepository;
+        this.kafkaTemplate = kafkaTemplate;
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = transactionTemplate;
+        this.batchSize = batchSize;
+        this.sendTimeoutMs = sendTimeoutMs;
+        this.claimLease = claimLease;
+        this.maxAttempts = maxAttempts;
+        this.ackLatency = Timer.builder("orders.outbox.ack.latency")
+                .publishPercentileHistogram().register(meterRegistry);
+        this.acks = Counter.builder("orders.outbox.sends").tag("result", "acked")
+                .register(meterRegistry);
+        this.failures = Counter.builder("orders.outbox.sends").tag("result", "failed")
+                .register(meterRegistry);
+        this.deadLettered = Counter.builder("orders.outbox.dead_lettered")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${orders.outbox.poll-interval-ms:100}")
+    public void relay() {
+        // keep draining while full batches are acked, then wait for the next tick
+        int relayed;
+        do {
+            relayed = relayBatch();
+        } while (relayed == batchSize);
+    }
+
+    private int relayBatch() {
+        List<OutboxEvent> batch = claim();
+        if (batch.isEmpty()) {
+            return 0;
+        }
+
+        CompletableFuture<?>[] sends = new CompletableFuture<?>[batch.size()];
+        for (int i = 0; i < sends.length; i++) {
+            sends[i] = send(batch.get(i));
+        }
+        kafkaTemplate.flush();
+        awaitAll(sends);
+
+        Outcome outcome = new Outcome();
+        for (int i = 0; i < sends.length; i++) {
+            OutboxEvent outboxEvent = batch.get(i);
+            if (sends[i].state() == Future.State.SUCCESS) {
+                outcome.acked.add(outboxEvent.getId());
+                continue;
+            }
+            Throwable error = sends[i].state() == Future.State.FAILED ? sends[i].exceptionNow()
+                    : null;
+            if (error == null || retriable(error)) {
+                LOG.warn("Outbox send of {} not acked, resending next run: {}", outboxEvent,
+                        error == null ? "no ack within " + sendTimeoutMs + "ms" : error.toString());
+                outcome.retry.add(outboxEvent.getId());
+            } else if (outboxEvent.getAttempts() + 1 >= maxAttempts) {
+                LOG.error("Outbox send of {} failed permanently, moving it to order_outbox_dead: "
+                        + "{}", outboxEvent, error.toString());
+                outcome.dead.add(new OutboxDeadLetter(outboxEvent, error.toString()));
+            } else {
+                LOG.warn("Outbox send of {} failed, attempt {}/{}: {}", outboxEvent,
+                        outboxEvent.getAttempts() + 1, maxAttempts, error.toString());
+                outcome.failed.add(outboxEvent.getId());
+            }
+        }
+        complete(outcome);
+
+        LOG.debug("Relayed {}/{} outbox events", outcome.acked.size(), batch.size());
+        return outcome.acked.size();
+    }
+
+    // a broker timeout or other transient error, as opposed to one that will fail the same way
+    private static boolean retriable(Throwable error) {
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            if (cause instanceof RetriableException || cause instanceof TimeoutException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // one bounded wait for the whole batch; outcomes are read from each future afterwards
+    private void awaitAll(CompletableFuture<?>[] sends) {
+        try {
+            CompletableFuture.allOf(sends).get(sendTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException | TimeoutException e) {
+            // failed and unacked sends are found by the caller
+        }
+    }
+
+    private List<OutboxEvent> claim() {
+        Instant now = Instant.now();
+        List<OutboxEvent> batch = transactionTemplate.execute(status -> {
+            List<OutboxEvent> claimed = outboxRepository.claimBatch(now, batchSize);
+            claimed.forEach(outboxEvent -> outboxEvent.claim(now.plus(claimLease)));
+            return claimed;
+        });
+        return batch != null ? batch : List.of();
+    }
+
+    // what happens to each claimed row once the batch's sends are settled
+    private static final class Outcome {
+        private final List<Long> acked = new ArrayList<>();
+        private final List<Long> retry = new ArrayList<>();
+        private final List<Long> failed = new ArrayList<>();
+        private final List<OutboxDeadLetter> dead = new ArrayList<>();
+    }
+
+    // deletes acked rows, releases the others and moves exhausted ones to the dead-letter table
+    private void complete(Outcome outcome) {
+        transactionTemplate.executeWithoutResult(status -> {
+            if (!outcome.acked.isEmpty()) {
+                outboxRepository.deleteAllByIdInBatch(outcome.acked);
+            }
+            if (!outcome.retry.isEmpty()) {
+                outboxRepository.release(outcome.retry);
+            }
+            if (!outcome.failed.isEmpty()) {
+                outboxRepository.releaseFailed(outcome.failed);
+            }
+            if (!outcome.dead.isEmpty()) {
+                deadLetterRepository.saveAll(outcome.dead);
+                outboxRepository.deleteAllByIdInBatch(
+                        outcome.dead.stream().map(OutboxDeadLetter::getId).toList());
+            }
+        });
+        deadLettered.increment(outcome.dead.size());
+    }
+
+    private CompletableFuture<?> send(OutboxEvent outboxEvent) {
+        try {
+            Object event = objectMapper.readValue(outboxEvent.getPayload(),
+                    Class.forName(outboxEvent.getEventType()).asSubclass(OrderEvent.class));
+            long start = System.nanoTime();
+            return kafkaTemplate.send(outboxEvent.getTopic(), outboxEvent.getMessageKey(), event)
+                    .whenComplete((result, ex) -> {
+                        if (ex == null) {
+                            ackLatency.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                            acks.increment();
+                        } else {
+                            failures.increment();
+                        }
+                    });
+        } catch (Exception e) {
+            failures.increment();
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+}
@@ -0,0 +1,192 @@
+package com.shoplite.orders.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Local, eventually consistent view of available stock per product, fed from catalog-service's
+ * compacted catalog.stock topic (see StockChangedListener).
+ *
+ * Available stock is catalog's latest absolute value minus the reservations of orders placed here
+ * that catalog has not applied yet. Catalog names the orders each snapshot includes, and exactly
+ * those reservations are cleared when it arrives, so a snapshot taken before an order was consumed
+ * never hands that order's units back. Reservations catalog never names (inventory engine
+ * checkpoints, orders for unknown products) expire after reservation-ttl.
+ *
+ * Reads and reservations are lock-free: a ConcurrentHashMap lookup plus a CAS on the product's
+ * reserved counter, with no remote call. Products the view has not seen yet are never rejected;
+ * catalog still floors stock at zero for anything that slips through.
+ *
+ * On startup every product is unseen until catalog.stock has been replayed, so the instance would
+ * accept any order. StockChangedListener reports the end offsets found on assignment (retrying
+ * until the lookup succeeds) and each record read, and {@link #replayed()} turns true once all of
+ * them have been reached (at once if the view is disabled). Until then StockViewHealthIndicator
+ * reports OUT_OF_SERVICE, which keeps the instance out of readiness and, through Eureka's health
+ * check, out of the gateway's rotation.
+ * The window that remains fails open: orders sent straight to the instance, and products catalog
+ * has not published yet.
+ */
+@Component
+public class StockView {
+
+    private static final Logger LOG = LoggerFactory.getLogger(StockView.class);
+
+    private final ConcurrentHashMap<String, Product> products = new ConcurrentHashMap<>();
+    // catalog.stock partition -> end offset at assignment, until the view has read up to it
+    private final ConcurrentHashMap<Integer, Long> replayEnds = new ConcurrentHashMap<>();
+    // catalog.stock partition -> next offset to read, while the view has not replayed
+    private final ConcurrentHashMap<Integer, Long> readTo = new ConcurrentHashMap<>();
+    private final long reservationTtlNanos;
+    private volatile boolean replayStarted;
+    private volatile boolean replayed;
+
+    public StockView(MeterRegistry meterRegistry,
+            @Value("${orders.stock-view.enabled:true}") boolean enabled,
+            @Value("${orders.stock-view.reservation-ttl:PT2M}") Duration reservationTtl) {
+        this.replayed = !enabled;
+        this.reservationTtlNanos = reservationTtl.toNanos();
+        Gauge.builder("orders.stock_view.products", products, ConcurrentHashMap::size)
+                .register(meterRegistry);
+        Gauge.builder("orders.stock_view.reservations", products,
+                view -> view.values().stream().mapToInt(p -> p.byOrder.size()).sum())
+                .register(meterRegistry);
+    }
+
+    /**
+     * Replaces catalog's stock of a product with its latest value and clears the reservations of
+     * the orders that value already includes.
+     */
+    public void update(String productId, int stock, Collection<String> appliedOrderIds) {
+        Product product = products.get(productId);
+        if (product == null) {
+            product = products.computeIfAbsent(productId, id -> new Product());
+        }
+        // stock first: until reservations are cleared the view is briefly too low, never too high
+        product.stock = stock;
+        if (appliedOrderIds != null) {
+            appliedOrderIds.forEach(product::clear);
+        }
+    }
+
+    /**
+     * Starts the initial replay: {@code positions} and {@code ends} map each assigned partition to
+     * its position at assignment and to its end offset. Records read since the assignment count
+     * too, so the end offsets may be reported late. Ignored once the view has replayed.
+     */
+    public synchronized void replaying(Map<Integer, Long> positions, Map<Integer, Long> ends) {
+        if (replayed) {
+            return;
+        }
+        ends.forEach((partition, end) -> {
+            long position = Math.max(positions.getOrDefault(partition, 0L),
+                    readTo.getOrDefault(partition, 0L));
+            if (position < end) {
+                replayEnds.put(partition, end);
+            }
+        });
+        replayStarted = true;
+        checkReplayed();
+    }
+
+    /**
+     * Records that the view has read {@code partition} up to {@code nextOffset}.
+     */
+    public void read(int partition, long nextOffset) {
+        if (replayed) {
+            return;
+        }
+        synchronized (this) {
+            readTo.merge(partition, nextOffset, Math::max);
+            if (replayStarted) {
+                replayEnds.computeIfPresent(partition, (p, end) -> nextOffset >= end ? null : end);
+                checkReplayed();
+            }
+        }
+    }
+
+    /**
+     * True once catalog.stock has been read up to where it ended when this instance started.
+     */
+    public boolean replayed() {
+        return replayed;
+    }
+
+    private void checkReplayed() {
+        if (replayEnds.isEmpty()) {
+            replayed = true;
+            readTo.clear();
+            LOG.info("Stock view replayed catalog.stock: {} products", products.size());
+        }
+    }
+
+    /**
+     * Reserves {@code quantity} for {@code orderId} if enough is available.
+     *
+     * @return false only if the product is known and has less than {@code quantity} left
+     */
+    public boolean tryReserve(String productId, String orderId, int quantity) {
+        Product product = products.get(productId);
+        if (product == null) {
+            return true;
+        }
+        int reserved;
+        do {
+            reserved = product.reserved.get();
+            if (product.stock - reserved < quantity) {
+                return false;
+            }
+        } while (!product.reserved.compareAndSet(reserved, reserved + quantity));
+        Reservation previous = product.byOrder.put(orderId,
+                new Reservation(quantity, System.nanoTime() + reservationTtlNanos));
+        if (previous != null) {
+            product.reserved.addAndGet(-previous.quantity());
+        }
+        return true;
+    }
+
+    /**
+     * Gives back a reservation that did not turn into an order.
+     */
+    public void release(String productId, String orderId) {
+        Product product = products.get(productId);
+        if (product != null) {
+            product.clear(orderId);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${orders.stock-view.expiry-interval-ms:10000}")
+    void expireReservations() {
+        long now = System.nanoTime();
+        products.values().forEach(product -> product.byOrder.forEach((orderId, reservation) -> {
+            if (now - reservation.expiresAt() > 0) {
+                product.clear(orderId);
+            }
+        }));
+    }
+
+    private record Reservation(int quantity, long expiresAt) {
+    }
+
+    private static final class Product {
+        private volatile int stock;
+        private final AtomicInteger reserved = new AtomicInteger();
+        private final ConcurrentHashMap<String, Reservation> byOrder = new ConcurrentHashMap<>();
+
+        void clear(String orderId) {
+            Reservation reservation = byOrder.remove(orderId);
+            if (reservation != null) {
+                reserved.addAndGet(-reservation.quantity());
+            }
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package com.shoplite.orders.service;
+
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.stereotype.Component;
+
+/**
+ * OUT_OF_SERVICE until StockView has replayed catalog.stock, so readiness (and Eureka, which
+ * follows health) does not route orders here while every product is still unknown.
+ */
+@Component
+public class StockViewHealthIndicator implements HealthIndicator {
+
+    private final StockView stockView;
+
+    public StockViewHealthIndicator(StockView stockView) {
+        this.stockView = stockView;
+    }
+
+    @Override
+    public Health health() {
+        return stockView.replayed() ? Health.up().build()
+                : Health.outOfService().withDetail("catalog.stock", "replaying").build();
+    }
+}
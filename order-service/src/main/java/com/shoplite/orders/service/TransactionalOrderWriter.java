@@ -0,0 +1,38 @@
+package com.shoplite.orders.service;
+
+import com.shoplite.orders.repo.OrderRepository;
+import com.shoplite.orders.repo.OutboxRepository;
+import jakarta.transaction.Transactional;
+import java.util.List;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConditionalOnProperty(name = "orders.group-commit.enabled", havingValue = "false",
+        matchIfMissing = true)
+public class TransactionalOrderWriter implements OrderWriter {
+
+    private final OrderRepository orderRepository;
+    private final OutboxRepository outboxRepository;
+
+    public TransactionalOrderWriter(OrderRepository orderRepository,
+            OutboxRepository outboxRepository) {
+        this.orderRepository = orderRepository;
+        this.outboxRepository = outboxRepository;
+    }
+
+    @Override
+    @Transactional
+    public void write(OrderWrite orderWrite) {
+        orderRepository.save(orderWrite.order());
+        outboxRepository.saveAll(orderWrite.outboxEvents());
+    }
+
+    @Override
+    @Transactional
+    public void writeAll(List<OrderWrite> orderWrites) {
+        orderRepository.saveAll(orderWrites.stream().map(OrderWrite::order).toList());
+        outboxRepository.saveAll(orderWrites.stream()
+                .flatMap(orderWrite -> orderWrite.outboxEvents().stream()).toList());
+    }
+}
@@ -0,0 +1,73 @@
+package com.shoplite.orders.api;
+
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import com.shoplite.orders.events.OrderPlaced;
+import com.shoplite.orders.events.OrderRejected;
+import com.shoplite.orders.service.OrderService;
+import io.micrometer.tracing.Tracer;
+import java.util.List;
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.RequestBuilder;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+class OrderControllerBatchTest {
+
+    private final OrderService orderService = mock(OrderService.class);
+    private final MockMvc mockMvc = MockMvcBuilders
+            .standaloneSetup(new OrderController(orderService, Tracer.NOOP, 3)).build();
+
+    @Test
+    void placesBatchesUpToTheMaximum() throws Exception {
+        when(orderService.placeAll(anyList())).thenReturn(List.of(
+                new OrderPlaced("o-1", "p-1", 1), new OrderRejected("out of stock"),
+                new OrderPlaced("o-3", "p-1", 2)));
+
+        mockMvc.perform(batch("""
+                [{"productId":"p-1","quantity":1},{"productId":"p-2","quantity":1},
+                 {"productId":"p-1","quantity":2}]"""))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(3))
+                .andExpect(jsonPath("$[1].reason").value("out of stock"));
+    }
+
+    @Test
+    void refusesBatchesAboveTheMaximumWith413() throws Exception {
+        mockMvc.perform(batch("""
+                [{"productId":"p-1","quantity":1},{"productId":"p-2","quantity":1},
+                 {"productId":"p-3","quantity":1},{"productId":"p-4","quantity":1}]"""))
+                .andExpect(status().isPayloadTooLarge())
+                .andExpect(jsonPath("$[0].reason").value(Matchers.containsString("maximum of 3")));
+
+        verifyNoInteractions(orderService);
+    }
+
+    @Test
+    void refusesBatchesWithInvalidItemsWith400() throws Exception {
+        mockMvc.perform(batch("""
+                [{"productId":"p-1","quantity":1},{"quantity":1}]"""))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(batch("""
+                [{"productId":"%s","quantity":1}]""".formatted("p".repeat(65))))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(batch("""
+                [{"productId":"p-1","quantity":1},null]"""))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$[0].reason").value("Batch item 1 is null"));
+
+        verifyNoInteractions(orderService);
+    }
+
+    private static RequestBuilder batch(String json) {
+        return post("/api/orders/batch").contentType(MediaType.APPLICATION_JSON).content(json);
+    }
+}
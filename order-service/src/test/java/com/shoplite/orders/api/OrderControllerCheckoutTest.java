@@ -0,0 +1,59 @@
+package com.shoplite.orders.api;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import com.shoplite.orders.api.dto.CheckoutRequest;
+import com.shoplite.orders.events.OrderPlaced;
+import com.shoplite.orders.service.OrderService;
+import io.micrometer.tracing.Tracer;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.RequestBuilder;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+class OrderControllerCheckoutTest {
+
+    private final OrderService orderService = mock(OrderService.class);
+    private final MockMvc mockMvc = MockMvcBuilders
+            .standaloneSetup(new OrderController(orderService, Tracer.NOOP, 3)).build();
+
+    @Test
+    void placesValidCarts() throws Exception {
+        when(orderService.checkout(any(CheckoutRequest.class))).thenReturn(List.of(
+                new OrderPlaced("o-1", "p-1", 1), new OrderPlaced("o-1", "p-2", 2)));
+
+        mockMvc.perform(checkout("""
+                {"lines":[{"productId":"p-1","quantity":1},{"productId":"p-2","quantity":2}]}"""))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2));
+    }
+
+    @Test
+    void refusesMalformedCartsWith400() throws Exception {
+        mockMvc.perform(checkout("{}")).andExpect(status().isBadRequest());
+        mockMvc.perform(checkout("""
+                {"lines":[]}""")).andExpect(status().isBadRequest());
+        mockMvc.perform(checkout("""
+                {"lines":[null]}""")).andExpect(status().isBadRequest());
+        mockMvc.perform(checkout("""
+                {"lines":[{"productId":"p-1","quantity":1},{"quantity":1}]}"""))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(checkout("""
+                {"lines":[{"productId":"%s","quantity":1}]}""".formatted("p".repeat(65))))
+                .andExpect(status().isBadRequest());
+
+        verifyNoInteractions(orderService);
+    }
+
+    private static RequestBuilder checkout(String json) {
+        return post("/api/orders/checkout").contentType(MediaType.APPLICATION_JSON).content(json);
+    }
+}
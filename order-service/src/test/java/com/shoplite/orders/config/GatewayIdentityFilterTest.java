@@ -0,0 +1,128 @@
+package com.shoplite.orders.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalStateException;
+
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Properties;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+/**
+ * Verifies the assertions the gateway's IdentityAssertionFilter signs (this module's copy of the
+ * identity-assertions contract) and rejects anything else.
+ */
+class GatewayIdentityFilterTest {
+
+    private static final Properties CONTRACT = new Properties();
+
+    @BeforeAll
+    static void loadContract() throws Exception {
+        try (InputStream in = GatewayIdentityFilterTest.class
+                .getResourceAsStream("/contracts/identity-assertions.properties")) {
+            CONTRACT.load(in);
+        }
+    }
+
+    private final GatewayIdentityFilter filter =
+            new GatewayIdentityFilter(CONTRACT.getProperty("key"));
+
+    @AfterEach
+    void clearContext() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void acceptsTheGatewaysAssertions() {
+        Authentication user = filter.verify(CONTRACT.getProperty("valid"));
+        assertThat(user.getName()).isEqualTo("user-1");
+        assertThat(AuthorityUtils.authorityListToSet(user.getAuthorities()))
+                .containsExactlyInAnyOrder("SCOPE_read:orders", "SCOPE_write:orders");
+
+        Authentication service = filter.verify(CONTRACT.getProperty("no-authorities"));
+        assertThat(service.getName()).isEqualTo("service-1");
+        assertThat(service.getAuthorities()).isEmpty();
+    }
+
+    @Test
+    void rejectsExpiredAssertions() {
+        assertThat(filter.verify(CONTRACT.getProperty("expired"))).isNull();
+    }
+
+    @Test
+    void rejectsForgedAssertions() {
+        String valid = CONTRACT.getProperty("valid");
+        String signature = valid.substring(valid.indexOf('.') + 1);
+
+        // payload changed under the gateway's signature
+        assertThat(filter.verify(encode("admin\nSCOPE_read:orders SCOPE_write:orders\n4102444800")
+                + "." + signature)).isNull();
+        // signed under another key
+        assertThat(filter.verify(sign("user-1\nSCOPE_read:orders\n4102444800",
+                "not-the-shared-identity-key-0123456789"))).isNull();
+        // no signature
+        assertThat(filter.verify(valid.substring(0, valid.indexOf('.') + 1))).isNull();
+    }
+
+    @Test
+    void rejectsMalformedAssertions() {
+        String key = CONTRACT.getProperty("key");
+
+        assertThat(filter.verify("")).isNull();
+        assertThat(filter.verify("no-signature")).isNull();
+        assertThat(filter.verify("not base64!.not base64!")).isNull();
+        // correctly signed, but not subject LF authorities LF exp
+        assertThat(filter.verify(sign("user-1\n4102444800", key))).isNull();
+        assertThat(filter.verify(sign("user-1\nSCOPE_read:orders\nnever", key))).isNull();
+    }
+
+    @Test
+    void authenticatesOnlyRequestsWithAValidAssertion() throws Exception {
+        assertThat(filtered(CONTRACT.getProperty("valid")).getName()).isEqualTo("user-1");
+        assertThat(filtered(CONTRACT.getProperty("expired"))).isNull();
+        assertThat(filtered(null)).isNull();
+    }
+
+    @Test
+    void refusesShortKeys() {
+        assertThatIllegalStateException().isThrownBy(() -> new GatewayIdentityFilter("too-short"));
+    }
+
+    // authentication the rest of the chain sees
+    private Authentication filtered(String assertion) throws Exception {
+        SecurityContextHolder.clearContext();
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/orders");
+        if (assertion != null) {
+            request.addHeader(GatewayIdentityFilter.HEADER, assertion);
+        }
+        filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+        return SecurityContextHolder.getContext().getAuthentication();
+    }
+
+    private static String sign(String payload, String key) {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(new SecretKeySpec(key.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+            return encode(payload) + "." + Base64.getUrlEncoder().withoutPadding()
+                    .encodeToString(mac.doFinal(payload.getBytes(StandardCharsets.UTF_8)));
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String encode(String payload) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(payload.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,96 @@
+package com.shoplite.orders.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import org.junit.jupiter.api.Test;
+
+class GradientLimitTest {
+
+    private static final long FAST = Duration.ofMillis(10).toNanos();
+    private static final long SLOW = Duration.ofMillis(100).toNanos();
+
+    @Test
+    void rejectsRequestsBeyondTheLimitUntilASlotIsReleased() {
+        GradientLimit limit = new GradientLimit(4, 4, 4);
+        for (int i = 0; i < 4; i++) {
+            assertThat(limit.tryAcquire()).isTrue();
+        }
+
+        assertThat(limit.tryAcquire()).isFalse();
+        assertThat(limit.inFlight()).isEqualTo(4);
+
+        limit.release(FAST);
+        assertThat(limit.tryAcquire()).isTrue();
+    }
+
+    @Test
+    void growsWhileTheLimitIsInUseAndLatencyHolds() {
+        GradientLimit limit = new GradientLimit(20, 4, 30);
+        fill(limit);
+
+        cycle(limit, FAST, 2);
+        assertThat(limit.limit()).isGreaterThan(20);
+
+        cycle(limit, FAST, 200);
+        assertThat(limit.limit()).isEqualTo(30);
+    }
+
+    @Test
+    void doesNotGrowWhenMostOfTheLimitIsIdle() {
+        GradientLimit limit = new GradientLimit(20, 4, 200);
+
+        // one request at a time: latency is fine, but nothing shows more would be useful
+        for (int i = 0; i < 200; i++) {
+            limit.tryAcquire();
+            limit.release(FAST);
+        }
+
+        assertThat(limit.limit()).isEqualTo(20);
+    }
+
+    @Test
+    void shrinksToTheMinimumWhenLatencyRises() {
+        GradientLimit limit = new GradientLimit(20, 4, 200);
+        limit.tryAcquire();
+        limit.release(FAST);
+
+        limit.tryAcquire();
+        limit.release(SLOW);
+        int afterOneSlowSample = limit.limit();
+        assertThat(afterOneSlowSample).isLessThan(20)
+                // at most halved per sample
+                .isGreaterThanOrEqualTo(10);
+
+        for (int i = 0; i < 200; i++) {
+            limit.tryAcquire();
+            limit.release(SLOW);
+        }
+        assertThat(limit.limit()).isEqualTo(4);
+    }
+
+    @Test
+    void ignoresSamplesWithoutALatency() {
+        GradientLimit limit = new GradientLimit(20, 4, 200);
+        fill(limit);
+
+        cycle(limit, 0, 50);
+
+        assertThat(limit.limit()).isEqualTo(20);
+        assertThat(limit.inFlight()).isEqualTo(20);
+    }
+
+    private static void fill(GradientLimit limit) {
+        while (limit.tryAcquire()) {
+            // claim every slot
+        }
+    }
+
+    // completes and replaces one request at a time, keeping the limit saturated
+    private static void cycle(GradientLimit limit, long rttNanos, int samples) {
+        for (int i = 0; i < samples; i++) {
+            limit.release(rttNanos);
+            fill(limit);
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package com.shoplite.orders.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.ServletRequest;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+class OrderBatchSizeFilterTest {
+
+    private static final String SMALL_BATCH = "[{\"productId\":\"p-1\",\"quantity\":1}]";
+
+    private final OrderBatchSizeFilter filter = new OrderBatchSizeFilter(new ObjectMapper(), 64);
+
+    @Test
+    void refusesADeclaredLengthOverTheLimitWithoutReadingIt() throws Exception {
+        MockHttpServletRequest request = batch("[" + "{}".repeat(40) + "]");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter.doFilter(request, response, (req, res) -> {
+            throw new AssertionError("oversized batch reached the controller");
+        });
+
+        assertThat(response.getStatus()).isEqualTo(413);
+        assertThat(response.getContentAsString()).contains("maximum of 64 bytes");
+        // body left unread
+        assertThat(request.getInputStream().read()).isEqualTo('[');
+    }
+
+    @Test
+    void passesBatchesWithinTheLimitThrough() throws Exception {
+        AtomicReference<ServletRequest> forwarded = new AtomicReference<>();
+
+        filter.doFilter(batch(SMALL_BATCH), new MockHttpServletResponse(),
+                (req, res) -> forwarded.set(req));
+
+        assertThat(forwarded.get().getInputStream().readAllBytes())
+                .isEqualTo(SMALL_BATCH.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void capsChunkedBodiesAtTheLimit() throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(chunked("[" + "{}".repeat(40) + "]"), response, (req, res) -> {
+            throw new AssertionError("oversized batch reached the controller");
+        });
+        assertThat(response.getStatus()).isEqualTo(413);
+
+        AtomicReference<ServletRequest> forwarded = new AtomicReference<>();
+        filter.doFilter(chunked(SMALL_BATCH), new MockHttpServletResponse(),
+                (req, res) -> forwarded.set(req));
+        assertThat(forwarded.get().getContentLength()).isEqualTo(SMALL_BATCH.length());
+        assertThat(new String(forwarded.get().getInputStream().readAllBytes(),
+                StandardCharsets.UTF_8)).isEqualTo(SMALL_BATCH);
+    }
+
+    @Test
+    void buffersChunkedBodiesForAsyncReadersToo() throws Exception {
+        AtomicReference<ServletRequest> forwarded = new AtomicReference<>();
+        filter.doFilter(chunked(SMALL_BATCH), new MockHttpServletResponse(),
+                (req, res) -> forwarded.set(req));
+
+        ServletInputStream in = forwarded.get().getInputStream();
+        ByteArrayOutputStream read = new ByteArrayOutputStream();
+        AtomicBoolean allRead = new AtomicBoolean();
+        in.setReadListener(new ReadListener() {
+            @Override
+            public void onDataAvailable() throws IOException {
+                while (in.isReady() && !in.isFinished()) {
+                    read.write(in.read());
+                }
+            }
+
+            @Override
+            public void onAllDataRead() {
+                allRead.set(true);
+            }
+
+            @Override
+            public void onError(Throwable t) {
+                throw new AssertionError(t);
+            }
+        });
+
+        assertThat(allRead).isTrue();
+        assertThat(read.toString(StandardCharsets.UTF_8)).isEqualTo(SMALL_BATCH);
+    }
+
+    @Test
+    void leavesOtherRequestsAlone() throws Exception {
+        MockHttpServletRequest request = batch("[" + "{}".repeat(40) + "]");
+        request.setRequestURI("/api/orders");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter.doFilter(request, response, (req, res) -> {
+        });
+
+        assertThat(response.getStatus()).isEqualTo(200);
+    }
+
+    private static MockHttpServletRequest batch(String json) {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/orders/batch");
+        request.setContentType("application/json");
+        request.setContent(json.getBytes(StandardCharsets.UTF_8));
+        return request;
+    }
+
+    // no Content-Length, as with Transfer-Encoding: chunked
+    private static MockHttpServletRequest chunked(String json) {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/orders/batch") {
+            @Override
+            public int getContentLength() {
+                return -1;
+            }
+
+            @Override
+            public long getContentLengthLong() {
+                return -1;
+            }
+        };
+        request.setContentType("application/json");
+        request.setContent(json.getBytes(StandardCharsets.UTF_8));
+        return request;
+    }
+}
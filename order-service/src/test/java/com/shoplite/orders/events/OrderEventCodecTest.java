@@ -0,0 +1,119 @@
+package com.shoplite.orders.events;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+class OrderEventCodecTest {
+
+    // same names and events as catalog-service's OrderEventDeserializerTest
+    private static final Map<String, OrderEvent> EVENTS = Map.of(
+            "order-placed", new OrderPlaced("order-1", "product-1", 3),
+            "order-placed-multibyte", new OrderPlaced("order-2", "prodüct-€", 300),
+            "order-rejected", new OrderRejected("out of stock"));
+    // contract entries whose type tag is retired: kept so the tag is never reused
+    private static final Set<String> RETIRED = Set.of("cart-order-placed");
+
+    private static final Properties CONTRACT = new Properties();
+    private static final ObjectMapper JSON = new ObjectMapper();
+
+    @BeforeAll
+    static void loadContract() throws Exception {
+        try (InputStream in = OrderEventCodecTest.class
+                .getResourceAsStream("/contracts/order-events-v1.properties")) {
+            CONTRACT.load(in);
+        }
+    }
+
+    @Test
+    void encodesTheContractBytes() {
+        Set<String> names = new HashSet<>(EVENTS.keySet());
+        names.addAll(RETIRED);
+        assertThat(CONTRACT.stringPropertyNames()).isEqualTo(names);
+        EVENTS.forEach((name, event) -> assertThat(HexFormat.of()
+                .formatHex(OrderEventCodec.encode(event))).as(name)
+                .isEqualTo(CONTRACT.getProperty(name)));
+    }
+
+    @Test
+    void decodesWhatItEncodes() {
+        EVENTS.values().forEach(event -> assertThat(OrderEventCodec.decode(
+                OrderEventCodec.encode(event))).isEqualTo(event));
+    }
+
+    @Test
+    void rejectsRetiredTypes() {
+        RETIRED.forEach(name -> assertThatIllegalArgumentException()
+                .isThrownBy(() -> OrderEventCodec.decode(
+                        HexFormat.of().parseHex(CONTRACT.getProperty(name))))
+                .withMessageContaining("Unknown order event type"));
+    }
+
+    @Test
+    void rejectsUnknownVersionsAndTruncatedRecords() {
+        byte[] encoded = OrderEventCodec.encode(EVENTS.get("order-placed"));
+
+        byte[] nextVersion = encoded.clone();
+        nextVersion[1] = OrderEventCodec.VERSION + 1;
+        assertThatIllegalArgumentException().isThrownBy(() -> OrderEventCodec.decode(nextVersion))
+                .withMessageContaining("version");
+        assertThatIllegalArgumentException().isThrownBy(() -> OrderEventCodec.decode(
+                Arrays.copyOf(encoded, encoded.length - 1)))
+                .withMessageContaining("Truncated");
+    }
+
+    @Test
+    void isLessThanHalfTheSizeOfTheJsonRecord() throws Exception {
+        OrderPlaced placed = (OrderPlaced) EVENTS.get("order-placed");
+
+        int binary = OrderEventCodec.encode(placed).length;
+        // JsonSerializer's value plus the __TypeId__ header it adds to every record
+        int json = JSON.writeValueAsBytes(placed).length
+                + "__TypeId__".length() + OrderPlaced.class.getName()
+                        .getBytes(StandardCharsets.UTF_8).length;
+
+        assertThat(binary).isEqualTo(22);
+        assertThat(json).isEqualTo(106);
+        assertThat(binary * 2).isLessThan(json);
+    }
+
+    // serde timing against the JSON path: ./gradlew :order-service:test -Pbenchmark
+    @Test
+    @EnabledIfSystemProperty(named = "shoplite.benchmark", matches = "true")
+    void comparesSerdeTimeWithJson() throws Exception {
+        OrderPlaced placed = (OrderPlaced) EVENTS.get("order-placed");
+        byte[] binary = OrderEventCodec.encode(placed);
+        byte[] json = JSON.writeValueAsBytes(placed);
+        int rounds = 1_000_000;
+
+        for (int pass = 0; pass < 3; pass++) {
+            // the first passes only warm up the JIT
+            long start = System.nanoTime();
+            for (int i = 0; i < rounds; i++) {
+                OrderEventCodec.decode(OrderEventCodec.encode(placed));
+            }
+            long binaryNanos = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            for (int i = 0; i < rounds; i++) {
+                JSON.readValue(JSON.writeValueAsBytes(placed), OrderPlaced.class);
+            }
+            long jsonNanos = System.nanoTime() - start;
+
+            System.out.printf("pass %d: binary %d ns/op (%d bytes), json %d ns/op (%d bytes)%n",
+                    pass, binaryNanos / rounds, binary.length, jsonNanos / rounds, json.length);
+        }
+    }
+}
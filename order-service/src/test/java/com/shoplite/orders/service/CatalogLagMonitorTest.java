@@ -0,0 +1,100 @@
+package com.shoplite.orders.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.List;
+import java.util.Map;
+import org.apache.kafka.clients.admin.Admin;
+import org.apache.kafka.clients.admin.AdminClientConfig;
+import org.apache.kafka.clients.admin.NewTopic;
+import org.apache.kafka.clients.admin.RecordsToDelete;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.clients.producer.KafkaProducer;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.core.KafkaAdmin;
+import org.testcontainers.containers.KafkaContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.utility.DockerImageName;
+
+@Testcontainers
+class CatalogLagMonitorTest {
+
+    private static final String GROUP = "catalog-service";
+    private static final TopicPartition P0 = new TopicPartition(OrderService.ORDERS_TOPIC, 0);
+    private static final TopicPartition P1 = new TopicPartition(OrderService.ORDERS_TOPIC, 1);
+
+    @Container
+    static final KafkaContainer KAFKA =
+            new KafkaContainer(DockerImageName.parse("confluentinc/cp-kafka:7.6.1"));
+
+    private static Admin admin;
+
+    @BeforeAll
+    static void createTopic() throws Exception {
+        admin = Admin.create(Map.of(AdminClientConfig.BOOTSTRAP_SERVERS_CONFIG,
+                KAFKA.getBootstrapServers()));
+        admin.createTopics(List.of(new NewTopic(OrderService.ORDERS_TOPIC, 2, (short) 1)))
+                .all().get();
+        try (var producer = new KafkaProducer<String, String>(Map.of(
+                ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, KAFKA.getBootstrapServers(),
+                ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class,
+                ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, StringSerializer.class))) {
+            for (int i = 0; i < 10; i++) {
+                producer.send(new ProducerRecord<>(OrderService.ORDERS_TOPIC, 0, "p", "e" + i));
+                producer.send(new ProducerRecord<>(OrderService.ORDERS_TOPIC, 1, "p", "e" + i));
+            }
+        }
+    }
+
+    @AfterAll
+    static void closeAdmin() {
+        admin.close();
+    }
+
+    @Test
+    void countsFromTheLogStartForPartitionsWithoutACommit() throws Exception {
+        // retention has already removed the first four records of partition 1
+        admin.deleteRecords(Map.of(P1, RecordsToDelete.beforeOffset(4))).all().get();
+        admin.alterConsumerGroupOffsets(GROUP, Map.of(P0, new OffsetAndMetadata(7))).all().get();
+        var monitor = monitor();
+
+        try {
+            assertThat(monitor.lag()).isEqualTo(-1);
+
+            monitor.refresh();
+
+            // partition 0: 10 - 7; partition 1: nothing committed, 10 - 4 still on the log
+            assertThat(monitor.lag()).isEqualTo(3 + 6);
+
+            admin.alterConsumerGroupOffsets(GROUP, Map.of(P1, new OffsetAndMetadata(2))).all()
+                    .get();
+            monitor.refresh();
+
+            // a commit behind the log start resumes from the log start, not from the commit
+            assertThat(monitor.lag()).isEqualTo(3 + 6);
+
+            admin.alterConsumerGroupOffsets(GROUP,
+                    Map.of(P0, new OffsetAndMetadata(10), P1, new OffsetAndMetadata(10))).all()
+                    .get();
+            monitor.refresh();
+
+            assertThat(monitor.lag()).isZero();
+        } finally {
+            monitor.destroy();
+        }
+    }
+
+    private static CatalogLagMonitor monitor() {
+        var kafkaAdmin = new KafkaAdmin(Map.of(AdminClientConfig.BOOTSTRAP_SERVERS_CONFIG,
+                KAFKA.getBootstrapServers()));
+        return new CatalogLagMonitor(kafkaAdmin, new SimpleMeterRegistry(), GROUP, 10_000, 60_000);
+    }
+}
@@ -0,0 +1,201 @@
+package com.shoplite.orders.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import com.shoplite.orders.domain.Order;
+import com.shoplite.orders.domain.OutboxEvent;
+import com.shoplite.orders.events.OrderPlaced;
+import com.shoplite.orders.repo.OrderRepository;
+import com.shoplite.orders.repo.OutboxRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Concurrent callers against GroupCommitOrderWriter with mocked repositories. To get a known
+ * backlog, the first group's transaction is held open until the next callers are all queued.
+ */
+class GroupCommitOrderWriterTest {
+
+    private final OrderRepository orderRepository = mock(OrderRepository.class);
+    private final OutboxRepository outboxRepository = mock(OutboxRepository.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final ExecutorService callers = Executors.newCachedThreadPool();
+    // orders passed to each orderRepository.saveAll, i.e. each attempted transaction
+    private final List<List<Order>> groups = new CopyOnWriteArrayList<>();
+    private final List<Order> badOrders = new CopyOnWriteArrayList<>();
+    private CountDownLatch firstGroup = new CountDownLatch(0);
+    private GroupCommitOrderWriter writer;
+
+    @BeforeEach
+    void recordGroups() {
+        doAnswer(invocation -> {
+            List<Order> orders = new ArrayList<>();
+            invocation.<Iterable<Order>>getArgument(0).forEach(orders::add);
+            groups.add(orders);
+            if (groups.size() == 1) {
+                assertThat(firstGroup.await(10, TimeUnit.SECONDS)).isTrue();
+            }
+            if (orders.stream().anyMatch(badOrders::contains)) {
+                throw new DataIntegrityViolationException("duplicate key");
+            }
+            return orders;
+        }).when(orderRepository).saveAll(any());
+    }
+
+    @AfterEach
+    void stop() {
+        writer.stop();
+        callers.shutdownNow();
+    }
+
+    @Test
+    void groupsCallersArrivingWithinTheWindow() throws Exception {
+        start(500, 64);
+
+        Future<?> first = write(new Order());
+        Thread.sleep(50);
+        Future<?> second = write(new Order());
+        first.get(5, TimeUnit.SECONDS);
+        second.get(5, TimeUnit.SECONDS);
+        write(new Order()).get(5, TimeUnit.SECONDS);
+
+        assertThat(groups).extracting(List::size).containsExactly(2, 1);
+        verify(outboxRepository, times(2)).saveAll(any());
+    }
+
+    @Test
+    void capsEachGroupAtMaxBatch() throws Exception {
+        firstGroup = new CountDownLatch(1);
+        start(50, 4);
+
+        List<Future<?>> writes = new ArrayList<>(List.of(write(new Order())));
+        await(() -> groups.size() == 1);
+        for (int i = 0; i < 9; i++) {
+            writes.add(write(new Order()));
+        }
+        await(() -> queued() == 9);
+        firstGroup.countDown();
+
+        for (Future<?> write : writes) {
+            write.get(5, TimeUnit.SECONDS);
+        }
+        assertThat(groups).extracting(List::size).containsExactly(1, 4, 4, 1);
+        assertThat(meterRegistry.get("orders.group_commit.batch.size").summary().max())
+                .isEqualTo(4);
+    }
+
+    @Test
+    void retriesAFailedGroupOneByOneSoOnlyTheBadWriteFails() throws Exception {
+        firstGroup = new CountDownLatch(1);
+        start(50, 64);
+        Order bad = new Order();
+        badOrders.add(bad);
+
+        Future<?> first = write(new Order());
+        await(() -> groups.size() == 1);
+        Future<?> good = write(new Order());
+        Future<?> failing = write(bad);
+        Future<?> alsoGood = write(new Order());
+        await(() -> queued() == 3);
+        firstGroup.countDown();
+
+        first.get(5, TimeUnit.SECONDS);
+        good.get(5, TimeUnit.SECONDS);
+        alsoGood.get(5, TimeUnit.SECONDS);
+        assertThatThrownBy(() -> failing.get(5, TimeUnit.SECONDS))
+                .isInstanceOf(ExecutionException.class)
+                .hasCauseInstanceOf(DataIntegrityViolationException.class);
+        // the group of three, then each of its writes on its own
+        assertThat(groups).extracting(List::size).containsExactly(1, 3, 1, 1, 1);
+        verify(outboxRepository, times(3)).saveAll(any());
+    }
+
+    @Test
+    void failsAndDropsAWriteThatWaitsLongerThanTheTimeout() throws Exception {
+        firstGroup = new CountDownLatch(1);
+        start(50, 64, 300);
+
+        Future<?> first = write(new Order());
+        await(() -> groups.size() == 1);
+        Order late = new Order();
+        Future<?> waiting = write(late);
+
+        assertThatThrownBy(() -> waiting.get(5, TimeUnit.SECONDS))
+                .isInstanceOf(ExecutionException.class)
+                .hasCauseInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("did not complete within 300 ms");
+        firstGroup.countDown();
+        Order next = new Order();
+        write(next).get(5, TimeUnit.SECONDS);
+
+        // the first group was already in its transaction; the late write never reached one
+        assertThatThrownBy(() -> first.get(5, TimeUnit.SECONDS))
+                .hasCauseInstanceOf(IllegalStateException.class);
+        assertThat(groups).hasSize(2);
+        assertThat(groups.get(1)).containsExactly(next);
+    }
+
+    @Test
+    void failsWritesAtOnceOnceTheFlusherHasStopped() {
+        start(50, 64);
+        writer.stop();
+
+        Future<?> write = write(new Order());
+
+        assertThatThrownBy(() -> write.get(1, TimeUnit.SECONDS))
+                .isInstanceOf(ExecutionException.class)
+                .hasCauseInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("shutting down");
+        assertThat(groups).isEmpty();
+    }
+
+    private void start(long windowMs, int maxBatch) {
+        start(windowMs, maxBatch, 5_000);
+    }
+
+    private void start(long windowMs, int maxBatch, long writeTimeoutMs) {
+        writer = new GroupCommitOrderWriter(orderRepository, outboxRepository,
+                new TransactionTemplate(mock(PlatformTransactionManager.class)), meterRegistry,
+                windowMs, maxBatch, writeTimeoutMs);
+        writer.start();
+    }
+
+    private Future<?> write(Order order) {
+        OutboxEvent outboxEvent = new OutboxEvent("orders.events", "p1",
+                OrderPlaced.class.getName(), "{}");
+        return callers.submit(() -> writer.write(new OrderWrite(order, outboxEvent)));
+    }
+
+    private double queued() {
+        return meterRegistry.get("orders.group_commit.queue").gauge().value();
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            assertThat(System.nanoTime()).as("timed out").isLessThan(deadline);
+            Thread.sleep(10);
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package com.shoplite.orders.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.shoplite.orders.domain.OutboxDeadLetter;
+import com.shoplite.orders.domain.OutboxEvent;
+import com.shoplite.orders.events.OrderPlaced;
+import com.shoplite.orders.repo.OutboxDeadLetterRepository;
+import com.shoplite.orders.repo.OutboxRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import org.apache.kafka.common.errors.RecordTooLargeException;
+import org.apache.kafka.common.errors.TimeoutException;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.kafka.KafkaException;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+class OutboxRelayTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final OutboxRepository outboxRepository = mock(OutboxRepository.class);
+    private final OutboxDeadLetterRepository deadLetterRepository =
+            mock(OutboxDeadLetterRepository.class);
+    @SuppressWarnings("unchecked")
+    private final KafkaTemplate<String, Object> kafkaTemplate = mock(KafkaTemplate.class);
+    private final OutboxRelay relay = new OutboxRelay(outboxRepository, deadLetterRepository,
+            kafkaTemplate, objectMapper,
+            new TransactionTemplate(mock(PlatformTransactionManager.class)),
+            new SimpleMeterRegistry(), 500, 1000, Duration.ofMinutes(1), 3);
+
+    @Test
+    void deletesAckedRowsAfterClaimingThem() throws Exception {
+        List<OutboxEvent> batch = List.of(row(1, "p1"), row(2, "p2"), row(3, "p1"));
+        when(outboxRepository.claimBatch(any(), anyInt())).thenReturn(batch);
+        when(kafkaTemplate.send(anyString(), anyString(), any())).thenReturn(acked());
+
+        relay.relay();
+
+        assertThat(batch).allSatisfy(row -> assertThat(row.getClaimedUntil()).isNotNull());
+        verify(outboxRepository).deleteAllByIdInBatch(List.of(1L, 2L, 3L));
+        verify(outboxRepository, never()).release(any());
+    }
+
+    @Test
+    void deletesEveryAckedRowAndReleasesOnlyTheFailedOnes() throws Exception {
+        when(outboxRepository.claimBatch(any(), anyInt()))
+                .thenReturn(List.of(row(1, "p1"), row(2, "p1"), row(3, "p1"), row(4, "p2")));
+        when(kafkaTemplate.send(anyString(), anyString(), any()))
+                .thenReturn(acked(), failed(), acked(), acked());
+
+        relay.relay();
+
+        verify(outboxRepository).deleteAllByIdInBatch(List.of(1L, 3L, 4L));
+        verify(outboxRepository).release(List.of(2L));
+        verify(outboxRepository, never()).releaseFailed(any());
+    }
+
+    @Test
+    void treatsSendsStillUnackedAfterTheTimeoutAsRetriable() throws Exception {
+        when(outboxRepository.claimBatch(any(), anyInt()))
+                .thenReturn(List.of(row(1, "p1"), row(2, "p1"), row(3, "p2")));
+        when(kafkaTemplate.send(anyString(), anyString(), any()))
+                .thenReturn(acked(), new CompletableFuture<>(), acked());
+
+        long start = System.nanoTime();
+        relay.relay();
+
+        assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofSeconds(2));
+        verify(outboxRepository).deleteAllByIdInBatch(List.of(1L, 3L));
+        verify(outboxRepository).release(List.of(2L));
+    }
+
+    @Test
+    void countsPermanentFailuresWithoutBlockingLaterRows() throws Exception {
+        OutboxEvent unknownType = new OutboxEvent("orders.events", "p1", "com.example.Gone", "{}");
+        ReflectionTestUtils.setField(unknownType, "id", 1L);
+        when(outboxRepository.claimBatch(any(), anyInt()))
+                .thenReturn(List.of(unknownType, row(2, "p1")));
+        when(kafkaTemplate.send(anyString(), anyString(), any())).thenReturn(acked());
+
+        relay.relay();
+
+        verify(outboxRepository).releaseFailed(List.of(1L));
+        verify(outboxRepository).deleteAllByIdInBatch(List.of(2L));
+        verify(deadLetterRepository, never()).saveAll(any());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void movesARowToTheDeadLetterTableAtMaxAttempts() throws Exception {
+        OutboxEvent tooLarge = row(1, "p1");
+        ReflectionTestUtils.setField(tooLarge, "attempts", 2);
+        when(outboxRepository.claimBatch(any(), anyInt())).thenReturn(List.of(tooLarge));
+        when(kafkaTemplate.send(anyString(), anyString(), any())).thenReturn(
+                CompletableFuture.failedFuture(new RecordTooLargeException("too large")));
+
+        relay.relay();
+
+        ArgumentCaptor<List<OutboxDeadLetter>> dead = ArgumentCaptor.forClass(List.class);
+        verify(deadLetterRepository).saveAll(dead.capture());
+        assertThat(dead.getValue()).singleElement().satisfies(deadLetter -> {
+            assertThat(deadLetter.getId()).isEqualTo(1L);
+            assertThat(deadLetter.getAttempts()).isEqualTo(3);
+            assertThat(deadLetter.getError()).contains("too large");
+            assertThat(deadLetter.getPayload()).isEqualTo(tooLarge.getPayload());
+        });
+        verify(outboxRepository).deleteAllByIdInBatch(List.of(1L));
+        verify(outboxRepository, never()).releaseFailed(any());
+    }
+
+    @Test
+    void neverDeadLettersOnBrokerTimeouts() throws Exception {
+        OutboxEvent row = row(1, "p1");
+        ReflectionTestUtils.setField(row, "attempts", 2);
+        when(outboxRepository.claimBatch(any(), anyInt())).thenReturn(List.of(row));
+        when(kafkaTemplate.send(anyString(), anyString(), any())).thenReturn(
+                CompletableFuture.failedFuture(new KafkaException("send failed",
+                        new TimeoutException("metadata"))));
+
+        relay.relay();
+
+        verify(outboxRepository).release(List.of(1L));
+        verify(deadLetterRepository, never()).saveAll(any());
+    }
+
+    private OutboxEvent row(long id, String productId) throws Exception {
+        OrderPlaced orderPlaced = new OrderPlaced("order-" + id, productId, 1);
+        OutboxEvent row = new OutboxEvent("orders.events", productId,
+                OrderPlaced.class.getName(), objectMapper.writeValueAsString(orderPlaced));
+        ReflectionTestUtils.setField(row, "id", id);
+        return row;
+    }
+
+    private static CompletableFuture<SendResult<String, Object>> acked() {
+        return CompletableFuture.completedFuture(null);
+    }
+
+    private static CompletableFuture<SendResult<String, Object>> failed() {
+        return CompletableFuture.failedFuture(new TimeoutException("broker unavailable"));
+    }
+}
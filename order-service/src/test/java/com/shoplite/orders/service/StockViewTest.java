@@ -0,0 +1,143 @@
+package com.shoplite.orders.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.actuate.health.Status;
+
+class StockViewTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final StockView view = new StockView(meterRegistry, true, Duration.ofMinutes(2));
+
+    @Test
+    void reservesUntilTheAvailableStockRunsOut() {
+        view.update("p1", 10, List.of());
+
+        assertThat(view.tryReserve("p1", "order-1", 6)).isTrue();
+        assertThat(view.tryReserve("p1", "order-2", 5)).isFalse();
+        assertThat(view.tryReserve("p1", "order-2", 4)).isTrue();
+        assertThat(view.tryReserve("p1", "order-3", 1)).isFalse();
+        assertThat(reservations()).isEqualTo(2);
+    }
+
+    @Test
+    void reservingTheSameOrderAgainReplacesItsReservation() {
+        view.update("p1", 10, List.of());
+
+        assertThat(view.tryReserve("p1", "order-1", 6)).isTrue();
+        assertThat(view.tryReserve("p1", "order-1", 2)).isTrue();
+
+        assertThat(view.tryReserve("p1", "order-2", 8)).isTrue();
+    }
+
+    @Test
+    void releaseGivesTheUnitsBack() {
+        view.update("p1", 10, List.of());
+        view.tryReserve("p1", "order-1", 10);
+
+        view.release("p1", "order-1");
+        view.release("p1", "order-1");
+        view.release("unknown", "order-1");
+
+        assertThat(view.tryReserve("p1", "order-2", 10)).isTrue();
+    }
+
+    @Test
+    void updateClearsOnlyTheOrdersCatalogHasApplied() {
+        view.update("p1", 10, List.of());
+        view.tryReserve("p1", "order-1", 6);
+        view.tryReserve("p1", "order-2", 3);
+
+        // catalog applied order-1 (10 - 6) but not yet order-2, which stays reserved
+        view.update("p1", 4, List.of("order-1"));
+
+        assertThat(reservations()).isEqualTo(1);
+        assertThat(view.tryReserve("p1", "order-3", 2)).isFalse();
+        assertThat(view.tryReserve("p1", "order-3", 1)).isTrue();
+    }
+
+    @Test
+    void aSnapshotWithoutTheOrderDoesNotHandItsUnitsBack() {
+        view.update("p1", 10, List.of());
+        view.tryReserve("p1", "order-1", 6);
+
+        view.update("p1", 10, null);
+
+        assertThat(view.tryReserve("p1", "order-2", 5)).isFalse();
+    }
+
+    @Test
+    void unconfirmedReservationsExpireAfterTheTtl() throws InterruptedException {
+        StockView shortLived = new StockView(meterRegistry, true, Duration.ofMillis(200));
+        shortLived.update("p1", 10, List.of());
+        shortLived.tryReserve("p1", "order-1", 10);
+        shortLived.expireReservations();
+        assertThat(shortLived.tryReserve("p1", "order-2", 1)).isFalse();
+
+        Thread.sleep(300);
+        shortLived.expireReservations();
+
+        assertThat(shortLived.tryReserve("p1", "order-2", 10)).isTrue();
+    }
+
+    @Test
+    void acceptsProductsItHasNotSeen() {
+        assertThat(view.tryReserve("unknown", "order-1", 1_000)).isTrue();
+        assertThat(reservations()).isZero();
+    }
+
+    @Test
+    void isOutOfServiceUntilCatalogStockHasBeenReplayed() {
+        var health = new StockViewHealthIndicator(view);
+        assertThat(health.health().getStatus()).isEqualTo(Status.OUT_OF_SERVICE);
+
+        // partition 0 has records 0..4, partition 1 was already read to its end, 2 is empty
+        view.replaying(Map.of(0, 0L, 1, 7L, 2, 0L), Map.of(0, 5L, 1, 7L, 2, 0L));
+        view.read(0, 3);
+        assertThat(view.replayed()).isFalse();
+        view.read(1, 8);
+        assertThat(health.health().getStatus()).isEqualTo(Status.OUT_OF_SERVICE);
+
+        view.read(0, 5);
+        assertThat(view.replayed()).isTrue();
+        assertThat(health.health().getStatus()).isEqualTo(Status.UP);
+
+        // a later rebalance does not take the instance out of service again
+        view.replaying(Map.of(0, 0L), Map.of(0, 50L));
+        assertThat(view.replayed()).isTrue();
+    }
+
+    @Test
+    void countsRecordsReadBeforeALateEndOffsetsLookup() {
+        var health = new StockViewHealthIndicator(view);
+
+        // the lookup on assignment failed: records are read while the view waits for a retry
+        view.read(0, 3);
+        view.read(1, 2);
+        assertThat(health.health().getStatus()).isEqualTo(Status.OUT_OF_SERVICE);
+
+        // the retry reports the positions at assignment; partition 1 is already past its end
+        view.replaying(Map.of(0, 0L, 1, 0L), Map.of(0, 5L, 1, 2L));
+        assertThat(view.replayed()).isFalse();
+
+        view.read(0, 5);
+        assertThat(health.health().getStatus()).isEqualTo(Status.UP);
+    }
+
+    @Test
+    void isReplayedAtOnceForAnEmptyTopicOrADisabledView() {
+        view.replaying(Map.of(0, 0L), Map.of(0, 0L));
+        assertThat(view.replayed()).isTrue();
+
+        assertThat(new StockView(meterRegistry, false, Duration.ofMinutes(2)).replayed()).isTrue();
+    }
+
+    private double reservations() {
+        return meterRegistry.get("orders.stock_view.reservations").gauge().value();
+    }
+}
@@ -0,0 +1,284 @@
+#!/bin/bash
+
+# Load comparison for ShopLite performance switches
+# Starts one service twice, once per variant of a switch, drives the same load at it and prints
+# throughput, p99 latency and the service's CPU time per request for each variant.
+#
+# Usage: scripts/load-compare.sh <scenario>
+#
+#   jwt               api-gateway: verified-JWT cache off (GATEWAY_TOKEN_CACHE_MAX_ENTRIES=0,
+#                     every request verifies the signature and converts authorities) vs on.
+#                     GET /api/products?limit=20 is mostly answered from the gateway's
+#                     ResponseCache, so the gateway's CPU per request is dominated by
+#                     authentication
+#   threads           order-service: platform threads vs VIRTUAL_THREADS_ENABLED=true, placing
+#                     orders (POST /api/orders for PRODUCT_ID) at a concurrency above Tomcat's
+#                     200 platform request threads
+#   threads-catalog   catalog-service: the same switch on GET /api/products?limit=20
+#   producer          order-service: default producer vs ORDERS_KAFKA_HIGH_THROUGHPUT_ENABLED=true
+#                     (linger, lz4, idempotence), placing orders for PRODUCT_ID; also prints the
+#                     outbox relay's acked/failed sends and broker ack latency
+#   batch             catalog-service: single-record vs ORDERS_BATCH_ENABLED=true consumption of
+#                     orders.events. Places ORDERS orders for PRODUCT_ID through order-service
+#                     (which must be running) as fast as it takes them and reports the rate
+#                     orders were placed at and the rate catalog-service applied them at
+#
+# Prerequisites:
+#   - infrastructure from compose.yml and the services the scenario calls are running
+#   - the service under test is NOT running; this script starts it with ./gradlew bootRun
+#   - the variables that service needs are exported (see "Start Services Individually" in
+#     README.md), except SERVER_PORT, which is set here
+#   - TOKEN holds a valid access token for AUTH0_AUDIENCE
+#   - hey (https://github.com/rakyll/hey), curl and lsof on the PATH; Linux (/proc) for CPU time
+#
+# Tunables: DURATION (default 60s), WARMUP (15s), CONCURRENCY (50; 400 for threads*),
+#           ORDERS (20000, batch only)
+
+set -e
+
+DURATION="${DURATION:-60s}"
+WARMUP="${WARMUP:-15s}"
+LOG_DIR="${LOG_DIR:-build/load-compare}"
+
+# Colors for output
+RED='\033[0;31m'
+GREEN='\033[0;32m'
+YELLOW='\033[1;33m'
+BLUE='\033[0;34m'
+NC='\033[0m' # No Color
+
+usage() {
+    sed -n '3,35p' "$0" | sed 's/^# \{0,1\}//'
+    exit 1
+}
+
+require() {
+    for tool in "$@"; do
+        if ! command -v "$tool" > /dev/null; then
+            echo -e "${RED}❌ $tool not found${NC}"
+            exit 1
+        fi
+    done
+}
+
+# Function to start a service with extra environment and wait until it is healthy
+start_service() {
+    local service=$1 port=$2 log=$3
+    shift 3
+
+    env "$@" SERVER_PORT="$port" ./gradlew -q ":${service}:bootRun" > "$log" 2>&1 &
+    GRADLE_PID=$!
+    for _ in $(seq 1 180); do
+        if curl -sf "http://localhost:${port}/actuator/health" > /dev/null; then
+            SERVICE_PID=$(lsof -t -iTCP:"$port" -sTCP:LISTEN | head -1)
+            return 0
+        fi
+        sleep 1
+    done
+    echo -e "${RED}❌ ${service} did not become healthy, see ${log}${NC}"
+    stop_service "$port"
+    exit 1
+}
+
+stop_service() {
+    local port=$1
+    kill "$SERVICE_PID" "$GRADLE_PID" 2> /dev/null || true
+    while lsof -t -iTCP:"$port" -sTCP:LISTEN > /dev/null; do
+        sleep 1
+    done
+}
+
+# user + system CPU seconds of a process
+cpu_seconds() {
+    awk -v hz="$(getconf CLK_TCK)" '{printf "%.2f", ($14 + $15) / hz}' "/proc/$1/stat"
+}
+
+# Actuator metric measurements, e.g. "COUNT=120 TOTAL_TIME=0.53 MAX=0.01"
+metric() {
+    curl -sf "http://localhost:${PORT}/actuator/metrics/$1" \
+        | grep -o '"statistic":"[A-Z_]*","value":[-0-9.eE+]*' \
+        | sed 's/"statistic":"\([A-Z_]*\)","value":/\1=/' | tr '\n' ' '
+}
+
+# hey with the scenario's request; extra arguments (e.g. -z) go first
+load() {
+    hey "$@" -c "$CONCURRENCY" -H "Authorization: Bearer ${TOKEN}" "${REQUEST[@]}" "$URL"
+}
+
+# Function to run one variant: start, warm up, measure, stop
+run_variant() {
+    local variant=$1
+    shift
+    local log="${LOG_DIR}/${SCENARIO}-${variant}"
+    rm -f "${log}.metrics"
+
+    echo -e "${YELLOW}🚀 ${SERVICE} (${variant}: ${*:-defaults})${NC}"
+    start_service "$SERVICE" "$PORT" "${log}.log" "$@"
+    load -z "$WARMUP" > /dev/null
+
+    local cpu_before
+    cpu_before=$(cpu_seconds "$SERVICE_PID")
+    load -z "$DURATION" > "${log}.hey"
+    local cpu_after
+    cpu_after=$(cpu_seconds "$SERVICE_PID")
+    # let in-flight work (e.g. the outbox relay) drain before reading the scenario's metrics
+    sleep 5
+    for name in "${METRICS[@]}"; do
+        echo "${name}: $(metric "$name")" | tee -a "${log}.metrics"
+    done
+    stop_service "$PORT"
+
+    local requests rps p99
+    requests=$(awk '/^[[:space:]]+\[[0-9]+\]/ {sum += $2} END {print sum + 0}' "${log}.hey")
+    rps=$(awk '/Requests\/sec/ {print $2}' "${log}.hey")
+    p99=$(awk '/99% in/ {print $3 * 1000}' "${log}.hey")
+    RESULTS+=("$(awk -v v="$variant" -v n="$requests" -v rps="$rps" -v p99="$p99" \
+        -v cpu="$cpu_after" -v cpu0="$cpu_before" 'BEGIN {
+            printf "%-12s %10d %10.1f %10.1f %14.1f", v, n, rps, p99,
+                n ? (cpu - cpu0) * 1e6 / n : 0 }')")
+    grep -v '^[[:space:]]*$' "${log}.hey" | grep -A8 'Status code distribution' || true
+}
+
+# orders.events records the running catalog-service has applied, in either consumption mode
+consumed() {
+    local single batch
+    single=$(metric catalog.orders.processing | grep -o 'COUNT=[0-9.eE+]*' | cut -d= -f2)
+    batch=$(metric catalog.orders.batch.size | grep -o 'TOTAL=[0-9.eE+]*' | cut -d= -f2)
+    awk -v a="${single:-0}" -v b="${batch:-0}" 'BEGIN {printf "%d", a + b}'
+}
+
+# Function to run one consumption variant: start catalog-service, place ORDERS orders through
+# order-service, wait until catalog-service has applied all of them, stop
+run_drain_variant() {
+    local variant=$1
+    shift
+    local log="${LOG_DIR}/${SCENARIO}-${variant}"
+
+    echo -e "${YELLOW}🚀 ${SERVICE} (${variant}: ${*:-defaults})${NC}"
+    start_service "$SERVICE" "$PORT" "${log}.log" "$@"
+
+    local cpu_before start
+    cpu_before=$(cpu_seconds "$SERVICE_PID")
+    start=$(date +%s.%N)
+    load -n "$ORDERS" > "${log}.hey"
+    local placed
+    placed=$(awk '/^[[:space:]]+\[2[0-9][0-9]\]/ {sum += $2} END {print sum + 0}' "${log}.hey")
+    local applied=0
+    for _ in $(seq 1 600); do
+        applied=$(consumed)
+        if [ "$applied" -ge "$placed" ]; then
+            break
+        fi
+        sleep 1
+    done
+    local end cpu_after
+    end=$(date +%s.%N)
+    cpu_after=$(cpu_seconds "$SERVICE_PID")
+    stop_service "$PORT"
+    if [ "$applied" -lt "$placed" ]; then
+        echo -e "${RED}❌ ${variant}: ${applied} of ${placed} orders applied, see ${log}.log${NC}"
+    fi
+
+    local place_rps
+    place_rps=$(awk '/Requests\/sec/ {print $2}' "${log}.hey")
+    RESULTS+=("$(awk -v v="$variant" -v n="$applied" -v placed="$place_rps" \
+        -v secs="$(awk -v a="$start" -v b="$end" 'BEGIN {print b - a}')" \
+        -v cpu="$cpu_after" -v cpu0="$cpu_before" 'BEGIN {
+            printf "%-12s %10d %12.1f %12.1f %14.1f", v, n, placed, secs ? n / secs : 0,
+                n ? (cpu - cpu0) * 1e6 / n : 0 }')")
+}
+
+# Main execution
+main() {
+    SCENARIO=$1
+    METRICS=()
+    case "$SCENARIO" in
+        jwt)
+            SERVICE=api-gateway
+            PORT="${GATEWAY_PORT:-8080}"
+            URL="http://localhost:${PORT}/api/products?limit=20"
+            REQUEST=()
+            VARIANTS=("no-cache GATEWAY_TOKEN_CACHE_MAX_ENTRIES=0" "cache")
+            ;;
+        threads)
+            if [ -z "$PRODUCT_ID" ]; then
+                echo -e "${RED}❌ PRODUCT_ID is not set (a product with plenty of stock)${NC}"
+                exit 1
+            fi
+            SERVICE=order-service
+            PORT="${ORDER_SERVICE_PORT:-8081}"
+            URL="http://localhost:${PORT}/api/orders"
+            REQUEST=(-m POST -T application/json
+                -d "{\"productId\":\"${PRODUCT_ID}\",\"quantity\":1}")
+            DEFAULT_CONCURRENCY=400
+            VARIANTS=("platform" "virtual VIRTUAL_THREADS_ENABLED=true")
+            ;;
+        producer)
+            if [ -z "$PRODUCT_ID" ]; then
+                echo -e "${RED}❌ PRODUCT_ID is not set (a product with plenty of stock)${NC}"
+                exit 1
+            fi
+            SERVICE=order-service
+            PORT="${ORDER_SERVICE_PORT:-8081}"
+            URL="http://localhost:${PORT}/api/orders"
+            REQUEST=(-m POST -T application/json
+                -d "{\"productId\":\"${PRODUCT_ID}\",\"quantity\":1}")
+            VARIANTS=("default" "tuned ORDERS_KAFKA_HIGH_THROUGHPUT_ENABLED=true")
+            METRICS=("orders.outbox.sends?tag=result:acked" "orders.outbox.sends?tag=result:failed"
+                "orders.outbox.ack.latency")
+            ;;
+        batch)
+            if [ -z "$PRODUCT_ID" ]; then
+                echo -e "${RED}❌ PRODUCT_ID is not set (a product with plenty of stock)${NC}"
+                exit 1
+            fi
+            SERVICE=catalog-service
+            PORT="${CATALOG_SERVICE_PORT:-8082}"
+            URL="http://localhost:${ORDER_SERVICE_PORT:-8081}/api/orders"
+            REQUEST=(-m POST -T application/json
+                -d "{\"productId\":\"${PRODUCT_ID}\",\"quantity\":1}")
+            ORDERS="${ORDERS:-20000}"
+            RUN=run_drain_variant
+            VARIANTS=("single" "batch ORDERS_BATCH_ENABLED=true")
+            ;;
+        threads-catalog)
+            SERVICE=catalog-service
+            PORT="${CATALOG_SERVICE_PORT:-8082}"
+            URL="http://localhost:${PORT}/api/products?limit=20"
+            REQUEST=()
+            DEFAULT_CONCURRENCY=400
+            VARIANTS=("platform" "virtual VIRTUAL_THREADS_ENABLED=true")
+            ;;
+        *)
+            usage
+            ;;
+    esac
+    CONCURRENCY="${CONCURRENCY:-${DEFAULT_CONCURRENCY:-50}}"
+    RUN="${RUN:-run_variant}"
+    require hey curl lsof
+    if [ -z "$TOKEN" ]; then
+        echo -e "${RED}❌ TOKEN is not set${NC}"
+        exit 1
+    fi
+
+    cd "$(dirname "$0")/.."
+    mkdir -p "$LOG_DIR"
+    RESULTS=()
+    for variant in "${VARIANTS[@]}"; do
+        # first word names the variant, the rest is its environment
+        $RUN $variant
+    done
+
+    echo ""
+    if [ "$RUN" = run_drain_variant ]; then
+        echo -e "${BLUE}📋 ${SCENARIO}: ${ORDERS} orders at concurrency ${CONCURRENCY}${NC}"
+        printf "%-12s %10s %12s %12s %14s\n" variant applied placed/s applied/s "CPU µs/order"
+    else
+        echo -e "${BLUE}📋 ${SCENARIO}: ${DURATION} at concurrency ${CONCURRENCY}${NC}"
+        printf "%-12s %10s %10s %10s %14s\n" variant requests req/s "p99 ms" "CPU µs/req"
+    fi
+    printf "%s\n" "${RESULTS[@]}"
+    echo -e "${GREEN}✅ Raw hey output and service logs in ${LOG_DIR}${NC}"
+}
+
+main "$@"